@@ -0,0 +1,96 @@
+package com.izabi.configuration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class AsyncConfiguration {
+
+    @Value("${app.study.jobs.workers:4}")
+    private int studyJobWorkers;
+
+    @Value("${app.study.jobs.queue-capacity:100}")
+    private int studyJobQueueCapacity;
+
+    @Value("${app.extraction.pdf.parallelism:0}")
+    private int pdfExtractionParallelism;
+
+    @Value("${app.auth.hashing.threads:0}")
+    private int passwordHashingThreads;
+
+    @Value("${app.auth.hashing.queue-capacity:64}")
+    private int passwordHashingQueueCapacity;
+
+    @Value("${app.mail.outbox.workers:2}")
+    private int emailOutboxWorkers;
+
+    @Bean
+    public ThreadPoolTaskExecutor studyMaterialJobExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(studyJobWorkers);
+        executor.setMaxPoolSize(studyJobWorkers);
+        executor.setQueueCapacity(studyJobQueueCapacity);
+        executor.setThreadNamePrefix("study-job-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    /**
+     * Runs streaming summaries off the request thread. Each stream spends nearly all
+     * of its time blocked on Gemini and on the client socket, so a virtual thread per
+     * stream is cheaper than sizing a pool for it.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService summaryStreamExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    /**
+     * Dedicated pool for CPU-bound PDF text stripping, so large uploads use several
+     * cores without competing with the common pool. A parallelism of 0 means one
+     * thread per available processor.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool pdfExtractionPool() {
+        int parallelism = pdfExtractionParallelism > 0
+                ? pdfExtractionParallelism
+                : Runtime.getRuntime().availableProcessors();
+        return new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * Pool for BCrypt work. Hashing is pure CPU, so by default there is one thread
+     * per core, and the queue is bounded so excess logins are refused with 429
+     * rather than piling up behind each other.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService passwordHashingExecutor() {
+        int threads = passwordHashingThreads > 0
+                ? passwordHashingThreads
+                : Runtime.getRuntime().availableProcessors();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(passwordHashingQueueCapacity), new ThreadPoolExecutor.AbortPolicy());
+        executor.setThreadFactory(Thread.ofPlatform().name("password-hash-", 0).factory());
+        return executor;
+    }
+
+    /**
+     * Long-running outbox workers, one thread each. Every worker holds its own SMTP
+     * connection, so this also caps the number of open connections to the relay.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService emailOutboxExecutor() {
+        return Executors.newFixedThreadPool(emailOutboxWorkers, Thread.ofPlatform().name("email-outbox-", 0).factory());
+    }
+}
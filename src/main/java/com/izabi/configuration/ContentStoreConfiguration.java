@@ -0,0 +1,24 @@
+package com.izabi.configuration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.gridfs.GridFsTemplate;
+
+@Configuration
+public class ContentStoreConfiguration {
+
+    @Value("${app.content-store.bucket:content}")
+    private String contentBucket;
+
+    /**
+     * GridFS bucket for large extracted text, kept apart from the default
+     * {@code fs} bucket so its files and chunks collections hold nothing else.
+     */
+    @Bean
+    public GridFsTemplate contentGridFsTemplate(MongoDatabaseFactory mongoDatabaseFactory, MongoTemplate mongoTemplate) {
+        return new GridFsTemplate(mongoDatabaseFactory, mongoTemplate.getConverter(), contentBucket);
+    }
+}
@@ -0,0 +1,89 @@
+package com.izabi.configuration;
+
+import com.izabi.data.model.StudyMaterial;
+import com.izabi.service.ContentStoreService;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * One-off move of inline {@code extractedText} and {@code fileContent} strings from
+ * the {@code material} collection into the content store. Disabled by default. Each
+ * document is rewritten on its own, so an interrupted run can simply be started
+ * again. A crash between storing a text and rewriting its document leaves one extra
+ * reference on that content, which only delays its deletion.
+ */
+@Slf4j
+@Component
+public class ContentStoreMigration {
+
+    private static final String INLINE_TEXT = "extractedText";
+    private static final String INLINE_FILE = "fileContent";
+
+    private final MongoTemplate mongoTemplate;
+    private final ContentStoreService contentStoreService;
+    private final boolean enabled;
+    private final int batchSize;
+
+    public ContentStoreMigration(MongoTemplate mongoTemplate,
+                                 ContentStoreService contentStoreService,
+                                 @Value("${app.content-store.migration.enabled:false}") boolean enabled,
+                                 @Value("${app.content-store.migration.batch-size:100}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.contentStoreService = contentStoreService;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateInlineContent() {
+        if (!enabled) {
+            return;
+        }
+        String collection = mongoTemplate.getCollectionName(StudyMaterial.class);
+        long migrated = 0;
+        try {
+            while (true) {
+                Query query = new Query(new Criteria().orOperator(
+                        where(INLINE_TEXT).exists(true), where(INLINE_FILE).exists(true))).limit(batchSize);
+                query.fields().include("_id", INLINE_TEXT, INLINE_FILE);
+                List<Document> batch = mongoTemplate.find(query, Document.class, collection);
+                if (batch.isEmpty()) {
+                    break;
+                }
+                for (Document document : batch) {
+                    mongoTemplate.updateFirst(Query.query(where("_id").is(document.get("_id"))),
+                            moveInline(document), collection);
+                    migrated++;
+                }
+            }
+            log.info("Moved inline content of {} study materials into the content store", migrated);
+        } catch (RuntimeException e) {
+            log.error("Content store migration stopped after {} study materials: {}", migrated, e.getMessage(), e);
+        }
+    }
+
+    private Update moveInline(Document document) {
+        Update update = new Update().unset(INLINE_TEXT).unset(INLINE_FILE);
+        String text = document.getString(INLINE_TEXT);
+        if (text != null) {
+            update.set("extractedTextId", contentStoreService.store(text));
+        }
+        String fileContent = document.getString(INLINE_FILE);
+        if (fileContent != null) {
+            update.set("fileContentId", contentStoreService.store(fileContent));
+        }
+        return update;
+    }
+}
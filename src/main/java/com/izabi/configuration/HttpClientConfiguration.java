@@ -0,0 +1,87 @@
+package com.izabi.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
+/**
+ * Outbound HTTP clients, one per downstream so a slow upstream cannot use up
+ * connections or threads meant for another. Each client is a JDK {@link HttpClient}.
+ * It keeps connections alive and pools them per host. Over TLS it negotiates HTTP/2
+ * through ALPN and falls back to HTTP/1.1 when the server does not support it. Every
+ * client has a connect timeout, a response timeout and, through
+ * {@link OutboundRequestLimiter}, an in-flight cap and a total deadline.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class HttpClientConfiguration {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.http.gemini.connect-timeout-ms:5000}")
+    private long geminiConnectTimeoutMs;
+
+    @Value("${app.http.gemini.read-timeout-ms:60000}")
+    private long geminiReadTimeoutMs;
+
+    @Value("${app.http.gemini.total-timeout-ms:90000}")
+    private long geminiTotalTimeoutMs;
+
+    @Value("${app.http.gemini.max-in-flight:32}")
+    private int geminiMaxInFlight;
+
+    @Value("${app.http.voice.connect-timeout-ms:3000}")
+    private long voiceConnectTimeoutMs;
+
+    @Value("${app.http.voice.read-timeout-ms:15000}")
+    private long voiceReadTimeoutMs;
+
+    @Value("${app.http.voice.total-timeout-ms:20000}")
+    private long voiceTotalTimeoutMs;
+
+    @Value("${app.http.voice.max-in-flight:16}")
+    private int voiceMaxInFlight;
+
+    @Value("${app.http.acquire-timeout-ms:2000}")
+    private long acquireTimeoutMs;
+
+    @Bean
+    public RestTemplate geminiRestTemplate() {
+        return restTemplate("gemini", HttpClient.Version.HTTP_2, geminiConnectTimeoutMs, geminiReadTimeoutMs, geminiTotalTimeoutMs, geminiMaxInFlight);
+    }
+
+    /**
+     * The voice ML service is an internal plain-HTTP endpoint. Asking for HTTP/2 there
+     * would only add an h2c upgrade attempt to every new connection, so it stays on
+     * HTTP/1.1 keep-alive.
+     */
+    @Bean
+    public RestTemplate voiceRestTemplate() {
+        return restTemplate("voice", HttpClient.Version.HTTP_1_1, voiceConnectTimeoutMs, voiceReadTimeoutMs, voiceTotalTimeoutMs, voiceMaxInFlight);
+    }
+
+    private RestTemplate restTemplate(String name, HttpClient.Version version, long connectTimeoutMs, long readTimeoutMs, long totalTimeoutMs, int maxInFlight) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(version)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+
+        RestTemplate restTemplate = new RestTemplate(requestFactory);
+        restTemplate.getInterceptors().add(new OutboundRequestLimiter(
+                name, maxInFlight, Duration.ofMillis(acquireTimeoutMs), Duration.ofMillis(totalTimeoutMs), meterRegistry));
+        return restTemplate;
+    }
+}
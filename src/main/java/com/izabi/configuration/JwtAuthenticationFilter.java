@@ -1,14 +1,19 @@
 package com.izabi.configuration;
 
+import com.izabi.service.TokenBlacklistService;
+import com.izabi.util.BoundedTtlCache;
 import com.izabi.util.JwtUtil;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -16,13 +21,35 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
 
+/**
+ * Authenticates bearer tokens without touching MongoDB on the hot path. Claims
+ * come from {@link JwtUtil#verify}, which parses each token once. Tokens carrying
+ * a {@code roles} claim become a principal built from the claims alone. Older
+ * tokens without roles fall back to {@link UserDetailsService}, with results
+ * kept in a short-lived cache. Revoked tokens are rejected through
+ * {@link TokenBlacklistService#isRevoked}, which answers from local state.
+ */
 @Component
-@RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
     private final UserDetailsService userDetailsService;
+    private final TokenBlacklistService tokenBlacklistService;
+    private final BoundedTtlCache<String, UserDetails> userDetailsCache;
+
+    public JwtAuthenticationFilter(JwtUtil jwtUtil,
+                                   UserDetailsService userDetailsService,
+                                   TokenBlacklistService tokenBlacklistService,
+                                   @Value("${app.auth.user-cache.max-entries:5000}") int maxCachedUsers,
+                                   @Value("${app.auth.user-cache.ttl-seconds:60}") long userCacheTtlSeconds) {
+        this.jwtUtil = jwtUtil;
+        this.userDetailsService = userDetailsService;
+        this.tokenBlacklistService = tokenBlacklistService;
+        this.userDetailsCache = new BoundedTtlCache<>(maxCachedUsers, Duration.ofSeconds(userCacheTtlSeconds));
+    }
 
     @Override
     protected void doFilterInternal(
@@ -31,32 +58,47 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             @NonNull FilterChain filterChain
     ) throws ServletException, IOException {
         final String authHeader = request.getHeader("Authorization");
-        final String jwtToken;
-        final String email;
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             filterChain.doFilter(request, response);
             return;
         }
 
-        jwtToken = authHeader.substring(7);
-        email = jwtUtil.extractUserName(jwtToken);
+        String jwtToken = authHeader.substring(7);
+        Claims claims = jwtUtil.verify(jwtToken);
+        if (claims != null && tokenBlacklistService.isRevoked(
+                jwtToken, claims.get(JwtUtil.USER_ID_CLAIM, String.class), claims.getIssuedAt())) {
+            claims = null;
+        }
+        String email = claims == null ? null : claims.getSubject();
 
         if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(email);
-            if (jwtUtil.isValidToken(jwtToken, userDetails)) {
-                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                        userDetails,
-                        null,
-                        userDetails.getAuthorities()
-                );
-                authentication.setDetails(
-                        new WebAuthenticationDetailsSource().buildDetails(request)
-                );
-                SecurityContextHolder.getContext().setAuthentication(authentication);
-            }
+            UserDetails userDetails = principal(email, claims);
+            UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                    userDetails,
+                    null,
+                    userDetails.getAuthorities()
+            );
+            authentication.setDetails(
+                    new WebAuthenticationDetailsSource().buildDetails(request)
+            );
+            SecurityContextHolder.getContext().setAuthentication(authentication);
         }
 
         filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    private UserDetails principal(String email, Claims claims) {
+        List<String> roles = JwtUtil.roles(claims);
+        if (roles != null) {
+            return new User(email, "", AuthorityUtils.createAuthorityList(roles));
+        }
+        UserDetails cached = userDetailsCache.get(email);
+        if (cached != null) {
+            return cached;
+        }
+        UserDetails loaded = userDetailsService.loadUserByUsername(email);
+        userDetailsCache.put(email, loaded);
+        return loaded;
+    }
+}
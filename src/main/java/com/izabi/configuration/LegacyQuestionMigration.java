@@ -0,0 +1,139 @@
+package com.izabi.configuration;
+
+import com.izabi.data.enums.Difficulty;
+import com.izabi.data.enums.QuestionType;
+import com.izabi.data.model.StudyMaterial;
+import com.izabi.data.model.StudyQuestion;
+import com.izabi.util.ContentDigest;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * One-off copy of the old {@code questions} collection into {@code studyQuestions}.
+ * Disabled by default. Legacy rows only carry the upload's file name as
+ * {@code fileId}, so each row is matched to the one study material with that file
+ * name. The material supplies the owner, the material id and the content id of
+ * its extracted text, which is the {@code fileId} questions use now. Rows whose
+ * file name matches no material, or more than one, cannot be given an owner and
+ * are skipped and counted.
+ * <p>
+ * Copies keep the legacy {@code _id} and are written as upserts, and the legacy
+ * collection is left untouched, so the run can be repeated or resumed safely.
+ */
+@Slf4j
+@Component
+public class LegacyQuestionMigration {
+
+    static final String LEGACY_COLLECTION = "questions";
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+
+    public LegacyQuestionMigration(MongoTemplate mongoTemplate,
+                                   @Value("${app.questions.migration.enabled:false}") boolean enabled,
+                                   @Value("${app.questions.migration.batch-size:200}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateLegacyQuestions() {
+        if (!enabled) {
+            return;
+        }
+        Map<String, Optional<Document>> materialsByFileName = new HashMap<>();
+        long copied = 0;
+        long skipped = 0;
+        Object lastId = null;
+        try {
+            while (true) {
+                Query query = new Query(lastId == null ? new Criteria() : where("_id").gt(lastId))
+                        .with(Sort.by(Sort.Direction.ASC, "_id"))
+                        .limit(batchSize);
+                List<Document> batch = mongoTemplate.find(query, Document.class, LEGACY_COLLECTION);
+                if (batch.isEmpty()) {
+                    break;
+                }
+                for (Document legacy : batch) {
+                    lastId = legacy.get("_id");
+                    String fileName = legacy.getString("fileId");
+                    Optional<Document> material = fileName == null
+                            ? Optional.empty()
+                            : materialsByFileName.computeIfAbsent(fileName, this::findOnlyMaterial);
+                    StudyQuestion question = material.map(found -> toStudyQuestion(legacy, found)).orElse(null);
+                    if (question == null) {
+                        skipped++;
+                        continue;
+                    }
+                    mongoTemplate.save(question);
+                    copied++;
+                }
+            }
+            log.info("Copied {} legacy questions into studyQuestions ({} without a single matching material skipped)",
+                    copied, skipped);
+        } catch (RuntimeException e) {
+            log.error("Legacy question migration stopped after {} questions: {}", copied + skipped, e.getMessage(), e);
+        }
+    }
+
+    private Optional<Document> findOnlyMaterial(String fileName) {
+        Query query = new Query(new Criteria().orOperator(
+                where("fileName").is(fileName), where("originalFileName").is(fileName))).limit(2);
+        query.fields().include("_id", "userId", "extractedTextId", "extractedText");
+        List<Document> materials = mongoTemplate.find(query, Document.class,
+                mongoTemplate.getCollectionName(StudyMaterial.class));
+        return materials.size() == 1 ? Optional.of(materials.get(0)) : Optional.empty();
+    }
+
+    private static StudyQuestion toStudyQuestion(Document legacy, Document material) {
+        String fileId = material.getString("extractedTextId");
+        if (fileId == null && material.getString("extractedText") != null) {
+            fileId = ContentDigest.sha256Hex(material.getString("extractedText"));
+        }
+        if (fileId == null || material.getString("userId") == null) {
+            return null;
+        }
+        StudyQuestion question = new StudyQuestion();
+        question.setId(legacy.get("_id").toString());
+        question.setStudyMaterialId(material.get("_id").toString());
+        question.setUserId(material.getString("userId"));
+        question.setFileId(fileId);
+        question.setQuestion(legacy.getString("question"));
+        question.setOptions(legacy.getList("options", String.class));
+        question.setCorrectAnswer(legacy.getString("answer"));
+        question.setDifficulty(enumValue(Difficulty.class, legacy.getString("difficulty"), Difficulty.BEGINNER));
+        question.setQuestionType(enumValue(QuestionType.class, legacy.getString("questionType"), QuestionType.MULTIPLE_CHOICE));
+        question.setActive(true);
+        question.setCreatedAt(LocalDateTime.now());
+        return question;
+    }
+
+    private static <E extends Enum<E>> E enumValue(Class<E> type, String name, E fallback) {
+        if (name == null) {
+            return fallback;
+        }
+        try {
+            return Enum.valueOf(type, name);
+        } catch (IllegalArgumentException e) {
+            return fallback;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.izabi.configuration;
+
+import com.izabi.data.model.OutboundEmail;
+import com.izabi.data.model.PendingUser;
+import com.izabi.data.model.StudyMaterial;
+import com.izabi.data.model.StudyQuestion;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+
+/**
+ * Creates the indexes that the hot read paths depend on. Spring Boot does not
+ * auto-create indexes outside the test profile, so they are ensured explicitly
+ * at startup. Creating an index that already exists does nothing.
+ */
+@Slf4j
+@Configuration
+@RequiredArgsConstructor
+public class MongoIndexConfiguration {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${app.content-store.bucket:content}")
+    private String contentBucket;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        try {
+            mongoTemplate.indexOps(StudyMaterial.class).ensureIndex(new Index()
+                    .on("userId", Sort.Direction.ASC)
+                    .on("createdAt", Sort.Direction.DESC)
+                    .on("_id", Sort.Direction.DESC)
+                    .named("user_history"));
+            mongoTemplate.indexOps(StudyQuestion.class).ensureIndex(new Index()
+                    .on("studyMaterialId", Sort.Direction.ASC)
+                    .named("studyMaterialId"));
+            mongoTemplate.indexOps(StudyQuestion.class).ensureIndex(new Index()
+                    .on("userId", Sort.Direction.ASC)
+                    .on("fileId", Sort.Direction.ASC)
+                    .named("user_file"));
+            mongoTemplate.indexOps(contentBucket + ".files").ensureIndex(new Index()
+                    .on("filename", Sort.Direction.ASC)
+                    .unique()
+                    .named("content_hash"));
+            mongoTemplate.indexOps(OutboundEmail.class).ensureIndex(new Index()
+                    .on("status", Sort.Direction.ASC)
+                    .on("nextAttemptAt", Sort.Direction.ASC)
+                    .named("outbox_due"));
+            mongoTemplate.indexOps(OutboundEmail.class).ensureIndex(new Index()
+                    .on("expireAt", Sort.Direction.ASC)
+                    .expire(0)
+                    .named("outbox_expiry"));
+            mongoTemplate.indexOps(PendingUser.class).ensureIndex(new Index()
+                    .on("expiryTime", Sort.Direction.ASC)
+                    .expire(0)
+                    .named("pending_expiry"));
+            mongoTemplate.indexOps(PendingUser.class).ensureIndex(new Index()
+                    .on("email", Sort.Direction.ASC)
+                    .unique()
+                    .named("pending_email"));
+        } catch (RuntimeException e) {
+            log.error("Could not ensure MongoDB indexes: {}", e.getMessage(), e);
+        }
+    }
+}
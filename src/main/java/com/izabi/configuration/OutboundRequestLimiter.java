@@ -0,0 +1,203 @@
+package com.izabi.configuration;
+
+import com.izabi.exception.OutboundCallRejectedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Bounds the number of in-flight calls to one downstream and enforces a total
+ * deadline per call. A caller that cannot get a slot within the acquire timeout
+ * fails fast instead of queueing behind a saturated upstream. The deadline covers
+ * the whole exchange, including reading the body. When it passes, the response
+ * stream is closed, which aborts a read that is blocked on a hung socket.
+ * <p>
+ * Publishes {@code http.client.in.flight}, {@code http.client.max.in.flight},
+ * {@code http.client.rejected}, {@code http.client.deadline.exceeded} and
+ * {@code http.client.requests.duration}, all tagged with the client name.
+ */
+@Slf4j
+public class OutboundRequestLimiter implements ClientHttpRequestInterceptor {
+
+    private static final ScheduledExecutorService DEADLINES = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "http-deadline");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final String clientName;
+    private final Semaphore permits;
+    private final Duration acquireTimeout;
+    private final Duration totalDeadline;
+    private final Counter rejected;
+    private final Counter deadlineExceeded;
+    private final Timer duration;
+
+    public OutboundRequestLimiter(String clientName, int maxInFlight, Duration acquireTimeout,
+                                  Duration totalDeadline, MeterRegistry meterRegistry) {
+        this.clientName = clientName;
+        this.permits = new Semaphore(maxInFlight);
+        this.acquireTimeout = acquireTimeout;
+        this.totalDeadline = totalDeadline;
+
+        Gauge.builder("http.client.in.flight", permits, p -> maxInFlight - p.availablePermits())
+                .tag("client", clientName)
+                .register(meterRegistry);
+        Gauge.builder("http.client.max.in.flight", () -> maxInFlight)
+                .tag("client", clientName)
+                .register(meterRegistry);
+        this.rejected = Counter.builder("http.client.rejected").tag("client", clientName).register(meterRegistry);
+        this.deadlineExceeded = Counter.builder("http.client.deadline.exceeded").tag("client", clientName).register(meterRegistry);
+        this.duration = Timer.builder("http.client.requests.duration").tag("client", clientName).register(meterRegistry);
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body,
+                                        ClientHttpRequestExecution execution) throws IOException {
+        acquire();
+        long start = System.nanoTime();
+        Exchange exchange = new Exchange(start);
+        ScheduledFuture<?> deadline = DEADLINES.schedule(exchange::expire, totalDeadline.toMillis(), TimeUnit.MILLISECONDS);
+        exchange.deadline = deadline;
+        try {
+            ClientHttpResponse response = execution.execute(request, body);
+            exchange.response = response;
+            if (exchange.expired.get()) {
+                response.close();
+                throw new ResourceAccessException(clientName + " call exceeded its " + totalDeadline.toMillis() + " ms deadline");
+            }
+            return new DeadlineBoundResponse(response, exchange);
+        } catch (IOException | RuntimeException e) {
+            exchange.finish();
+            throw e;
+        }
+    }
+
+    private void acquire() {
+        try {
+            if (!permits.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                rejected.increment();
+                log.warn("Outbound {} pool saturated, rejecting call", clientName);
+                throw new OutboundCallRejectedException(clientName + " is saturated, no connection slot became free within "
+                        + acquireTimeout.toMillis() + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResourceAccessException("Interrupted while waiting for a " + clientName + " connection slot");
+        }
+    }
+
+    /** Tracks one call so the permit is released exactly once, on close or on expiry. */
+    private final class Exchange {
+        private final long start;
+        private final AtomicBoolean finished = new AtomicBoolean();
+        private final AtomicBoolean expired = new AtomicBoolean();
+        private volatile ScheduledFuture<?> deadline;
+        private volatile ClientHttpResponse response;
+
+        private Exchange(long start) {
+            this.start = start;
+        }
+
+        private void expire() {
+            if (finished.get()) {
+                return;
+            }
+            expired.set(true);
+            deadlineExceeded.increment();
+            log.warn("Outbound {} call exceeded its {} ms deadline, aborting", clientName, totalDeadline.toMillis());
+            ClientHttpResponse current = response;
+            if (current != null) {
+                current.close();
+            }
+        }
+
+        private void finish() {
+            if (finished.compareAndSet(false, true)) {
+                ScheduledFuture<?> current = deadline;
+                if (current != null) {
+                    current.cancel(false);
+                }
+                duration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                permits.release();
+            }
+        }
+    }
+
+    private static final class DeadlineBoundResponse implements ClientHttpResponse {
+        private final ClientHttpResponse delegate;
+        private final Exchange exchange;
+
+        private DeadlineBoundResponse(ClientHttpResponse delegate, Exchange exchange) {
+            this.delegate = delegate;
+            this.exchange = exchange;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return delegate.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return delegate.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            return new FilterInputStream(delegate.getBody()) {
+                @Override
+                public int read() throws IOException {
+                    checkDeadline();
+                    return super.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) throws IOException {
+                    checkDeadline();
+                    return super.read(buffer, offset, length);
+                }
+            };
+        }
+
+        private void checkDeadline() throws IOException {
+            if (exchange.expired.get()) {
+                throw new IOException("Response body read aborted: call deadline exceeded");
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                delegate.close();
+            } finally {
+                exchange.finish();
+            }
+        }
+    }
+}
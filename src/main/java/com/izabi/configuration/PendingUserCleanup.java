@@ -0,0 +1,67 @@
+package com.izabi.configuration;
+
+import com.izabi.data.model.PendingUser;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Clears out pending registrations left by the old signup flow, so that
+ * {@link MongoIndexConfiguration} can build the unique {@code pending_email} index.
+ * That flow inserted a new entry on every signup and recorded no expiry time.
+ * Entries without an expiry time are deleted: the TTL index never removes them,
+ * and the OTPs they were waiting for no longer exist. Where an email still has
+ * more than one entry, only the newest is kept. Runs before the index
+ * configuration, and does nothing once the data is clean.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PendingUserCleanup {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void removeLegacyPendingUsers() {
+        try {
+            long withoutExpiry = mongoTemplate.remove(Query.query(where("expiryTime").is(null)), PendingUser.class)
+                    .getDeletedCount();
+            long duplicates = removeDuplicateEmails();
+            if (withoutExpiry + duplicates > 0) {
+                log.info("Removed {} pending users without an expiry time and {} duplicates", withoutExpiry, duplicates);
+            }
+        } catch (RuntimeException e) {
+            log.error("Could not clean up pending users: {}", e.getMessage(), e);
+        }
+    }
+
+    private long removeDuplicateEmails() {
+        Aggregation duplicates = Aggregation.newAggregation(
+                Aggregation.sort(Sort.by(Sort.Order.desc("expiryTime"), Sort.Order.desc("_id"))),
+                Aggregation.group("email").first("_id").as("keep").push("_id").as("ids").count().as("count"),
+                Aggregation.match(where("count").gt(1)));
+        long removed = 0;
+        for (Document group : mongoTemplate.aggregate(duplicates, PendingUser.class, Document.class)) {
+            Object keep = group.get("keep");
+            List<Object> stale = group.getList("ids", Object.class).stream()
+                    .filter(id -> !id.equals(keep))
+                    .toList();
+            removed += mongoTemplate.remove(Query.query(where("_id").in(stale)), PendingUser.class).getDeletedCount();
+        }
+        return removed;
+    }
+}
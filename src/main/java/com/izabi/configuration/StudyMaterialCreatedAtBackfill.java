@@ -0,0 +1,51 @@
+package com.izabi.configuration;
+
+import com.izabi.data.model.StudyMaterial;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.aggregation.ConvertOperators;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Sets {@code createdAt} on study materials saved before it was populated. Only
+ * {@code uploadDate} was set on those, and history pages are keyed on
+ * {@code createdAt}, so without a value they could not be paged past. The value
+ * is {@code uploadDate}, or the time in the ObjectId when that is missing too,
+ * which is the same key {@code StudyAppServiceImpl} falls back to. It is one
+ * pipeline update that touches only documents without the field, and it runs
+ * before {@link MongoIndexConfiguration} builds the {@code user_history} index.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StudyMaterialCreatedAtBackfill {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillCreatedAt() {
+        try {
+            AggregationUpdate update = AggregationUpdate.update()
+                    .set("createdAt").toValue(ConditionalOperators.ifNull("uploadDate")
+                            .thenValueOf(ConvertOperators.valueOf("_id").convertToDate()));
+            long updated = mongoTemplate.updateMulti(Query.query(where("createdAt").is(null)), update, StudyMaterial.class)
+                    .getModifiedCount();
+            if (updated > 0) {
+                log.info("Backfilled createdAt on {} study materials", updated);
+            }
+        } catch (RuntimeException e) {
+            log.error("Could not backfill study material createdAt: {}", e.getMessage(), e);
+        }
+    }
+}
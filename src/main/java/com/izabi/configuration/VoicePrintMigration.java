@@ -0,0 +1,107 @@
+package com.izabi.configuration;
+
+import com.izabi.data.model.Embedding;
+import com.izabi.data.model.PendingUser;
+import com.izabi.data.model.User;
+import com.izabi.util.VoicePrints;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Rewrites voice prints stored as comma-separated decimal strings into packed
+ * float32 binary under the new field. Mapped entities no longer read the old
+ * string fields, so deployments holding legacy prints should run this once by
+ * setting {@code app.voice.migration.enabled=true}. Nothing is deleted: the legacy
+ * fields are renamed with a {@value #BACKUP_SUFFIX} suffix in the same update
+ * that writes the packed print, so the run can stop and resume at any point and
+ * the originals stay available until they are removed by hand. A print that
+ * cannot be parsed is only backed up and logged, and that user has to enroll
+ * their voice again.
+ */
+@Slf4j
+@Component
+public class VoicePrintMigration {
+
+    static final String BACKUP_SUFFIX = "_legacy";
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+
+    public VoicePrintMigration(MongoTemplate mongoTemplate,
+                               @Value("${app.voice.migration.enabled:false}") boolean enabled,
+                               @Value("${app.voice.migration.batch-size:200}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateVoicePrints() {
+        if (!enabled) {
+            return;
+        }
+        migrate(mongoTemplate.getCollectionName(User.class), "voicePrint", "voiceEmbedding", null);
+        migrate(mongoTemplate.getCollectionName(PendingUser.class), "voicePrint", "voiceEmbedding", null);
+        migrate(mongoTemplate.getCollectionName(Embedding.class), "voice_print", "voice_embedding", "voice_print_array");
+    }
+
+    private void migrate(String collection, String legacyField, String packedField, String obsoleteField) {
+        long migrated = 0;
+        long unreadable = 0;
+        try {
+            while (true) {
+                Query query = Query.query(where(legacyField).exists(true)).limit(batchSize);
+                query.fields().include("_id", legacyField);
+                List<Document> batch = mongoTemplate.find(query, Document.class, collection);
+                if (batch.isEmpty()) {
+                    break;
+                }
+                for (Document document : batch) {
+                    Update update = new Update().rename(legacyField, legacyField + BACKUP_SUFFIX);
+                    if (obsoleteField != null) {
+                        update.rename(obsoleteField, obsoleteField + BACKUP_SUFFIX);
+                    }
+                    byte[] packed = pack(document.get(legacyField));
+                    if (packed != null) {
+                        update.set(packedField, new Binary(packed));
+                        migrated++;
+                    } else {
+                        unreadable++;
+                        log.warn("Unreadable voice print on {} {} kept only in {}{}",
+                                collection, document.get("_id"), legacyField, BACKUP_SUFFIX);
+                    }
+                    mongoTemplate.updateFirst(Query.query(where("_id").is(document.get("_id"))), update, collection);
+                }
+            }
+            if (migrated + unreadable > 0) {
+                log.info("Packed {} voice prints in {} ({} unreadable, backed up only)", migrated, collection, unreadable);
+            }
+        } catch (RuntimeException e) {
+            log.error("Voice print migration of {} stopped after {} documents: {}", collection, migrated + unreadable, e.getMessage(), e);
+        }
+    }
+
+    private static byte[] pack(Object legacy) {
+        if (!(legacy instanceof String voicePrint) || voicePrint.isBlank()) {
+            return null;
+        }
+        try {
+            return VoicePrints.pack(VoicePrints.parseLegacy(voicePrint));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
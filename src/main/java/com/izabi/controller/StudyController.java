@@ -1,22 +1,44 @@
 package com.izabi.controller;
 
+import com.izabi.dto.response.DocumentUploadResponse;
+import com.izabi.dto.response.ParsedDocument;
+import com.izabi.dto.response.ProcessingStatusResponse;
+import com.izabi.dto.response.StudyHistoryPageResponse;
 import com.izabi.dto.response.StudyQuestionResponse;
 import com.izabi.dto.response.StudyMaterialResponse;
 import com.izabi.dto.response.SummarizedContentResponse;
 import com.izabi.service.StudyAppService;
+import com.izabi.service.StudyMaterialJobService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
+@Slf4j
 @RestController
 @RequestMapping("/api/study")
 @RequiredArgsConstructor
 public class StudyController {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final StudyAppService studyAppService;
+    private final StudyMaterialJobService studyMaterialJobService;
+    private final ExecutorService summaryStreamExecutor;
+
+    @Value("${app.ai.stream.timeout-seconds:180}")
+    private long streamTimeoutSeconds;
 
 
     @PostMapping("/generate-questions")
@@ -38,6 +60,52 @@ public class StudyController {
         return ResponseEntity.ok(summary);
     }
 
+    /**
+     * Streams the summary as server-sent events: a {@code status} event right away,
+     * then {@code summary} events carrying text as Gemini produces it, and finally
+     * {@code complete} with the saved study material, or {@code error}. The upload is
+     * parsed before the response starts, because multipart files are cleaned up once
+     * this method returns.
+     */
+    @PostMapping(value = "/summarize/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamSummary(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam("userId") String userId
+    ) {
+        ParsedDocument document = studyAppService.parseUpload(file, userId);
+        SseEmitter emitter = new SseEmitter(streamTimeoutSeconds * 1000);
+
+        summaryStreamExecutor.execute(() -> {
+            try {
+                send(emitter, "status", Map.of("message", "Summarizing " + document.getFileName()));
+                StudyMaterialResponse material = studyAppService.streamSummary(
+                        document, userId, chunk -> send(emitter, "summary", Map.of("text", chunk)));
+                send(emitter, "complete", material);
+                emitter.complete();
+            } catch (UncheckedIOException e) {
+                log.info("Client disconnected from summary stream for {}", document.getFileName());
+                emitter.completeWithError(e);
+            } catch (Exception e) {
+                log.error("Summary stream for {} failed: {}", document.getFileName(), e.getMessage());
+                try {
+                    send(emitter, "error", Map.of("message", String.valueOf(e.getMessage())));
+                    emitter.complete();
+                } catch (UncheckedIOException disconnected) {
+                    emitter.completeWithError(disconnected);
+                }
+            }
+        });
+        return emitter;
+    }
+
+    private static void send(SseEmitter emitter, String event, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(event).data(data, MediaType.APPLICATION_JSON));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     @PostMapping("/generate-study-material")
     public ResponseEntity<StudyMaterialResponse> generateStudyMaterial(
             @RequestParam("file") MultipartFile file,
@@ -48,12 +116,49 @@ public class StudyController {
         return ResponseEntity.ok(material);
     }
 
+    @PostMapping("/study-material/jobs")
+    public ResponseEntity<DocumentUploadResponse> submitStudyMaterialJob(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam("userId") String userId,
+            @RequestParam(value = "numberOfQuestions", defaultValue = "5") int numberOfQuestions
+    ) {
+        DocumentUploadResponse response = studyMaterialJobService.submitStudyMaterialJob(file, userId, numberOfQuestions);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+    }
+
+    @GetMapping("/study-material/{studyMaterialId}/status")
+    public ResponseEntity<ProcessingStatusResponse> getProcessingStatus(
+            @PathVariable String studyMaterialId,
+            @RequestParam("userId") String userId
+    ) {
+        return ResponseEntity.ok(studyMaterialJobService.getProcessingStatus(studyMaterialId, userId));
+    }
+
+    @GetMapping("/study-material/{studyMaterialId}")
+    public ResponseEntity<StudyMaterialResponse> getStudyMaterial(
+            @PathVariable String studyMaterialId,
+            @RequestParam("userId") String userId
+    ) {
+        return ResponseEntity.ok(studyAppService.getStudyMaterial(studyMaterialId, userId));
+    }
+
+    /**
+     * Newest-first history page. The body stays a plain list for existing clients.
+     * When more items exist, the cursor for the next page is returned in
+     * {@value #NEXT_CURSOR_HEADER}; pass it back as {@code cursor}.
+     */
     @GetMapping("/history")
     public ResponseEntity<List<StudyMaterialResponse>> getStudyHistory(
-            @RequestParam("userId") String userId
+            @RequestParam("userId") String userId,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", defaultValue = "20") int limit
     ) {
-        List<StudyMaterialResponse> history = studyAppService.getStudyHistory(userId);
-        return ResponseEntity.ok(history);
+        StudyHistoryPageResponse history = studyAppService.getStudyHistory(userId, cursor, limit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (history.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, history.getNextCursor());
+        }
+        return response.body(history.getMaterials());
     }
     @DeleteMapping("/history/{studyMaterialId}")
     public ResponseEntity<Void> deleteStudyMaterial(
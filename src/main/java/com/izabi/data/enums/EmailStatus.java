@@ -0,0 +1,5 @@
+package com.izabi.data.enums;
+
+public enum EmailStatus {
+    PENDING, SENDING, SENT, FAILED
+}
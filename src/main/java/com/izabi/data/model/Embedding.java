@@ -1,14 +1,12 @@
 package com.izabi.data.model;
 
+import com.izabi.util.VoicePrints;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 import lombok.Data;
 
 import java.time.LocalDateTime;
-import java.util.Arrays;
-import java.util.List;
-import java.util.stream.Collectors;
 
 @Data
 @Document(collection = "embeddings")
@@ -17,8 +15,9 @@ public class Embedding {
     @Id
     private String id;
 
-    @Field("voice_print")
-    private String voicePrint;
+    /** Packed little-endian float32 embedding, see {@link VoicePrints}. */
+    @Field("voice_embedding")
+    private byte[] voicePrint;
 
     @Field("created_at")
     private LocalDateTime createdAt;
@@ -26,30 +25,15 @@ public class Embedding {
     @Field("feature_count")
     private int Feature_count;
 
-    public List<Double> getVoicePrintList() {
-        if (voicePrint == null || voicePrint.isEmpty()) {
-            return List.of();
-        }
-        return Arrays.stream(voicePrint.split(","))
-                .map(String::trim)
-                .map(Double::parseDouble)
-                .collect(Collectors.toList());
+    public float[] getVoiceVector() {
+        return VoicePrints.unpack(voicePrint);
     }
 
-    public void setVoicePrintList(List<Double> list) {
-        if (list == null || list.isEmpty()) {
-            this.voicePrint = "";
-        } else {
-            this.voicePrint = list.stream()
-                    .map(String::valueOf)
-                    .collect(Collectors.joining(","));
-        }
+    public void setVoiceVector(float[] vector) {
+        this.voicePrint = vector == null ? null : VoicePrints.pack(vector);
     }
 
-    @Field("voice_print_array")
-    private List<Double> voicePrintArray;
-
     public Embedding() {
         this.createdAt = LocalDateTime.now();
     }
-}
\ No newline at end of file
+}
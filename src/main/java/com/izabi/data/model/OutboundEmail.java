@@ -0,0 +1,30 @@
+package com.izabi.data.model;
+
+import com.izabi.data.enums.EmailStatus;
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Data
+@Document(collection = "email_outbox")
+public class OutboundEmail {
+    @Id
+    private String id;
+
+    private String toEmail;
+    private String subject;
+    private String htmlBody;
+
+    private EmailStatus status;
+    private int attempts;
+    private Instant nextAttemptAt;
+    private Instant leaseUntil;
+    private String lastError;
+
+    private Instant createdAt;
+    private Instant sentAt;
+    /** Set once the message is SENT or FAILED; a TTL index removes the document at this time. */
+    private Instant expireAt;
+}
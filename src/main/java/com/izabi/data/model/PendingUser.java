@@ -5,6 +5,7 @@ import lombok.Getter;
 import lombok.Setter;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
 
 import java.time.LocalDateTime;
 
@@ -17,8 +18,9 @@ public class PendingUser {
     private String id;
     private String email;
     private String password;
-    private String voicePrint;
-    private String otp;
+    @Field("voiceEmbedding")
+    private byte[] voicePrint;
+    /** A TTL index removes the document once this time has passed. */
     private LocalDateTime expiryTime;
     private Role role;
 }
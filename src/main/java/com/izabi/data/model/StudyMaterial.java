@@ -1,15 +1,22 @@
 package com.izabi.data.model;
 
+import com.izabi.data.enums.AiAnalysisStatus;
 import com.izabi.data.enums.ContentType;
 import com.izabi.data.enums.Difficulty;
 import com.izabi.data.enums.ProcessingStatus;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Supplier;
 
 @Data
 @Document(collection = "material")
@@ -19,12 +26,12 @@ public class StudyMaterial {
 
     private String fileName;
     private String originalFileName;
-    private String fileContent;
+    private String fileContentId;
     private String fileExtension;
     private int fileSize;
     private String userId;
     private int numberOfPages;
-    private String extractedText;
+    private String extractedTextId;
     private String summary;
     private List<String> keyPoints;
     private Difficulty difficulty;
@@ -38,11 +45,34 @@ public class StudyMaterial {
     private LocalDateTime uploadDate;
 
     private ProcessingStatus processingStatus;
+    private AiAnalysisStatus aiAnalysisStatus;
+    private int progressPercentage;
+    private String currentStep;
+    private String processingError;
+    private LocalDateTime processingStartedAt;
+    private LocalDateTime processingCompletedAt;
+    /** Renewed by the node running the job while it is queued or in progress. Past this time the job is treated as abandoned. */
+    private LocalDateTime leaseUntil;
 
     @Indexed
     private String uploadedBy;
     private LocalDateTime createdAt;
     private LocalDateTime lastAccessedDate;
+
+    /**
+     * Loads the extracted text from the content store on first use. Attached after
+     * the document is read, so loading a material never reads the text itself.
+     */
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Supplier<String> extractedTextLoader;
+
+    @Transient
+    public String getExtractedText() {
+        return extractedTextLoader == null ? null : extractedTextLoader.get();
+    }
 }
 
 
@@ -22,6 +22,8 @@ public class StudyQuestion {
     @Indexed
     private String userId;
 
+    private String fileId;
+
     private String question;
     private QuestionType questionType;
     private List<String> options;
@@ -8,6 +8,7 @@ import lombok.Setter;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
@@ -34,7 +35,9 @@ public class User implements UserDetails {
     private String institution;
     private String major;
     private String location;
-    private String voicePrint;
+    /** Packed little-endian float32 embedding, see {@link com.izabi.util.VoicePrints}. */
+    @Field("voiceEmbedding")
+    private byte[] voicePrint;
     private boolean voiceAuthEnabled;
     private String profilePicturePath;
     private LocalDateTime registrationDate;
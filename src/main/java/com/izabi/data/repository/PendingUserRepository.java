@@ -7,6 +7,6 @@ import org.springframework.stereotype.Repository;
 import java.util.Optional;
 
 @Repository
-public interface PendingUserRepository extends MongoRepository<PendingUser, String> {
+public interface PendingUserRepository extends MongoRepository<PendingUser, String>, PendingUserRepositoryCustom {
     Optional<PendingUser> findByEmail(String email);
 }
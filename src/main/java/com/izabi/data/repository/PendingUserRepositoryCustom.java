@@ -0,0 +1,13 @@
+package com.izabi.data.repository;
+
+import com.izabi.data.model.PendingUser;
+
+public interface PendingUserRepositoryCustom {
+
+    /**
+     * Creates or replaces the pending registration for {@code pendingUser.getEmail()}
+     * in one round trip, so a repeated signup refreshes the existing entry instead
+     * of adding another one.
+     */
+    void upsertByEmail(PendingUser pendingUser);
+}
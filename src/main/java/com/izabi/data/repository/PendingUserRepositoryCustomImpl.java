@@ -0,0 +1,30 @@
+package com.izabi.data.repository;
+
+import com.izabi.data.model.PendingUser;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Upsert keyed on the {@code pending_email} unique index. When two signups for
+ * the same address race, the server retries the losing upsert as an update, so
+ * both calls succeed and only one document remains.
+ */
+@RequiredArgsConstructor
+public class PendingUserRepositoryCustomImpl implements PendingUserRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void upsertByEmail(PendingUser pendingUser) {
+        Update update = new Update()
+                .set("password", pendingUser.getPassword())
+                .set("voicePrint", pendingUser.getVoicePrint())
+                .set("role", pendingUser.getRole())
+                .set("expiryTime", pendingUser.getExpiryTime());
+        mongoTemplate.upsert(Query.query(where("email").is(pendingUser.getEmail())), update, PendingUser.class);
+    }
+}
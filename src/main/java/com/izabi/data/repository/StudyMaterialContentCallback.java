@@ -0,0 +1,24 @@
+package com.izabi.data.repository;
+
+import com.izabi.data.model.StudyMaterial;
+import com.izabi.service.ContentStoreService;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.mapping.event.AfterConvertCallback;
+import org.springframework.stereotype.Component;
+
+/** Gives every loaded {@link StudyMaterial} a lazy loader for its extracted text. */
+@Component
+@RequiredArgsConstructor
+public class StudyMaterialContentCallback implements AfterConvertCallback<StudyMaterial> {
+
+    private final ContentStoreService contentStoreService;
+
+    @Override
+    public StudyMaterial onAfterConvert(StudyMaterial material, Document document, String collection) {
+        if (material.getExtractedTextId() != null) {
+            material.setExtractedTextLoader(contentStoreService.loader(material.getExtractedTextId()));
+        }
+        return material;
+    }
+}
@@ -7,6 +7,6 @@ import org.springframework.stereotype.Repository;
 import java.util.List;
 
 @Repository
-public interface StudyMaterialRepository extends MongoRepository<StudyMaterial, String> {
+public interface StudyMaterialRepository extends MongoRepository<StudyMaterial, String>, StudyMaterialRepositoryCustom {
     List<StudyMaterial> findByUserId(String id);
 }
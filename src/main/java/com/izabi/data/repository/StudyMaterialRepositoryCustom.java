@@ -0,0 +1,35 @@
+package com.izabi.data.repository;
+
+import com.izabi.data.model.StudyMaterial;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface StudyMaterialRepositoryCustom {
+
+    /**
+     * One page of a user's history, newest first. Only the fields the history view
+     * shows are loaded. Pages are keyed on {@code (createdAt, id)}: pass the last
+     * item of the previous page, or nulls for the first page.
+     */
+    List<StudyMaterial> findHistoryPage(String userId, LocalDateTime createdBefore, String idBefore, int limit);
+
+    /**
+     * Writes the job-owned fields of {@code material} (status, progress, lease and
+     * results) to its stored document, leaving every other field alone. Returns
+     * false when the document no longer exists, so a deleted material is never
+     * written back.
+     */
+    boolean updateJobProgress(StudyMaterial material);
+
+    /** Pushes the lease of every still in-flight job in {@code ids} out to {@code leaseUntil}. */
+    long extendJobLeases(Collection<String> ids, LocalDateTime leaseUntil);
+
+    /**
+     * Marks in-flight jobs as FAILED when their lease ran out before {@code now}. Jobs
+     * created before leases existed have none, so they are failed once uploaded
+     * before {@code unleasedCutoff}. Returns the number of jobs failed.
+     */
+    long failExpiredJobs(LocalDateTime now, LocalDateTime unleasedCutoff, String error);
+}
@@ -0,0 +1,105 @@
+package com.izabi.data.repository;
+
+import com.izabi.data.enums.AiAnalysisStatus;
+import com.izabi.data.enums.ProcessingStatus;
+import com.izabi.data.model.StudyMaterial;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * History reads go through {@link MongoTemplate} so they can project away every
+ * field the response does not use, including inline text on documents not yet
+ * moved to the content store, and express the keyset condition
+ * {@code createdAt < t OR (createdAt = t AND _id < id)}. The
+ * {@code user_history} index on {@code (userId, createdAt desc, _id desc)}
+ * serves both the filter and the sort.
+ * <p>
+ * Job progress is a conditional update on {@code _id} rather than a save, because
+ * a save upserts and would bring back a material deleted while its job ran. Job
+ * lease renewal and expiry are multi-document conditional updates, which derived
+ * repository methods cannot express.
+ */
+@RequiredArgsConstructor
+public class StudyMaterialRepositoryCustomImpl implements StudyMaterialRepositoryCustom {
+
+    private static final List<ProcessingStatus> IN_FLIGHT_STATUSES =
+            List.of(ProcessingStatus.PENDING, ProcessingStatus.PROCESSING, ProcessingStatus.ANALYZING);
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public List<StudyMaterial> findHistoryPage(String userId, LocalDateTime createdBefore, String idBefore, int limit) {
+        Criteria criteria = Criteria.where("userId").is(userId);
+        if (createdBefore != null && idBefore != null) {
+            criteria = criteria.orOperator(
+                    Criteria.where("createdAt").lt(createdBefore),
+                    Criteria.where("createdAt").is(createdBefore).and("id").lt(idBefore));
+        }
+
+        Query query = Query.query(criteria)
+                .with(Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id")))
+                .limit(limit);
+        query.fields().include("id", "fileName", "summary", "keyPoints", "createdAt", "uploadDate");
+        return mongoTemplate.find(query, StudyMaterial.class);
+    }
+
+    @Override
+    public boolean updateJobProgress(StudyMaterial material) {
+        Update update = new Update()
+                .set("processingStatus", material.getProcessingStatus())
+                .set("aiAnalysisStatus", material.getAiAnalysisStatus())
+                .set("progressPercentage", material.getProgressPercentage())
+                .set("currentStep", material.getCurrentStep())
+                .set("processingError", material.getProcessingError())
+                .set("processingStartedAt", material.getProcessingStartedAt())
+                .set("processingCompletedAt", material.getProcessingCompletedAt())
+                .set("numberOfPages", material.getNumberOfPages())
+                .set("extractedTextId", material.getExtractedTextId())
+                .set("summary", material.getSummary())
+                .set("keyPoints", material.getKeyPoints());
+        if (material.getLeaseUntil() == null) {
+            update.unset("leaseUntil");
+        } else {
+            update.set("leaseUntil", material.getLeaseUntil());
+        }
+        Query query = Query.query(Criteria.where("id").is(material.getId()));
+        return mongoTemplate.updateFirst(query, update, StudyMaterial.class).getMatchedCount() > 0;
+    }
+
+    @Override
+    public long extendJobLeases(Collection<String> ids, LocalDateTime leaseUntil) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        Query query = Query.query(Criteria.where("id").in(ids).and("processingStatus").in(IN_FLIGHT_STATUSES));
+        return mongoTemplate.updateMulti(query, new Update().set("leaseUntil", leaseUntil), StudyMaterial.class)
+                .getModifiedCount();
+    }
+
+    /**
+     * A single conditional update, so a job whose lease a live node has just
+     * renewed no longer matches and is left alone.
+     */
+    @Override
+    public long failExpiredJobs(LocalDateTime now, LocalDateTime unleasedCutoff, String error) {
+        Query query = Query.query(Criteria.where("processingStatus").in(IN_FLIGHT_STATUSES).orOperator(
+                Criteria.where("leaseUntil").lt(now),
+                Criteria.where("leaseUntil").exists(false).and("uploadDate").lt(unleasedCutoff)));
+        Update update = new Update()
+                .set("processingStatus", ProcessingStatus.FAILED)
+                .set("aiAnalysisStatus", AiAnalysisStatus.FAILED)
+                .set("currentStep", "Failed")
+                .set("processingError", error)
+                .set("processingCompletedAt", now)
+                .unset("leaseUntil");
+        return mongoTemplate.updateMulti(query, update, StudyMaterial.class).getModifiedCount();
+    }
+}
@@ -4,9 +4,16 @@ import com.izabi.data.model.StudyQuestion;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface StudyQuestionRepository extends MongoRepository<StudyQuestion, String> {
+public interface StudyQuestionRepository extends MongoRepository<StudyQuestion, String>, StudyQuestionRepositoryCustom {
     List<StudyQuestion> findByStudyMaterialId(String id);
+
+    List<StudyQuestion> findByStudyMaterialIdIn(Collection<String> ids);
+
+    List<StudyQuestion> findByUserIdAndFileId(String userId, String fileId);
+
+    long deleteByUserIdAndFileId(String userId, String fileId);
 }
@@ -0,0 +1,14 @@
+package com.izabi.data.repository;
+
+import com.izabi.data.model.StudyQuestion;
+
+import java.util.List;
+
+public interface StudyQuestionRepositoryCustom {
+
+    /**
+     * Inserts all questions in one unordered bulk write. Ids must already be set,
+     * because bulk inserts do not write generated ids back to the entities.
+     */
+    void insertAllUnordered(List<StudyQuestion> questions);
+}
@@ -0,0 +1,29 @@
+package com.izabi.data.repository;
+
+import com.izabi.data.model.StudyQuestion;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.List;
+
+/**
+ * Unordered bulk insert for generated questions. {@code saveAll} sends one write
+ * per entity, while this sends a single batch that the server may apply in any
+ * order.
+ */
+@RequiredArgsConstructor
+public class StudyQuestionRepositoryCustomImpl implements StudyQuestionRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void insertAllUnordered(List<StudyQuestion> questions) {
+        if (questions.isEmpty()) {
+            return;
+        }
+        mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, StudyQuestion.class)
+                .insert(questions)
+                .execute();
+    }
+}
@@ -0,0 +1,23 @@
+package com.izabi.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GeneratedContentResponse {
+    private AnalyzedContentResponse analysis;
+    private SummarizedContentResponse summary;
+    private List<StudyQuestionResponse> questions;
+    private List<String> failedSteps;
+
+    public boolean isPartial() {
+        return failedSteps != null && !failedSteps.isEmpty();
+    }
+}
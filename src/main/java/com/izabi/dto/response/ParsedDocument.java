@@ -0,0 +1,35 @@
+package com.izabi.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Result of parsing an upload exactly once. Carries everything the study-material
+ * pipeline needs so downstream services never have to reopen the original file.
+ * <p>
+ * For PDFs {@code segments} holds one entry per page and {@code text} is the pages
+ * joined with {@link #PAGE_BREAK}. For other formats the segments are the natural
+ * units of the format (paragraphs, sheets, blocks of lines). {@code truncated} is
+ * set when extraction stopped at the per-request text budget.
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class ParsedDocument {
+
+    public static final String PAGE_BREAK = "\f";
+
+    private String fileName;
+    private String fileExtension;
+    private long fileSize;
+    private String text;
+    private int numberOfPages;
+    private List<String> segments;
+    private boolean truncated;
+    private String message;
+}
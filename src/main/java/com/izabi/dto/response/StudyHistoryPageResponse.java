@@ -0,0 +1,18 @@
+package com.izabi.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/** One page of study history. {@code nextCursor} is null on the last page. */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StudyHistoryPageResponse {
+    private List<StudyMaterialResponse> materials;
+    private String nextCursor;
+}
@@ -0,0 +1,11 @@
+package com.izabi.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class OtpAttemptsExceededException extends RuntimeException {
+    public OtpAttemptsExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,9 @@
+package com.izabi.exception;
+
+import org.springframework.web.client.ResourceAccessException;
+
+public class OutboundCallRejectedException extends ResourceAccessException {
+    public OutboundCallRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.izabi.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ProcessingQueueFullException extends RuntimeException {
+    public ProcessingQueueFullException(String message) {
+        super(message);
+    }
+}
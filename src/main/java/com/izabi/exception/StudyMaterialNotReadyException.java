@@ -0,0 +1,11 @@
+package com.izabi.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class StudyMaterialNotReadyException extends RuntimeException {
+    public StudyMaterialNotReadyException(String message) {
+        super(message);
+    }
+}
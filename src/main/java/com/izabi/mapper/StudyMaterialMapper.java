@@ -1,11 +1,16 @@
 package com.izabi.mapper;
 
+import com.izabi.data.enums.AiAnalysisStatus;
+import com.izabi.data.enums.Difficulty;
+import com.izabi.data.enums.ProcessingStatus;
+import com.izabi.data.enums.QuestionType;
 import com.izabi.data.model.StudyMaterial;
 import com.izabi.data.model.StudyQuestion;
 import com.izabi.dto.response.*;
-import org.springframework.web.multipart.MultipartFile;
+import org.bson.types.ObjectId;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 public class StudyMaterialMapper {
@@ -21,6 +26,14 @@ public class StudyMaterialMapper {
         response.setMessage(message);
         return response;
     }
+    public static ParsedDocument mapToParsedDocument(String text, int numberOfPages, List<String> segments, String message){
+        ParsedDocument document = new ParsedDocument();
+        document.setText(text);
+        document.setNumberOfPages(numberOfPages);
+        document.setSegments(segments);
+        document.setMessage(message);
+        return document;
+    }
     public static PageCountResponse mapToPageCountResponse(int numberOfPages, String message){
         PageCountResponse response = new PageCountResponse();
         response.setNumberOfPages(numberOfPages);
@@ -61,22 +74,120 @@ public class StudyMaterialMapper {
 
 
     public static StudyMaterial mapToStudyMaterial(
-            MultipartFile file,
-            FileExtensionResponse fileExt,
-            PageCountResponse pageCount,
-            ReadDocumentResponse extracted,
+            ParsedDocument document,
             SummarizedContentResponse summaryResponse,
             AnalyzedContentResponse analysisResponse
             ){
         StudyMaterial studyMaterial = new StudyMaterial();
-        studyMaterial.setFileName(file.getOriginalFilename());
-        studyMaterial.setFileExtension(fileExt.getFileExtension());
-        studyMaterial.setNumberOfPages(pageCount.getNumberOfPages());
-        studyMaterial.setExtractedText(extracted.getText());
+        studyMaterial.setFileName(document.getFileName());
+        studyMaterial.setFileExtension(document.getFileExtension());
+        studyMaterial.setFileSize((int) document.getFileSize());
+        studyMaterial.setNumberOfPages(document.getNumberOfPages());
         studyMaterial.setSummary(summaryResponse.getSummary());
-        studyMaterial.setKeyPoints(List.of(analysisResponse.getAnalyzed()));
+        studyMaterial.setKeyPoints(mapToKeyPoints(analysisResponse));
+        studyMaterial.setActive(true);
+        studyMaterial.setUploadDate(LocalDateTime.now());
+        studyMaterial.setCreatedAt(LocalDateTime.now());
+        studyMaterial.setProcessingStatus(ProcessingStatus.COMPLETED);
+        studyMaterial.setAiAnalysisStatus(AiAnalysisStatus.COMPLETED);
+        studyMaterial.setProgressPercentage(100);
+        return studyMaterial;
+    }
+
+    public static List<String> mapToKeyPoints(AnalyzedContentResponse analysisResponse) {
+        return analysisResponse != null && analysisResponse.getAnalyzed() != null
+                ? List.of(analysisResponse.getAnalyzed())
+                : List.of();
+    }
+
+    /** Ids are assigned here so the questions can be bulk inserted and returned without a read back. */
+    public static List<StudyQuestion> mapToStudyQuestions(List<StudyQuestionResponse> generatedQuestions,
+                                                          String studyMaterialId,
+                                                          String userId,
+                                                          String fileId) {
+        List<StudyQuestion> questionList = new ArrayList<>();
+        for (StudyQuestionResponse q : generatedQuestions) {
+            StudyQuestion entity = new StudyQuestion();
+            entity.setId(new ObjectId().toHexString());
+            entity.setStudyMaterialId(studyMaterialId);
+            entity.setUserId(userId);
+            entity.setFileId(fileId);
+            entity.setQuestion(q.getQuestion());
+            entity.setOptions(q.getOptions());
+            entity.setCorrectAnswer(q.getAnswer());
+            entity.setExplanation(q.getExplanation());
+            entity.setTopic(q.getTopic());
+            entity.setDifficulty(q.getDifficulty() != null ? q.getDifficulty() : Difficulty.BEGINNER);
+            entity.setQuestionType(q.getQuestionType() != null ? q.getQuestionType() : QuestionType.MULTIPLE_CHOICE);
+            entity.setActive(true);
+            entity.setCreatedAt(LocalDateTime.now());
+            questionList.add(entity);
+        }
+        return questionList;
+    }
+
+    public static List<StudyQuestionResponse> mapToStudyQuestionResponses(List<StudyQuestion> questions) {
+        return questions.stream()
+                .map(q -> StudyQuestionResponse.builder()
+                        .id(q.getId())
+                        .question(q.getQuestion())
+                        .questionType(q.getQuestionType())
+                        .options(q.getOptions())
+                        .answer(q.getCorrectAnswer())
+                        .explanation(q.getExplanation())
+                        .topic(q.getTopic())
+                        .difficulty(q.getDifficulty())
+                        .createdAt(q.getCreatedAt())
+                        .build())
+                .toList();
+    }
+
+    public static List<QuestionResponse> mapToQuestionResponses(List<StudyQuestion> questions) {
+        return questions.stream()
+                .map(q -> new QuestionResponse(
+                        q.getId(),
+                        q.getQuestion(),
+                        q.getOptions(),
+                        q.getCorrectAnswer()
+                ))
+                .toList();
+    }
+
+    public static StudyMaterial mapToPendingStudyMaterial(String fileName, String fileExtension, long fileSize, String userId) {
+        StudyMaterial studyMaterial = new StudyMaterial();
+        studyMaterial.setFileName(fileName);
+        studyMaterial.setOriginalFileName(fileName);
+        studyMaterial.setFileExtension(fileExtension);
+        studyMaterial.setFileSize((int) fileSize);
+        studyMaterial.setUserId(userId);
+        studyMaterial.setProcessingStatus(ProcessingStatus.PENDING);
+        studyMaterial.setAiAnalysisStatus(AiAnalysisStatus.PENDING);
+        studyMaterial.setProgressPercentage(0);
+        studyMaterial.setCurrentStep("Waiting for a free worker");
         studyMaterial.setActive(true);
         studyMaterial.setUploadDate(LocalDateTime.now());
+        studyMaterial.setCreatedAt(LocalDateTime.now());
         return studyMaterial;
     }
+
+    public static DocumentUploadResponse mapToDocumentUploadResponse(StudyMaterial studyMaterial, String message) {
+        DocumentUploadResponse response = new DocumentUploadResponse();
+        response.setId(studyMaterial.getId());
+        response.setFileName(studyMaterial.getFileName());
+        response.setProcessingStatus(studyMaterial.getProcessingStatus().name());
+        response.setMessage(message);
+        response.setUploadDate(studyMaterial.getUploadDate());
+        return response;
+    }
+
+    public static ProcessingStatusResponse mapToProcessingStatusResponse(StudyMaterial studyMaterial, String estimatedTimeRemaining) {
+        ProcessingStatusResponse response = new ProcessingStatusResponse();
+        response.setPdfId(studyMaterial.getId());
+        response.setProcessingStatus(studyMaterial.getProcessingStatus() != null ? studyMaterial.getProcessingStatus().name() : null);
+        response.setAiAnalysisStatus(studyMaterial.getAiAnalysisStatus() != null ? studyMaterial.getAiAnalysisStatus().name() : null);
+        response.setProgressPercentage(studyMaterial.getProgressPercentage());
+        response.setCurrentStep(studyMaterial.getCurrentStep());
+        response.setEstimatedTimeRemaining(estimatedTimeRemaining);
+        return response;
+    }
 }
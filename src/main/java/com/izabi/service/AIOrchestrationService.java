@@ -0,0 +1,8 @@
+package com.izabi.service;
+
+import com.izabi.dto.response.GeneratedContentResponse;
+import com.izabi.dto.response.ParsedDocument;
+
+public interface AIOrchestrationService {
+    GeneratedContentResponse generateStudyContent(ParsedDocument document, int numberOfQuestions);
+}
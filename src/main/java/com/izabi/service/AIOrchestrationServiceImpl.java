@@ -0,0 +1,137 @@
+package com.izabi.service;
+
+import com.izabi.dto.response.AnalyzedContentResponse;
+import com.izabi.dto.response.GeneratedContentResponse;
+import com.izabi.dto.response.ParsedDocument;
+import com.izabi.dto.response.StudyQuestionResponse;
+import com.izabi.dto.response.SummarizedContentResponse;
+import com.izabi.exception.AIAnalysisException;
+import com.izabi.mapper.StudyMaterialMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * Runs the analyze, summarize and question-generation calls for one document
+ * concurrently, each on its own virtual thread, so the request costs roughly the
+ * slowest call instead of the sum of all three.
+ * <p>
+ * All three calls share one deadline and never outlive this method: once it
+ * returns or throws, anything still running is cancelled. The questions are
+ * required. If that call fails, the other two are cancelled and the failure is
+ * rethrown. Analysis and summary are optional. If either fails or misses the
+ * deadline, a placeholder is used and the step is listed in
+ * {@link GeneratedContentResponse#getFailedSteps()}, so good questions are kept.
+ * A quota error cancels everything, because the other calls would hit the same
+ * limit.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class AIOrchestrationServiceImpl implements AIOrchestrationService {
+
+    static final String ANALYSIS_STEP = "analysis";
+    static final String SUMMARY_STEP = "summary";
+    static final String QUESTIONS_STEP = "questions";
+
+    private final AIService aiService;
+    private final QuestionGenerationService questionGenerationService;
+
+    @Value("${app.ai.orchestration.deadline-seconds:120}")
+    private long deadlineSeconds;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public GeneratedContentResponse generateStudyContent(ParsedDocument document, int numberOfQuestions) {
+        String text = document.getText();
+        long deadline = System.nanoTime() + Duration.ofSeconds(deadlineSeconds).toNanos();
+
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        CompletionService<Object> completion = new ExecutorCompletionService<>(executor);
+        Map<Future<Object>, String> steps = new HashMap<>();
+        Map<String, Object> results = new HashMap<>();
+        List<String> failedSteps = new ArrayList<>();
+        try {
+            steps.put(completion.submit(() -> aiService.analyzeContent(text)), ANALYSIS_STEP);
+            steps.put(completion.submit(() -> aiService.summarizeContent(text)), SUMMARY_STEP);
+            steps.put(completion.submit(() -> questionGenerationService
+                    .generateQuestions(document, numberOfQuestions)), QUESTIONS_STEP);
+
+            while (results.size() + failedSteps.size() < steps.size()) {
+                Future<Object> done = completion.poll(remaining(deadline), TimeUnit.NANOSECONDS);
+                if (done == null) {
+                    break;
+                }
+                String step = steps.get(done);
+                try {
+                    results.put(step, done.get());
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (QUESTIONS_STEP.equals(step) || isQuotaFailure(cause)) {
+                        log.error("AI {} step failed, cancelling remaining AI calls: {}", step, cause.getMessage());
+                        throw asAnalysisException(step, cause);
+                    }
+                    log.warn("AI {} step failed, continuing without it: {}", step, cause.getMessage());
+                    failedSteps.add(step);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AIAnalysisException("Study material generation was interrupted", e);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if (!results.containsKey(QUESTIONS_STEP)) {
+            throw new AIAnalysisException("Question generation did not finish within " + deadlineSeconds + " seconds");
+        }
+        for (String step : List.of(ANALYSIS_STEP, SUMMARY_STEP)) {
+            if (!results.containsKey(step) && !failedSteps.contains(step)) {
+                log.warn("AI {} step missed the {}s deadline, continuing without it", step, deadlineSeconds);
+                failedSteps.add(step);
+            }
+        }
+
+        AnalyzedContentResponse analysis = (AnalyzedContentResponse) results.get(ANALYSIS_STEP);
+        SummarizedContentResponse summary = (SummarizedContentResponse) results.get(SUMMARY_STEP);
+        if (analysis == null) {
+            analysis = StudyMaterialMapper.mapToAnalyzedContentResponse(null, "Analysis unavailable");
+        }
+        if (summary == null) {
+            summary = StudyMaterialMapper.mapToSummarizedContentResponse(
+                    "A summary is not available for this material yet.", "Summary unavailable");
+        }
+
+        return GeneratedContentResponse.builder()
+                .analysis(analysis)
+                .summary(summary)
+                .questions((List<StudyQuestionResponse>) results.get(QUESTIONS_STEP))
+                .failedSteps(failedSteps)
+                .build();
+    }
+
+    private static long remaining(long deadline) {
+        return Math.max(0, deadline - System.nanoTime());
+    }
+
+    private static boolean isQuotaFailure(Throwable cause) {
+        return cause instanceof AIAnalysisException
+                && cause.getMessage() != null
+                && cause.getMessage().contains("quota");
+    }
+
+    private static AIAnalysisException asAnalysisException(String step, Throwable cause) {
+        if (cause instanceof AIAnalysisException analysisException) {
+            return analysisException;
+        }
+        return new AIAnalysisException("AI " + step + " step failed: " + cause.getMessage(), cause);
+    }
+}
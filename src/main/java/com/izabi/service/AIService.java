@@ -1,14 +1,20 @@
 package com.izabi.service;
 
 import com.izabi.dto.response.*;
-import org.springframework.retry.annotation.Backoff;
-import org.springframework.retry.annotation.Retryable;
+
+import java.util.function.Consumer;
 
 public interface AIService {
     AnalyzedContentResponse analyzeContent(String text);
 
     SummarizedContentResponse summarizeContent(String text);
 
-    @Retryable(retryFor = {Exception.class}, maxAttemptsExpression = "3", backoff = @Backoff(delay = 1000, multiplier = 2))
+    /**
+     * Summarizes the text like {@link #summarizeContent(String)}, but passes each piece
+     * of the summary to {@code onPartial} as soon as Gemini produces it. Returns the
+     * complete summary once the stream ends.
+     */
+    SummarizedContentResponse streamSummary(String text, Consumer<String> onPartial);
+
     String generateQuestions(String text, int numberOfQuestions);
 }
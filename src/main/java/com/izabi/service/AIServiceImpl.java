@@ -6,24 +6,50 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.izabi.dto.response.AnalyzedContentResponse;
 import com.izabi.dto.response.SummarizedContentResponse;
 import com.izabi.exception.AIAnalysisException;
+import com.izabi.exception.OutboundCallRejectedException;
 import com.izabi.mapper.StudyMaterialMapper;
-import lombok.RequiredArgsConstructor;
+import com.izabi.util.BoundedTtlCache;
+import com.izabi.util.CircuitBreaker;
+import com.izabi.util.ContentDigest;
+import com.izabi.util.RetryBudget;
+import com.izabi.util.TextChunker;
+import com.izabi.util.TokenEstimator;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
-import org.springframework.retry.annotation.Backoff;
-import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.SocketTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 @Service
 @Slf4j
-@RequiredArgsConstructor
 public class AIServiceImpl implements AIService {
 
+    static final String FALLBACK_SUMMARY = "Unable to generate AI summary at this time. The content appears to contain educational material that requires manual review.";
+    static final String FALLBACK_PARSED_SUMMARY = "Unable to generate a detailed summary at this time. The content contains educational material that may require manual review.";
+
+    private static final int MAX_REDUCE_ROUNDS = 3;
+    private static final int MIN_NOTE_WORDS = 60;
+
     private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
@@ -42,8 +68,61 @@ public class AIServiceImpl implements AIService {
     @Value("${gemini.model:gemini-1.5-flash}")
     private String geminiModel;
 
+    @Value("${app.ai.chunking.enabled:true}")
+    private boolean chunkingEnabled;
+
+    @Value("${app.ai.chunking.chunk-tokens:2000}")
+    private int chunkTokens;
+
+    @Value("${app.ai.chunking.overlap-tokens:150}")
+    private int overlapTokens;
+
+    @Value("${app.ai.chunking.max-chunks:48}")
+    private int maxChunks;
+
+    @Value("${app.ai.retry.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${app.ai.retry.base-delay-ms:500}")
+    private long retryBaseDelayMs;
+
+    @Value("${app.ai.retry.max-delay-ms:8000}")
+    private long retryMaxDelayMs;
+
+    @Value("${app.ai.retry.time-budget-ms:20000}")
+    private long retryTimeBudgetMs;
+
+    private final Semaphore chunkPermits;
+    private final MeterRegistry meterRegistry;
+    private final CircuitBreaker circuitBreaker;
+    private final RetryBudget retryBudget;
+
+    private final BoundedTtlCache<String, CompletableFuture<String>> condensedNotes =
+            new BoundedTtlCache<>(32, Duration.ofMinutes(10));
+
+    public AIServiceImpl(@Qualifier("geminiRestTemplate") RestTemplate restTemplate,
+                         MeterRegistry meterRegistry,
+                         @Value("${app.ai.chunking.max-concurrency:8}") int maxChunkConcurrency,
+                         @Value("${app.ai.retry.budget-ratio:0.2}") double retryBudgetRatio,
+                         @Value("${app.ai.circuit.window-size:20}") int circuitWindowSize,
+                         @Value("${app.ai.circuit.minimum-calls:10}") int circuitMinimumCalls,
+                         @Value("${app.ai.circuit.failure-rate-threshold:0.5}") double circuitFailureRate,
+                         @Value("${app.ai.circuit.open-seconds:30}") long circuitOpenSeconds,
+                         @Value("${app.ai.circuit.half-open-probes:3}") int circuitHalfOpenProbes) {
+        this.restTemplate = restTemplate;
+        this.meterRegistry = meterRegistry;
+        this.chunkPermits = new Semaphore(maxChunkConcurrency);
+        this.retryBudget = new RetryBudget(retryBudgetRatio, 10);
+        this.circuitBreaker = new CircuitBreaker(circuitWindowSize, circuitMinimumCalls, circuitFailureRate,
+                Duration.ofSeconds(circuitOpenSeconds), circuitHalfOpenProbes, Clock.systemUTC(), this::onCircuitTransition);
+        Gauge.builder("ai.gemini.circuit.state", circuitBreaker, breaker -> breaker.getState().ordinal())
+                .description("Gemini circuit breaker state: 0 closed, 1 open, 2 half-open")
+                .register(meterRegistry);
+        Gauge.builder("ai.gemini.retry.budget", retryBudget, RetryBudget::available)
+                .register(meterRegistry);
+    }
+
     @Override
-    @Retryable(retryFor = {Exception.class}, maxAttemptsExpression = "3", backoff = @Backoff(delay = 1000, multiplier = 2))
     public AnalyzedContentResponse analyzeContent(String text) {
         try {
             log.info("Starting Gemini AI analysis for content (length: {} chars)", text.length());
@@ -71,7 +150,6 @@ public class AIServiceImpl implements AIService {
     }
 
     @Override
-    @Retryable(retryFor = {Exception.class},maxAttemptsExpression = "3", backoff = @Backoff(delay = 1000, multiplier = 2))
     public SummarizedContentResponse summarizeContent(String text) {
         try {
             log.info("Starting Gemini AI summarization (length: {} chars)", text.length());
@@ -95,15 +173,55 @@ public class AIServiceImpl implements AIService {
 
             if (enableFallbacks) {
                 log.warn("Using fallback summary due to error: {}", e.getMessage());
-                String fallbackSummary = "Unable to generate AI summary at this time. The content appears to contain educational material that requires manual review.";
-                return StudyMaterialMapper.mapToSummarizedContentResponse(fallbackSummary, "Fallback summary generated");
+                return StudyMaterialMapper.mapToSummarizedContentResponse(FALLBACK_SUMMARY, "Fallback summary generated");
             }
 
             throw new AIAnalysisException("Failed to summarize content: " + e.getMessage(), e);
         }
     }
 
-    @Retryable(retryFor = {Exception.class}, maxAttemptsExpression = "3", backoff = @Backoff(delay = 1000, multiplier = 2))
+    @Override
+    public SummarizedContentResponse streamSummary(String text, Consumer<String> onPartial) {
+        StringBuilder summary = new StringBuilder();
+        try {
+            log.info("Starting streaming Gemini AI summarization (length: {} chars)", text.length());
+
+            if (text.trim().isEmpty()) {
+                throw new AIAnalysisException("Content cannot be empty");
+            }
+
+            String prompt = createStreamingSummaryPrompt(text);
+            // Once text has reached the client a retry would repeat it, so only retry before the first chunk.
+            callWithResilience(() -> {
+                streamGeminiRequest(prompt, chunk -> {
+                    summary.append(chunk);
+                    onPartial.accept(chunk);
+                });
+                return null;
+            }, summary::isEmpty);
+
+            if (summary.toString().isBlank()) {
+                throw new AIAnalysisException("No summary found in streamed response");
+            }
+            log.info("Streaming Gemini AI summarization completed successfully");
+            return StudyMaterialMapper.mapToSummarizedContentResponse(summary.toString().trim(), "Summary Completed");
+        } catch (Exception e) {
+            log.error("Streaming Gemini AI summarization failed: {}", e.getMessage());
+
+            if (isQuotaError(e)) {
+                throw new AIAnalysisException("Gemini AI service quota exceeded. Please check your Google Cloud billing and try again later.", e);
+            }
+
+            if (enableFallbacks && summary.isEmpty() && !(e instanceof UncheckedIOException)) {
+                log.warn("Using fallback summary due to error: {}", e.getMessage());
+                onPartial.accept(FALLBACK_SUMMARY);
+                return StudyMaterialMapper.mapToSummarizedContentResponse(FALLBACK_SUMMARY, "Fallback summary generated");
+            }
+
+            throw new AIAnalysisException("Failed to stream summary: " + e.getMessage(), e);
+        }
+    }
+
     @Override
     public String generateQuestions(String text, int numberOfQuestions) {
         try {
@@ -136,7 +254,7 @@ public class AIServiceImpl implements AIService {
     }
 
     private String createEnhancedQuestionGenerationPrompt(String text, int numberOfQuestions) {
-        String contentToUse = truncateContent(text);
+        String contentToUse = prepareContent(text);
 
         return "You are an expert educator. Generate " + numberOfQuestions + " study questions based on the following educational content.\n"
                 + "Create a mix of MULTIPLE_CHOICE and THEORY questions that test understanding of key concepts.\n\n"
@@ -174,7 +292,106 @@ public class AIServiceImpl implements AIService {
 
 
 
+    /**
+     * Calls Gemini through the circuit breaker, retrying only failures that can
+     * succeed on a second try: 429, 5xx and timeouts. Retries use full-jitter
+     * exponential backoff and honour {@code Retry-After}. They stop at the attempt
+     * limit, at the per-call time budget or when the shared retry budget is spent.
+     * An open circuit fails immediately, so callers fall back at once instead of
+     * waiting on an upstream that is down.
+     */
     private String callGeminiAPI(String prompt) {
+        return callWithResilience(() -> sendGeminiRequest(prompt), () -> true);
+    }
+
+    private <T> T callWithResilience(Supplier<T> request, BooleanSupplier retryAllowed) {
+        long budgetEndsAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(retryTimeBudgetMs);
+        retryBudget.recordAttempt();
+        for (int attempt = 1; ; attempt++) {
+            if (!circuitBreaker.tryAcquire()) {
+                meterRegistry.counter("ai.gemini.calls", "outcome", "short_circuited").increment();
+                throw new AIAnalysisException("Gemini is temporarily unavailable (circuit open)");
+            }
+            try {
+                T result = request.get();
+                circuitBreaker.onSuccess();
+                meterRegistry.counter("ai.gemini.calls", "outcome", "success").increment();
+                return result;
+            } catch (RuntimeException e) {
+                String reason = retryableReason(e);
+                if (reason == null) {
+                    // The request itself was rejected; that says nothing about Gemini's health.
+                    circuitBreaker.releasePermission();
+                    meterRegistry.counter("ai.gemini.calls", "outcome", "rejected").increment();
+                    throw e;
+                }
+                circuitBreaker.onFailure();
+                meterRegistry.counter("ai.gemini.calls", "outcome", reason).increment();
+
+                long delayMs = backoffDelay(attempt, e);
+                if (attempt >= maxAttempts
+                        || !retryAllowed.getAsBoolean()
+                        || System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMs) > budgetEndsAt
+                        || !retryBudget.tryWithdraw()) {
+                    throw e;
+                }
+                log.warn("Gemini call failed ({}), retry {} of {} in {} ms", reason, attempt, maxAttempts - 1, delayMs);
+                meterRegistry.counter("ai.gemini.retries", "reason", reason).increment();
+                sleep(delayMs);
+            }
+        }
+    }
+
+    /** Returns a metric-friendly reason when the failure is worth retrying, or null when it is not. */
+    private static String retryableReason(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof OutboundCallRejectedException) {
+                return null;
+            }
+            if (cause instanceof HttpStatusCodeException statusException) {
+                HttpStatusCode status = statusException.getStatusCode();
+                if (status.value() == HttpStatus.TOO_MANY_REQUESTS.value()) {
+                    return "rate_limited";
+                }
+                return status.is5xxServerError() ? "server_error" : null;
+            }
+            if (cause instanceof ResourceAccessException || cause instanceof HttpTimeoutException
+                    || cause instanceof SocketTimeoutException) {
+                return "timeout";
+            }
+        }
+        return null;
+    }
+
+    private long backoffDelay(int attempt, RuntimeException failure) {
+        long ceiling = Math.min(retryMaxDelayMs, retryBaseDelayMs << Math.min(attempt - 1, 20));
+        long delay = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof HttpStatusCodeException statusException && statusException.getResponseHeaders() != null) {
+                String retryAfter = statusException.getResponseHeaders().getFirst(HttpHeaders.RETRY_AFTER);
+                if (retryAfter != null && retryAfter.chars().allMatch(Character::isDigit)) {
+                    delay = Math.max(delay, TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter)));
+                }
+            }
+        }
+        return delay;
+    }
+
+    private static void sleep(long delayMs) {
+        try {
+            Thread.sleep(delayMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AIAnalysisException("Interrupted while waiting to retry the Gemini call", e);
+        }
+    }
+
+    private void onCircuitTransition(CircuitBreaker.State from, CircuitBreaker.State to) {
+        log.warn("Gemini circuit breaker moved from {} to {}", from, to);
+        meterRegistry.counter("ai.gemini.circuit.transitions", "from", from.name(), "to", to.name()).increment();
+    }
+
+    private String sendGeminiRequest(String prompt) {
         String url = String.format("%s/models/%s:generateContent?key=%s",
                 geminiBaseUrl, geminiModel, geminiApiKey);
 
@@ -210,6 +427,61 @@ public class AIServiceImpl implements AIService {
         }
     }
 
+    /**
+     * Calls {@code streamGenerateContent} with {@code alt=sse} and hands each text part
+     * to {@code onText} as its event arrives. The response is read line by line, so
+     * only the current event is ever held in memory.
+     */
+    private void streamGeminiRequest(String prompt, Consumer<String> onText) {
+        String url = String.format("%s/models/%s:streamGenerateContent?alt=sse&key=%s",
+                geminiBaseUrl, geminiModel, geminiApiKey);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setAccept(List.of(MediaType.TEXT_EVENT_STREAM));
+
+        HttpEntity<Map<String, Object>> entity = getMapHttpEntity(prompt, headers);
+
+        log.debug("Streaming from Gemini API with prompt length: {}", prompt.length());
+        restTemplate.execute(url, HttpMethod.POST, restTemplate.httpEntityCallback(entity), response -> {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(response.getBody(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.startsWith("data:")) {
+                        String chunk = extractGeminiStreamChunk(line.substring(5).trim());
+                        if (!chunk.isEmpty()) {
+                            onText.accept(chunk);
+                        }
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    private String extractGeminiStreamChunk(String event) {
+        try {
+            JsonNode eventNode = objectMapper.readTree(event);
+            if (eventNode.has("error")) {
+                JsonNode error = eventNode.get("error");
+                throw new RuntimeException("Gemini API error (" + error.path("code").asText() + "): " + error.path("message").asText());
+            }
+
+            JsonNode candidate = eventNode.path("candidates").path(0);
+            if ("SAFETY".equals(candidate.path("finishReason").asText())) {
+                throw new RuntimeException("Content was blocked by Gemini safety filters");
+            }
+
+            StringBuilder text = new StringBuilder();
+            for (JsonNode part : candidate.path("content").path("parts")) {
+                text.append(part.path("text").asText());
+            }
+            return text.toString();
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to parse Gemini stream event", e);
+        }
+    }
+
     private static HttpEntity<Map<String, Object>> getMapHttpEntity(String prompt, HttpHeaders headers) {
         Map<String, Object> requestBody = Map.of(
                 "contents", List.of(
@@ -300,8 +572,118 @@ public class AIServiceImpl implements AIService {
         return text.substring(0, maxContentLength) + "...";
     }
 
+    /**
+     * Returns the text to put in a prompt. Text within the chunk budget is used as is.
+     * Longer text is condensed with a map-reduce pass, so the prompt covers the whole
+     * document instead of only its first pages. The condensed notes are shared by
+     * concurrent and recent calls for the same text, so analysis, summary and
+     * question generation for one upload pay for a single pass.
+     */
+    private String prepareContent(String text) {
+        if (!chunkingEnabled) {
+            return truncateContent(text);
+        }
+        if (TokenEstimator.estimateTokens(text) <= chunkTokens) {
+            return text;
+        }
+
+        String key = ContentDigest.sha256Hex(text);
+        CompletableFuture<String> created = new CompletableFuture<>();
+        CompletableFuture<String> notes = condensedNotes.computeIfAbsent(key, k -> created);
+        if (notes == created) {
+            try {
+                created.complete(condense(text));
+            } catch (RuntimeException e) {
+                condensedNotes.remove(key);
+                created.completeExceptionally(e);
+            }
+        }
+        try {
+            return notes.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private String condense(String text) {
+        String notes = text;
+        for (int round = 1; TokenEstimator.estimateTokens(notes) > chunkTokens; round++) {
+            if (round > MAX_REDUCE_ROUNDS) {
+                log.warn("Condensed notes still exceed {} tokens after {} rounds, truncating", chunkTokens, MAX_REDUCE_ROUNDS);
+                return notes.substring(0, TokenEstimator.charsForTokens(chunkTokens));
+            }
+            int chunkSize = Math.max(chunkTokens, TokenEstimator.estimateTokens(notes) / maxChunks + overlapTokens + 1);
+            List<String> chunks = TextChunker.chunk(notes, chunkSize, overlapTokens);
+            int wordsPerChunk = Math.max(MIN_NOTE_WORDS, chunkTokens * 3 / 4 / chunks.size());
+            log.info("Condensing {} chars in {} chunks (round {}, {} words per chunk)",
+                    notes.length(), chunks.size(), round, wordsPerChunk);
+            notes = String.join("\n\n", summarizeChunks(chunks, wordsPerChunk));
+        }
+        return notes;
+    }
+
+    private List<String> summarizeChunks(List<String> chunks, int wordsPerChunk) {
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            List<Future<String>> futures = new ArrayList<>(chunks.size());
+            for (int i = 0; i < chunks.size(); i++) {
+                String chunk = chunks.get(i);
+                int part = i + 1;
+                futures.add(executor.submit(() -> summarizeChunk(chunk, part, chunks.size(), wordsPerChunk)));
+            }
+            List<String> notes = new ArrayList<>(chunks.size());
+            for (Future<String> future : futures) {
+                notes.add(future.get());
+            }
+            return notes;
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause
+                    ? cause
+                    : new AIAnalysisException("Failed to condense content: " + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AIAnalysisException("Condensing content was interrupted", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private String summarizeChunk(String chunk, int part, int totalParts, int maxWords) throws InterruptedException {
+        chunkPermits.acquire();
+        try {
+            return callGeminiAPI(createChunkNotesPrompt(chunk, part, totalParts, maxWords));
+        } finally {
+            chunkPermits.release();
+        }
+    }
+
+    private String createChunkNotesPrompt(String chunk, int part, int totalParts, int maxWords) {
+        return String.format("""
+            You are condensing part %d of %d of a longer educational document so it can be studied as a whole later.
+            Write dense study notes for this part in at most %d words.
+            Keep definitions, key facts, formulas, names, dates and examples. Leave out filler and repetition.
+            Return plain text only, no JSON and no markdown headings.
+
+            Part %d of %d:
+            %s
+            """, part, totalParts, maxWords, part, totalParts, chunk);
+    }
+
+    private String createStreamingSummaryPrompt(String text) {
+        String contentToSummarize = prepareContent(text);
+        return String.format("""
+            You are an expert educational content summarizer. Summarize the following educational content in 3–5 concise sentences.
+            Focus on the main concepts, key learning objectives, and important details.
+
+            IMPORTANT: Return ONLY the summary as plain text (no JSON, no markdown formatting, no preamble).
+
+            Content to summarize:
+            %s
+            """, contentToSummarize);
+    }
+
     private String createSummaryPrompt(String text) {
-        String contentToSummarize = truncateContent(text);
+        String contentToSummarize = prepareContent(text);
         return String.format("""
             You are an expert educational content summarizer. Summarize the following educational content in 3–5 concise sentences.
             Focus on the main concepts, key learning objectives, and important details.
@@ -319,7 +701,7 @@ public class AIServiceImpl implements AIService {
 
 
     private String createAnalysisPrompt(String text) {
-        String contentToAnalyze = truncateContent(text);
+        String contentToAnalyze = prepareContent(text);
         return String.format("""
         You are an expert educational content analyst. Analyze this educational content thoroughly.
         Identify the main subject, difficulty level, key concepts, and important terms.
@@ -400,7 +782,7 @@ public class AIServiceImpl implements AIService {
         } catch (Exception e) {
             log.warn("Failed to parse AI summary response: {}", e.getMessage());
             if (enableFallbacks) {
-                return "Unable to generate a detailed summary at this time. The content contains educational material that may require manual review.";
+                return FALLBACK_PARSED_SUMMARY;
             }
             throw new AIAnalysisException("Failed to parse summary response", e);
         }
@@ -579,6 +961,23 @@ public class AIServiceImpl implements AIService {
             throw new RuntimeException("Failed to create enhanced fallback questions", e);
         }
     }
+    /**
+     * Tells whether a result produced by this service is one of the canned fallbacks
+     * rather than real model output, so callers can avoid caching or persisting it.
+     */
+    boolean isFallbackContent(String content) {
+        if (content == null || FALLBACK_SUMMARY.equals(content) || FALLBACK_PARSED_SUMMARY.equals(content)) {
+            return true;
+        }
+        try {
+            JsonNode node = objectMapper.readTree(content);
+            return node.equals(objectMapper.valueToTree(createFallbackAnalysis()))
+                    || node.equals(objectMapper.readTree(createEnhancedFallbackQuestions()));
+        } catch (JsonProcessingException e) {
+            return false;
+        }
+    }
+
     private boolean isQuotaError(Exception e) {
         String message = e.getMessage();
         return message != null && (
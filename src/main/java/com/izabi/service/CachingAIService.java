@@ -0,0 +1,222 @@
+package com.izabi.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.izabi.dto.response.AnalyzedContentResponse;
+import com.izabi.dto.response.SummarizedContentResponse;
+import com.izabi.util.BoundedTtlCache;
+import com.izabi.util.ContentDigest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed cache in front of {@link AIServiceImpl}. Results are keyed by a
+ * SHA-256 of the normalized text together with the operation, prompt version and
+ * Gemini model, so the same lecture uploaded twice costs one Gemini call. Changing
+ * {@code app.ai.prompt-version} or {@code gemini.model} starts a fresh key space.
+ * <p>
+ * Lookups check a small in-process near-cache first, then Redis. Redis failures are
+ * logged and treated as misses, never as request failures. Fallback results are
+ * never cached, so a Gemini outage does not get remembered for the whole TTL.
+ */
+@Service
+@Primary
+@Slf4j
+public class CachingAIService implements AIService {
+
+    private static final String KEY_PREFIX = "ai_cache:";
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final String ANALYZE = "analyze";
+    private static final String SUMMARIZE = "summarize";
+    private static final String STREAM_SUMMARY = "summarize_stream";
+    private static final String QUESTIONS = "questions";
+
+    private final AIServiceImpl delegate;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final BoundedTtlCache<String, String> nearCache;
+
+    private final boolean enabled;
+    private final Duration ttl;
+    private final String promptVersion;
+    private final String geminiModel;
+
+    public CachingAIService(AIServiceImpl delegate,
+                            RedisTemplate<String, String> redisTemplate,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.ai.cache.enabled:true}") boolean enabled,
+                            @Value("${app.ai.cache.ttl-hours:168}") long ttlHours,
+                            @Value("${app.ai.cache.local-max-entries:500}") int localMaxEntries,
+                            @Value("${app.ai.cache.local-ttl-minutes:30}") long localTtlMinutes,
+                            @Value("${app.ai.prompt-version:2}") String promptVersion,
+                            @Value("${gemini.model:gemini-1.5-flash}") String geminiModel) {
+        this.delegate = delegate;
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.ttl = Duration.ofHours(ttlHours);
+        this.promptVersion = promptVersion;
+        this.geminiModel = geminiModel;
+        this.nearCache = new BoundedTtlCache<>(localMaxEntries, Duration.ofMinutes(localTtlMinutes));
+        Gauge.builder("ai.cache.local.size", nearCache, BoundedTtlCache::size)
+                .description("Entries held in the in-process AI result cache")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public AnalyzedContentResponse analyzeContent(String text) {
+        return cached(ANALYZE, text, 0, () -> delegate.analyzeContent(text),
+                response -> !delegate.isFallbackContent(response.getAnalyzed()),
+                this::toJson, json -> fromJson(json, AnalyzedContentResponse.class));
+    }
+
+    @Override
+    public SummarizedContentResponse summarizeContent(String text) {
+        return cached(SUMMARIZE, text, 0, () -> delegate.summarizeContent(text),
+                response -> !delegate.isFallbackContent(response.getSummary()),
+                this::toJson, json -> fromJson(json, SummarizedContentResponse.class));
+    }
+
+    @Override
+    public String generateQuestions(String text, int numberOfQuestions) {
+        return cached(QUESTIONS, text, numberOfQuestions, () -> delegate.generateQuestions(text, numberOfQuestions),
+                questions -> !delegate.isFallbackContent(questions),
+                Function.identity(), Function.identity());
+    }
+
+    /**
+     * Serves a cached summary as a single chunk. Otherwise streams from the delegate
+     * and caches the finished summary. The streaming call uses its own prompt, so
+     * its results get their own key space rather than sharing entries with
+     * {@link #summarizeContent}.
+     */
+    @Override
+    public SummarizedContentResponse streamSummary(String text, Consumer<String> onPartial) {
+        if (!enabled || text == null || text.isBlank()) {
+            return delegate.streamSummary(text, onPartial);
+        }
+        String key = cacheKey(STREAM_SUMMARY, text, 0);
+        String value = lookup(STREAM_SUMMARY, key);
+        if (value != null) {
+            SummarizedContentResponse response = fromJson(value, SummarizedContentResponse.class);
+            onPartial.accept(response.getSummary());
+            return response;
+        }
+
+        SummarizedContentResponse response = delegate.streamSummary(text, onPartial);
+        if (response != null && !delegate.isFallbackContent(response.getSummary())) {
+            store(key, toJson(response));
+        }
+        return response;
+    }
+
+    /**
+     * Returns the cached result for this operation and text, or loads it from the
+     * delegate and stores it when {@code cacheable} accepts it.
+     */
+    private <T> T cached(String operation, String text, int variant, Supplier<T> loader,
+                         Predicate<T> cacheable, Function<T, String> encode, Function<String, T> decode) {
+        if (!enabled || text == null || text.isBlank()) {
+            return loader.get();
+        }
+        String key = cacheKey(operation, text, variant);
+        String value = lookup(operation, key);
+        if (value != null) {
+            return decode.apply(value);
+        }
+
+        T result = loader.get();
+        if (result == null || !cacheable.test(result)) {
+            log.info("Not caching fallback AI {} result", operation);
+            return result;
+        }
+        store(key, encode.apply(result));
+        return result;
+    }
+
+    private String lookup(String operation, String key) {
+        String value = nearCache.get(key);
+        if (value != null) {
+            record(operation, "local");
+            return value;
+        }
+        value = readRedis(key);
+        if (value != null) {
+            record(operation, "redis");
+            nearCache.put(key, value);
+            return value;
+        }
+        record(operation, "miss");
+        return null;
+    }
+
+    private void store(String key, String value) {
+        nearCache.put(key, value);
+        writeRedis(key, value);
+    }
+
+    String cacheKey(String operation, String text, int variant) {
+        String normalized = WHITESPACE.matcher(Normalizer.normalize(text, Normalizer.Form.NFC)).replaceAll(" ").trim();
+        return KEY_PREFIX + operation + ':'
+                + ContentDigest.sha256Hex(operation, promptVersion, geminiModel, String.valueOf(variant), normalized);
+    }
+
+    private String readRedis(String key) {
+        try {
+            return redisTemplate.opsForValue().get(key);
+        } catch (Exception e) {
+            log.warn("AI cache read failed, treating as a miss: {}", e.getMessage());
+            meterRegistry.counter("ai.cache.errors", "stage", "read").increment();
+            return null;
+        }
+    }
+
+    private void writeRedis(String key, String value) {
+        try {
+            redisTemplate.opsForValue().set(key, value, ttl);
+        } catch (Exception e) {
+            log.warn("AI cache write failed: {}", e.getMessage());
+            meterRegistry.counter("ai.cache.errors", "stage", "write").increment();
+        }
+    }
+
+    private void record(String operation, String result) {
+        Counter.builder("ai.cache.lookups")
+                .tag("operation", operation)
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize AI result for caching", e);
+        }
+    }
+
+    private <T> T fromJson(String json, Class<T> type) {
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to read cached AI result", e);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.izabi.service;
+
+import java.util.function.Supplier;
+
+public interface ContentStoreService {
+
+    /** Stores {@code text} and returns its content id. Storing the same text again only adds a reference. */
+    String store(String text);
+
+    String load(String contentId);
+
+    /** Supplier that loads the content on its first call and returns the same value after that. */
+    Supplier<String> loader(String contentId);
+
+    /** Drops one reference. The content is deleted when no references remain. */
+    void release(String contentId);
+}
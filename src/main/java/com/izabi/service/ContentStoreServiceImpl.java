@@ -0,0 +1,175 @@
+package com.izabi.service;
+
+import com.izabi.exception.NoFileFoundException;
+import com.izabi.util.ContentDigest;
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoException;
+import com.mongodb.client.gridfs.model.GridFSFile;
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.gridfs.GridFsOperations;
+import org.springframework.data.mongodb.gridfs.GridFsUpload;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.function.Supplier;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Keeps large text out of the documents that reference it. Text is deflated into
+ * a GridFS file named by the SHA-256 of its UTF-8 bytes, so identical uploads
+ * share one copy. The file metadata holds a reference count: storing existing
+ * content increments it, and releasing decrements it and deletes the file at zero.
+ * The delete is conditional on the count still being zero, so a store that adds a
+ * reference in between keeps the file. A unique index on the file name (see
+ * {@code MongoIndexConfiguration}) keeps two concurrent first stores of the same
+ * text from creating two files. The loser's chunks are removed, because GridFS
+ * writes chunks before the files document that the index rejects.
+ */
+@Service
+@Slf4j
+public class ContentStoreServiceImpl implements ContentStoreService {
+
+    private static final String FILENAME = "filename";
+    private static final String REF_COUNT = "metadata.refCount";
+    private static final String ENCODING_DEFLATE = "deflate";
+
+    private final GridFsOperations gridFsOperations;
+    private final MongoTemplate mongoTemplate;
+    private final String filesCollection;
+    private final String chunksCollection;
+    private final int compressionLevel;
+
+    public ContentStoreServiceImpl(
+            @Qualifier("contentGridFsTemplate") GridFsOperations gridFsOperations,
+            MongoTemplate mongoTemplate,
+            @Value("${app.content-store.bucket:content}") String bucket,
+            @Value("${app.content-store.compression-level:6}") int compressionLevel) {
+        this.gridFsOperations = gridFsOperations;
+        this.mongoTemplate = mongoTemplate;
+        this.filesCollection = bucket + ".files";
+        this.chunksCollection = bucket + ".chunks";
+        this.compressionLevel = compressionLevel;
+    }
+
+    @Override
+    public String store(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        String contentId = HexFormat.of().formatHex(ContentDigest.sha256().digest(bytes));
+        if (addReference(contentId)) {
+            log.debug("Content {} already stored, added a reference", contentId);
+            return contentId;
+        }
+
+        Document metadata = new Document("refCount", 1)
+                .append("encoding", ENCODING_DEFLATE)
+                .append("length", bytes.length);
+        ObjectId fileId = new ObjectId();
+        Deflater deflater = new Deflater(compressionLevel);
+        try (InputStream compressed = new DeflaterInputStream(new ByteArrayInputStream(bytes), deflater)) {
+            gridFsOperations.store(GridFsUpload.fromStream(compressed)
+                    .id(fileId)
+                    .filename(contentId)
+                    .metadata(metadata)
+                    .build());
+        } catch (MongoException e) {
+            if (ErrorCategory.fromErrorCode(e.getCode()) != ErrorCategory.DUPLICATE_KEY) {
+                throw e;
+            }
+            removeChunks(fileId);
+            if (!addReference(contentId)) {
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            deflater.end();
+        }
+        return contentId;
+    }
+
+    @Override
+    public String load(String contentId) {
+        GridFSFile file = gridFsOperations.findOne(Query.query(where(FILENAME).is(contentId)));
+        if (file == null) {
+            throw new NoFileFoundException("Stored content not found");
+        }
+        Document metadata = file.getMetadata();
+        boolean deflated = metadata != null && ENCODING_DEFLATE.equals(metadata.getString("encoding"));
+        try (InputStream raw = gridFsOperations.getResource(file).getInputStream();
+             InputStream in = deflated ? new InflaterInputStream(raw) : raw) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Supplier<String> loader(String contentId) {
+        return new Supplier<>() {
+            private String value;
+
+            @Override
+            public synchronized String get() {
+                if (value == null) {
+                    value = load(contentId);
+                }
+                return value;
+            }
+        };
+    }
+
+    @Override
+    public void release(String contentId) {
+        Document file = mongoTemplate.findAndModify(
+                Query.query(where(FILENAME).is(contentId)),
+                new Update().inc(REF_COUNT, -1),
+                FindAndModifyOptions.options().returnNew(true),
+                Document.class,
+                filesCollection);
+        if (file == null) {
+            return;
+        }
+        Document metadata = file.get("metadata", Document.class);
+        Number refCount = metadata == null ? null : (Number) metadata.get("refCount");
+        if (refCount != null && refCount.intValue() > 0) {
+            return;
+        }
+        Object fileId = file.get("_id");
+        DeleteResult deleted = mongoTemplate.remove(
+                Query.query(where("_id").is(fileId).and(REF_COUNT).lte(0)), filesCollection);
+        if (deleted.getDeletedCount() > 0) {
+            removeChunks(fileId);
+        }
+    }
+
+    private void removeChunks(Object fileId) {
+        mongoTemplate.remove(Query.query(where("files_id").is(fileId)), chunksCollection);
+    }
+
+    private boolean addReference(String contentId) {
+        UpdateResult result = mongoTemplate.updateFirst(
+                Query.query(where(FILENAME).is(contentId)),
+                new Update().inc(REF_COUNT, 1),
+                filesCollection);
+        return result.getMatchedCount() > 0;
+    }
+}
@@ -0,0 +1,9 @@
+package com.izabi.service;
+
+public interface EmailOutboxService {
+
+    /** Records the message for delivery and returns without contacting the mail server. */
+    void enqueue(String toEmail, String subject, String htmlBody);
+
+    long pendingCount();
+}
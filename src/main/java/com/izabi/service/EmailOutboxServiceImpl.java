@@ -0,0 +1,319 @@
+package com.izabi.service;
+
+import com.izabi.data.enums.EmailStatus;
+import com.izabi.data.model.OutboundEmail;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Durable outbox for transactional email. {@link #enqueue} is one MongoDB insert,
+ * so request threads never wait on SMTP. A fixed set of workers claims due
+ * messages with {@code findAndModify}, which sets a lease. That makes delivery
+ * safe with several application nodes, and a message whose worker died is
+ * picked up again once the lease runs out. Each worker keeps its own connected
+ * SMTP {@link Transport} and sends whole batches over it. The connection is
+ * closed only after an idle period or a failure, so a burst of OTP emails pays
+ * for one TLS handshake instead of one per message.
+ * <p>
+ * Failed sends are retried with exponential backoff and jitter, up to
+ * {@code app.mail.outbox.max-attempts}. Delivered and abandoned messages drop
+ * their body and are removed by a TTL index after the retention period. Queue
+ * depth and outcome counters are published to Micrometer.
+ */
+@Service
+@Slf4j
+public class EmailOutboxServiceImpl implements EmailOutboxService {
+
+    private final MongoTemplate mongoTemplate;
+    private final JavaMailSenderImpl mailSender;
+    private final ExecutorService emailOutboxExecutor;
+    private final Semaphore wakeUp = new Semaphore(0);
+    private final Counter sentCounter;
+    private final Counter retriedCounter;
+    private final Counter failedCounter;
+
+    private final int workers;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration baseBackoff;
+    private final Duration maxBackoff;
+    private final Duration lease;
+    private final Duration pollInterval;
+    private final Duration idleDisconnect;
+    private final Duration retention;
+
+    @Value("${spring.mail.username}")
+    private String fromEmail;
+
+    private volatile boolean running;
+
+    public EmailOutboxServiceImpl(MongoTemplate mongoTemplate,
+                                  JavaMailSenderImpl mailSender,
+                                  ExecutorService emailOutboxExecutor,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.mail.outbox.workers:2}") int workers,
+                                  @Value("${app.mail.outbox.batch-size:20}") int batchSize,
+                                  @Value("${app.mail.outbox.max-attempts:6}") int maxAttempts,
+                                  @Value("${app.mail.outbox.base-backoff-ms:2000}") long baseBackoffMs,
+                                  @Value("${app.mail.outbox.max-backoff-ms:300000}") long maxBackoffMs,
+                                  @Value("${app.mail.outbox.lease-seconds:60}") long leaseSeconds,
+                                  @Value("${app.mail.outbox.poll-interval-ms:2000}") long pollIntervalMs,
+                                  @Value("${app.mail.outbox.idle-disconnect-seconds:30}") long idleDisconnectSeconds,
+                                  @Value("${app.mail.outbox.retention-hours:24}") long retentionHours) {
+        this.mongoTemplate = mongoTemplate;
+        this.mailSender = mailSender;
+        this.emailOutboxExecutor = emailOutboxExecutor;
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoff = Duration.ofMillis(baseBackoffMs);
+        this.maxBackoff = Duration.ofMillis(maxBackoffMs);
+        this.lease = Duration.ofSeconds(leaseSeconds);
+        this.pollInterval = Duration.ofMillis(pollIntervalMs);
+        this.idleDisconnect = Duration.ofSeconds(idleDisconnectSeconds);
+        this.retention = Duration.ofHours(retentionHours);
+        this.sentCounter = meterRegistry.counter("email.outbox.sent");
+        this.retriedCounter = meterRegistry.counter("email.outbox.retried");
+        this.failedCounter = meterRegistry.counter("email.outbox.failed");
+        Gauge.builder("email.outbox.pending", this, EmailOutboxServiceImpl::pendingCount)
+                .description("Emails waiting to be delivered")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void enqueue(String toEmail, String subject, String htmlBody) {
+        Instant now = Instant.now();
+        OutboundEmail email = new OutboundEmail();
+        email.setToEmail(toEmail);
+        email.setSubject(subject);
+        email.setHtmlBody(htmlBody);
+        email.setStatus(EmailStatus.PENDING);
+        email.setNextAttemptAt(now);
+        email.setCreatedAt(now);
+        mongoTemplate.insert(email);
+        wakeUp.release();
+    }
+
+    @Override
+    public long pendingCount() {
+        return mongoTemplate.count(Query.query(where("status").in(EmailStatus.PENDING, EmailStatus.SENDING)),
+                OutboundEmail.class);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startWorkers() {
+        running = true;
+        for (int i = 0; i < workers; i++) {
+            emailOutboxExecutor.execute(this::runWorker);
+        }
+        log.info("Started {} email outbox workers", workers);
+    }
+
+    @PreDestroy
+    public void stopWorkers() {
+        running = false;
+        wakeUp.release(workers);
+    }
+
+    private void runWorker() {
+        SmtpConnection connection = new SmtpConnection();
+        try {
+            while (running) {
+                try {
+                    if (drainBatch(connection) == 0) {
+                        connection.closeIfIdle();
+                        wakeUp.tryAcquire(pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+                    }
+                } catch (RuntimeException e) {
+                    // A MongoDB outage must not end the worker. Unfinished claims are
+                    // picked up again when their lease expires.
+                    log.error("Email outbox worker error, retrying in {} ms: {}", pollInterval.toMillis(), e.getMessage(), e);
+                    connection.close();
+                    TimeUnit.MILLISECONDS.sleep(pollInterval.toMillis());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            connection.close();
+        }
+    }
+
+    /** Claims and sends up to one batch over {@code connection}. Returns the number of messages handled. */
+    int drainBatch(SmtpConnection connection) {
+        int handled = 0;
+        while (handled < batchSize) {
+            OutboundEmail email = claimNext();
+            if (email == null) {
+                break;
+            }
+            deliver(email, connection);
+            handled++;
+        }
+        return handled;
+    }
+
+    private OutboundEmail claimNext() {
+        Instant now = Instant.now();
+        Query due = new Query(new Criteria().orOperator(
+                where("status").is(EmailStatus.PENDING).and("nextAttemptAt").lte(now),
+                where("status").is(EmailStatus.SENDING).and("leaseUntil").lte(now)))
+                .with(Sort.by(Sort.Direction.ASC, "nextAttemptAt"));
+        Update claim = new Update()
+                .set("status", EmailStatus.SENDING)
+                .set("leaseUntil", now.plus(lease))
+                .inc("attempts", 1);
+        return mongoTemplate.findAndModify(due, claim, FindAndModifyOptions.options().returnNew(true), OutboundEmail.class);
+    }
+
+    private void deliver(OutboundEmail email, SmtpConnection connection) {
+        try {
+            connection.send(toMimeMessage(email));
+        } catch (MessagingException | RuntimeException e) {
+            connection.close();
+            handleFailure(email, e);
+            return;
+        }
+        // Recorded outside the send's try: once the relay has accepted the message, a
+        // failed status write must not turn it into a send failure and a resend.
+        if (finish(email, EmailStatus.SENT, null)) {
+            log.info("Email successfully sent to {}", email.getToEmail());
+        }
+        sentCounter.increment();
+    }
+
+    private void handleFailure(OutboundEmail email, Exception e) {
+        if (email.getAttempts() >= maxAttempts) {
+            finish(email, EmailStatus.FAILED, e.getMessage());
+            failedCounter.increment();
+            log.error("Giving up on email to {} after {} attempts: {}", email.getToEmail(), email.getAttempts(), e.getMessage());
+            return;
+        }
+        Duration delay = backoff(email.getAttempts(), baseBackoff, maxBackoff);
+        boolean updated = mongoTemplate.updateFirst(claimedBy(email), new Update()
+                .set("status", EmailStatus.PENDING)
+                .set("nextAttemptAt", Instant.now().plus(delay))
+                .set("lastError", e.getMessage())
+                .unset("leaseUntil"), OutboundEmail.class).getModifiedCount() > 0;
+        retriedCounter.increment();
+        if (updated) {
+            log.warn("Email to {} failed on attempt {}, retrying in {} ms: {}",
+                    email.getToEmail(), email.getAttempts(), delay.toMillis(), e.getMessage());
+        } else {
+            log.warn("Email to {} failed, but its lease expired and another worker owns it now", email.getToEmail());
+        }
+    }
+
+    /** Writes the final status if this worker still holds the lease. Returns false when the claim was lost. */
+    private boolean finish(OutboundEmail email, EmailStatus status, String error) {
+        Instant now = Instant.now();
+        Update update = new Update()
+                .set("status", status)
+                .set("expireAt", now.plus(retention))
+                .unset("htmlBody")
+                .unset("leaseUntil");
+        if (status == EmailStatus.SENT) {
+            update.set("sentAt", now);
+        } else {
+            update.set("lastError", error);
+        }
+        boolean updated = mongoTemplate.updateFirst(claimedBy(email), update, OutboundEmail.class).getModifiedCount() > 0;
+        if (!updated) {
+            log.warn("Lease on email {} expired before its {} status was recorded", email.getId(), status);
+        }
+        return updated;
+    }
+
+    /** Matches the message only while it is still under the lease this worker claimed. */
+    private static Query claimedBy(OutboundEmail email) {
+        return Query.query(where("_id").is(email.getId())
+                .and("status").is(EmailStatus.SENDING)
+                .and("leaseUntil").is(email.getLeaseUntil()));
+    }
+
+    private MimeMessage toMimeMessage(OutboundEmail email) throws MessagingException {
+        MimeMessage mimeMessage = new MimeMessage(mailSender.getSession());
+        MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true, "UTF-8");
+        helper.setFrom(fromEmail);
+        helper.setTo(email.getToEmail());
+        helper.setSubject(email.getSubject());
+        helper.setText(email.getHtmlBody(), true);
+        mimeMessage.saveChanges();
+        return mimeMessage;
+    }
+
+    /** Exponential backoff from {@code base}, capped at {@code max}, with the upper half jittered. */
+    static Duration backoff(int attempt, Duration base, Duration max) {
+        long capped = Math.min(max.toMillis(), base.toMillis() << Math.min(attempt - 1, 20));
+        long half = capped / 2;
+        return Duration.ofMillis(half + ThreadLocalRandom.current().nextLong(half + 1));
+    }
+
+    Transport openTransport() throws MessagingException {
+        String protocol = mailSender.getProtocol() != null ? mailSender.getProtocol() : "smtp";
+        Transport transport = mailSender.getSession().getTransport(protocol);
+        transport.connect(mailSender.getHost(), mailSender.getPort(), mailSender.getUsername(), mailSender.getPassword());
+        return transport;
+    }
+
+    /** One worker's SMTP connection, opened on first use and reused until idle or broken. */
+    class SmtpConnection {
+
+        private Transport transport;
+        private long lastUsedNanos;
+
+        void send(MimeMessage message) throws MessagingException {
+            if (transport == null || !transport.isConnected()) {
+                close();
+                transport = openTransport();
+            }
+            transport.sendMessage(message, message.getAllRecipients());
+            lastUsedNanos = System.nanoTime();
+        }
+
+        void closeIfIdle() {
+            if (transport != null && System.nanoTime() - lastUsedNanos > idleDisconnect.toNanos()) {
+                close();
+            }
+        }
+
+        void close() {
+            if (transport == null) {
+                return;
+            }
+            try {
+                transport.close();
+            } catch (MessagingException e) {
+                log.debug("Error closing SMTP transport: {}", e.getMessage());
+            }
+            transport = null;
+        }
+    }
+}
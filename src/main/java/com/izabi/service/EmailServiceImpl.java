@@ -2,30 +2,25 @@ package com.izabi.service;
 
 import com.izabi.exception.EmailCannotBeBlankException;
 import com.izabi.exception.EmailNotSentException;
-import jakarta.mail.MessagingException;
-import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.MailException;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
 
+/**
+ * Renders transactional emails and hands them to the {@link EmailOutboxService}.
+ * Calls return once the message is stored, and SMTP delivery happens on the
+ * outbox workers.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class EmailServiceImpl implements EmailService {
 
-    private final JavaMailSender mailSender;
-
-    @Value("${spring.mail.username}")
-    private String fromEmail;
+    private final EmailOutboxService emailOutboxService;
 
     private static final int OTP_EXPIRY_MINUTES = 2;
 
-    @Async
     @Override
     public void sendEmail(String toEmail, String otp) {
         if (toEmail == null || toEmail.isBlank()) {
@@ -36,7 +31,6 @@ public class EmailServiceImpl implements EmailService {
         sendHtmlEmail(toEmail, subject, htmlContent);
     }
 
-    @Async
     @Override
     public void sendResetPasswordEmail(String toEmail, String otp) {
         if (toEmail == null || toEmail.isBlank()) {
@@ -49,19 +43,10 @@ public class EmailServiceImpl implements EmailService {
 
     private void sendHtmlEmail(String to, String subject, String content) {
         try {
-            MimeMessage mimeMessage = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true, "UTF-8");
-
-            helper.setFrom(fromEmail);
-            helper.setTo(to);
-            helper.setSubject(subject);
-            helper.setText(content, true);
-
-            mailSender.send(mimeMessage);
-            log.info("Email successfully sent to {}", to);
-
-        } catch (MailException | MessagingException e) {
-            log.error("Failed to send email to {}: {}", to, e.getMessage());
+            emailOutboxService.enqueue(to, subject, content);
+            log.info("Email to {} queued for delivery", to);
+        } catch (DataAccessException e) {
+            log.error("Failed to queue email to {}: {}", to, e.getMessage());
             throw new EmailNotSentException("Failed to send email. Please try again later.");
         }
     }
@@ -1,12 +1,17 @@
 package com.izabi.service;
 
 import com.izabi.dto.response.*;
+import org.springframework.core.io.InputStreamSource;
 import org.springframework.web.multipart.MultipartFile;
 
 public interface FileTextExtractionService {
 
     FileExtensionResponse getFileExtension(MultipartFile file);
 
+    ParsedDocument parse(MultipartFile file);
+
+    ParsedDocument parse(String fileName, long fileSize, InputStreamSource source);
+
     ReadDocumentResponse navigateToProperFileExtension(MultipartFile file);
 
     PageCountResponse getPageCount(MultipartFile file);
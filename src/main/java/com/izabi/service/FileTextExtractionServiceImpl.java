@@ -3,24 +3,81 @@ package com.izabi.service;
 import com.izabi.dto.response.*;
 import com.izabi.mapper.StudyMaterialMapper;
 import lombok.extern.slf4j.Slf4j;
+import com.izabi.util.CsvReader;
+import com.izabi.util.DocxTextExtractor;
+import com.izabi.util.FastPageCounter;
+import com.izabi.util.PdfTextExtractor;
+import com.izabi.util.SpreadsheetTextExtractor;
+import com.izabi.util.TabularTextCollector;
+import com.izabi.util.TempFiles;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import com.izabi.exception.*;
-import org.apache.pdfbox.text.PDFTextStripper;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.InputStreamSource;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.concurrent.ForkJoinPool;
 
 @Service
 @Slf4j
 public class FileTextExtractionServiceImpl implements FileTextExtractionService {
 
+    private static final int TEXT_LINES_PER_PAGE = 50;
+    private static final int CSV_SNIFF_CHARS = 64 * 1024;
+
+    private final PdfTextExtractor pdfTextExtractor;
+    private final SpreadsheetTextExtractor spreadsheetTextExtractor;
+    private final DocxTextExtractor docxTextExtractor;
+    private final ForkJoinPool pdfExtractionPool;
+    private final Path tempDir;
+    private final int maxTextChars;
+    private final int parallelMinPagesPerTask;
+    private final int tabularDigestMinRows;
+    private final int tabularSampleRows;
+    private final int tabularTopValues;
+
+    public FileTextExtractionServiceImpl(ForkJoinPool pdfExtractionPool,
+                                         @Value("${app.extraction.pdf.max-main-memory-mb:16}") long pdfMaxMainMemoryMb,
+                                         @Value("${app.extraction.max-text-chars:2000000}") int maxTextChars,
+                                         @Value("${app.extraction.pdf.parallel-min-pages-per-task:16}") int parallelMinPagesPerTask,
+                                         @Value("${app.extraction.tabular.digest-min-rows:200}") int tabularDigestMinRows,
+                                         @Value("${app.extraction.tabular.sample-rows:20}") int tabularSampleRows,
+                                         @Value("${app.extraction.tabular.top-values:5}") int tabularTopValues,
+                                         @Value("${app.extraction.temp-dir:${java.io.tmpdir}}") String tempDir) {
+        // PDFBox scratch files go here on every path, including job workers that
+        // open files directly and never spill an upload, so it must exist up front.
+        try {
+            Files.createDirectories(Path.of(tempDir));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create extraction temp directory " + tempDir, e);
+        }
+        this.pdfTextExtractor = new PdfTextExtractor(pdfMaxMainMemoryMb * 1024 * 1024, Path.of(tempDir));
+        this.spreadsheetTextExtractor = new SpreadsheetTextExtractor(Path.of(tempDir));
+        this.docxTextExtractor = new DocxTextExtractor(Path.of(tempDir));
+        this.pdfExtractionPool = pdfExtractionPool;
+        this.tempDir = Path.of(tempDir);
+        this.maxTextChars = maxTextChars;
+        this.parallelMinPagesPerTask = parallelMinPagesPerTask;
+        this.tabularDigestMinRows = tabularDigestMinRows;
+        this.tabularSampleRows = tabularSampleRows;
+        this.tabularTopValues = tabularTopValues;
+    }
+
     @Override
     public FileExtensionResponse getFileExtension(MultipartFile file) {
-        String filename = file.getOriginalFilename();
+        return getFileExtension(file.getOriginalFilename());
+    }
+
+    private FileExtensionResponse getFileExtension(String filename) {
         String extension;
 
         if (filename == null) {
@@ -37,133 +94,358 @@ public class FileTextExtractionServiceImpl implements FileTextExtractionService
     }
 
     @Override
-    public ReadDocumentResponse navigateToProperFileExtension(MultipartFile file) {
-        FileExtensionResponse fileExtension = getFileExtension(file);
+    public ParsedDocument parse(MultipartFile file) {
+        return parse(file.getOriginalFilename(), file.getSize(), file);
+    }
+
+    @Override
+    public ParsedDocument parse(String fileName, long fileSize, InputStreamSource source) {
+        FileExtensionResponse fileExtension = getFileExtension(fileName);
         String extension = fileExtension.getFileExtension();
 
-        return switch (extension) {
-            case "txt", "csv" -> readTextFile(file);
-            case "pdf" -> readPDF(file);
-            case "docx", "doc" -> readWordDocument(file);
-            case "xlsx", "xls" -> readExcelFile(file);
+        ParsedDocument document = switch (extension) {
+            case "txt" -> readTextFile(source);
+            case "csv" -> readCsvFile(source);
+            case "pdf" -> readPDF(source);
+            case "docx", "doc" -> readWordDocument(source);
+            case "xlsx", "xls" -> readExcelFile(source, extension);
             default -> throw new FileExtensionNotSupportedException("Unsupported file extension: " + extension);
         };
+        document.setFileName(fileName);
+        document.setFileExtension(extension);
+        document.setFileSize(fileSize);
+        return document;
+    }
+
+    @Override
+    public ReadDocumentResponse navigateToProperFileExtension(MultipartFile file) {
+        ParsedDocument document = parse(file);
+        return StudyMaterialMapper.mapToReadDocumentResponse(document.getText(), document.getMessage());
     }
 
+    /**
+     * Counts pages from metadata only: the PDF trailer and page tree root,
+     * docProps/app.xml, workbook.xml, or a newline count for text. The upload is
+     * spilled once so every format can read just the bytes it needs. A full parse
+     * is only the fallback.
+     */
     @Override
     public PageCountResponse getPageCount(MultipartFile file) {
         FileExtensionResponse fileExtension = getFileExtension(file);
         String extension = fileExtension.getFileExtension();
+        Path spilled = null;
         try {
+            if ("txt".equals(extension) || "csv".equals(extension)) {
+                // Counting lines is one sequential pass, so the upload is read where it is.
+                try (InputStream in = file.getInputStream()) {
+                    return getTextFilePageCount(FastPageCounter.countLines(in));
+                }
+            }
+            // The other formats are read by random access, which needs a file.
+            spilled = TempFiles.spill(tempDir, "page-count-", "." + extension, file.getInputStream());
+            Path upload = spilled;
             return switch (extension) {
-                case "txt", "csv" -> getTextFilePageCount(file);
-                case "pdf" -> getPDFPageCount(file);
-                case "docx", "doc" -> getWordPageCount(file);
-                case "xlsx", "xls" -> getExcelSheetCount(file);
+                case "pdf" -> getPDFPageCount(upload);
+                case "docx", "doc" -> getWordPageCount(upload);
+                case "xlsx", "xls" -> getExcelSheetCount(upload);
                 default -> throw new FileExtensionNotSupportedException("Unsupported file extension: " + extension);
             };
         } catch (Exception e) {
             throw new RuntimeException("Error counting pages: " + e.getMessage(), e);
+        } finally {
+            deleteQuietly(spilled);
         }
     }
 
-    private PageCountResponse getExcelSheetCount(MultipartFile file) {
-        try (Workbook workbook = WorkbookFactory.create(file.getInputStream())) {
-            return StudyMaterialMapper.mapToPageCountResponse(workbook.getNumberOfSheets(),"Page was counted Successfully");
+    private PageCountResponse getExcelSheetCount(Path file) {
+        try {
+            int sheets = spreadsheetTextExtractor.countSheets(file.toFile());
+            return StudyMaterialMapper.mapToPageCountResponse(sheets,"Page was counted Successfully");
         } catch (Exception e) {
             throw new FileExtensionNotSupportedException("FILE NOT SUPPORTED: " + e.getMessage());
         }
     }
 
-    private PageCountResponse getWordPageCount(MultipartFile file) {
-        try (XWPFDocument document = new XWPFDocument(file.getInputStream())) {
-            return StudyMaterialMapper.mapToPageCountResponse(document.getParagraphs().size(),"Page was counted Successfully");
+    private PageCountResponse getWordPageCount(Path file) {
+        try {
+            int pages = docxTextExtractor.countPages(file.toFile());
+            return StudyMaterialMapper.mapToPageCountResponse(pages,"Page was counted Successfully");
         } catch (Exception e) {
             throw new FileExtensionNotSupportedException("FILE NOT SUPPORTED: " + e.getMessage());
         }
     }
 
-    private PageCountResponse getPDFPageCount(MultipartFile file) {
-        try (PDDocument document = PDDocument.load(file.getInputStream())) {
-            return StudyMaterialMapper.mapToPageCountResponse(document.getNumberOfPages(),"Page was counted Successfully");
+    private PageCountResponse getPDFPageCount(Path file) {
+        try {
+            OptionalInt fromTrailer = FastPageCounter.pdfPages(file);
+            if (fromTrailer.isPresent()) {
+                return StudyMaterialMapper.mapToPageCountResponse(fromTrailer.getAsInt(),"Page was counted Successfully");
+            }
+            log.debug("PDF page count needs a full parse: no classic xref trailer in {}", file.getFileName());
+            try (PDDocument document = pdfTextExtractor.load(file.toFile())) {
+                return StudyMaterialMapper.mapToPageCountResponse(document.getNumberOfPages(),"Page was counted Successfully");
+            }
         } catch (Exception e) {
             throw new FileExtensionNotSupportedException("FILE NOT SUPPORTED: " + e.getMessage());
         }
     }
 
-    private PageCountResponse getTextFilePageCount(MultipartFile file) throws Exception {
-        int linesPerPage = 50;
-        double lines = 0;
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
-            while (reader.readLine() != null) {
-                lines++;
-            }
-        }
-        double division = lines /linesPerPage;
-        int result = (int) Math.ceil(division);
+    private PageCountResponse getTextFilePageCount(long lines) {
+        int result = (int) ((lines + TEXT_LINES_PER_PAGE - 1) / TEXT_LINES_PER_PAGE);
         return StudyMaterialMapper.mapToPageCountResponse(result,"Page was counted Successfully");
     }
 
-    private ReadDocumentResponse readExcelFile(MultipartFile file) {
-        StringBuilder content = new StringBuilder();
-        DataFormatter formatter = new DataFormatter();
-
-        try (Workbook workbook = WorkbookFactory.create(file.getInputStream())) {
-            for (int i = 0; i < workbook.getNumberOfSheets(); i++) {
-                Sheet sheet = workbook.getSheetAt(i);
-                for (Row row : sheet) {
-                    for (Cell cell : row) {
-                        content.append(formatter.formatCellValue(cell)).append("\t");
-                    }
-                    content.append("\n");
-                }
+    /**
+     * Streams rows through POI's event model rather than loading the workbook.
+     * Sheets past the digest threshold are sent as column statistics and sampled
+     * rows instead of every cell. Uploads that are not already files are
+     * spilled to a temp file so the OOXML zip and OLE2 container can be read by
+     * random access.
+     */
+    private ParsedDocument readExcelFile(InputStreamSource file, String extension) {
+        Path spilled = null;
+        try {
+            File workbook;
+            if (file instanceof FileSystemResource resource) {
+                workbook = resource.getFile();
+            } else {
+                spilled = spreadsheetTextExtractor.spillToTempFile(file.getInputStream(), extension);
+                workbook = spilled.toFile();
             }
+
+            TabularTextCollector collector = newTabularCollector();
+            spreadsheetTextExtractor.extract(workbook, collector);
+            return tabularDocument(collector, "Excel file");
         } catch (Exception e) {
             log.error("Error reading Excel file: {}", e.getMessage(), e);
             throw new DocumentNotReadException("Error while reading study material");
+        } finally {
+            deleteQuietly(spilled);
         }
-
-        return StudyMaterialMapper.mapToReadDocumentResponse(
-                content.toString(),
-                "Excel file was read successfully"
-        );
     }
 
-    private ReadDocumentResponse readWordDocument(MultipartFile file) {
-        StringBuilder content = new StringBuilder();
-        try (XWPFDocument document = new XWPFDocument(file.getInputStream())) {
-            document.getParagraphs().forEach(p -> content.append(p.getText()).append("\n"));
+    /**
+     * Streams paragraphs out of word/document.xml with StAX instead of building an
+     * XWPFDocument, and stops once the text budget is reached. The page count is
+     * the one Word stored in docProps/app.xml.
+     */
+    private ParsedDocument readWordDocument(InputStreamSource file) {
+        Path spilled = null;
+        try {
+            File docx;
+            if (file instanceof FileSystemResource resource) {
+                docx = resource.getFile();
+            } else {
+                spilled = docxTextExtractor.spillToTempFile(file.getInputStream());
+                docx = spilled.toFile();
+            }
+
+            BudgetedParagraphCollector collector = new BudgetedParagraphCollector(maxTextChars);
+            int numberOfPages = docxTextExtractor.extract(docx, collector);
+
+            ParsedDocument document = StudyMaterialMapper.mapToParsedDocument(
+                    collector.content.toString(),
+                    numberOfPages,
+                    collector.paragraphs,
+                    collector.truncated
+                            ? "Doc was read up to the " + maxTextChars + " character limit"
+                            : "Doc was read successfully"
+            );
+            document.setTruncated(collector.truncated);
+            if (collector.truncated) {
+                log.warn("Word text truncated at {} characters after {} paragraphs", maxTextChars, collector.paragraphs.size());
+            }
+            return document;
         } catch (Exception e) {
             log.error("Error reading Word document: {}", e.getMessage(), e);
             throw new DocumentNotReadException("Error while reading study material");
+        } finally {
+            deleteQuietly(spilled);
         }
-        return StudyMaterialMapper.mapToReadDocumentResponse(content.toString(), "Doc was read successfully");
     }
 
-    private ReadDocumentResponse readPDF(MultipartFile file) {
-        try (PDDocument document = PDDocument.load(file.getInputStream())) {
-            PDFTextStripper stripper = new PDFTextStripper();
-            return StudyMaterialMapper.mapToReadDocumentResponse(stripper.getText(document), "PDF was read successfully");
+    /**
+     * Reads the PDF from disk with PDFBox's mixed memory/temp-file mode and collects
+     * pages until the text budget is reached, so heap use per upload does not grow
+     * with the page count. Uploads that are not already files are spilled to a temp
+     * file first. Large documents are stripped in page ranges on the extraction pool.
+     */
+    private ParsedDocument readPDF(InputStreamSource file) {
+        Path spilled = null;
+        try {
+            File pdf;
+            if (file instanceof FileSystemResource resource) {
+                pdf = resource.getFile();
+            } else {
+                spilled = pdfTextExtractor.spillToTempFile(file.getInputStream());
+                pdf = spilled.toFile();
+            }
+
+            BudgetedPageCollector collector = new BudgetedPageCollector(maxTextChars);
+            int numberOfPages = pdfTextExtractor.extractParallel(
+                    pdf, pdfExtractionPool, parallelMinPagesPerTask, maxTextChars, collector);
+
+            ParsedDocument document = StudyMaterialMapper.mapToParsedDocument(
+                    String.join(ParsedDocument.PAGE_BREAK, collector.pages),
+                    numberOfPages,
+                    collector.pages,
+                    collector.truncated
+                            ? "PDF was read up to the " + maxTextChars + " character limit"
+                            : "PDF was read successfully"
+            );
+            document.setTruncated(collector.truncated);
+            if (collector.truncated) {
+                log.warn("PDF text truncated at {} characters after {} of {} pages",
+                        maxTextChars, collector.pages.size(), numberOfPages);
+            }
+            return document;
         } catch (Exception e) {
             log.error("Error reading PDF file: {}", e.getMessage(), e);
             throw new DocumentNotReadException("Error while reading study material");
+        } finally {
+            deleteQuietly(spilled);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete temp file {}: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * Streams CSV rows, using a delimiter sniffed from the first 64 KB, through the
+     * same tabular collector as spreadsheets. A large export therefore becomes a
+     * digest of the whole file instead of text cut off at the budget.
+     */
+    private ParsedDocument readCsvFile(InputStreamSource file) {
+        TabularTextCollector collector = newTabularCollector();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8), CSV_SNIFF_CHARS)) {
+            reader.mark(CSV_SNIFF_CHARS);
+            char[] sample = new char[CSV_SNIFF_CHARS];
+            int read = reader.read(sample, 0, sample.length);
+            reader.reset();
+            if (read > 0 && sample[0] == '\uFEFF') {
+                reader.skip(1);
+            }
+            char delimiter = CsvReader.sniffDelimiter(read > 0 ? new String(sample, 0, read) : "");
+            collector.startSheet(0, "CSV");
+            CsvReader.read(reader, delimiter, collector);
+            collector.endSheet(0);
+        } catch (Exception e) {
+            log.error("Error reading CSV file: {}", e.getMessage(), e);
+            throw new DocumentNotReadException("Error while reading study material");
+        }
+        return tabularDocument(collector, "CSV file");
+    }
+
+    private TabularTextCollector newTabularCollector() {
+        return new TabularTextCollector(maxTextChars, tabularDigestMinRows, tabularSampleRows, tabularTopValues);
+    }
+
+    private ParsedDocument tabularDocument(TabularTextCollector collector, String kind) {
+        List<String> sheets = collector.getSheets();
+        String message;
+        if (collector.isTruncated()) {
+            message = kind + " was read up to the " + maxTextChars + " character limit";
+            log.warn("{} text truncated at {} characters after {} sheets", kind, maxTextChars, sheets.size());
+        } else if (collector.isDigested()) {
+            message = kind + " was summarized into column statistics and sample rows";
+        } else {
+            message = kind + " was read successfully";
         }
+        ParsedDocument document = StudyMaterialMapper.mapToParsedDocument(
+                String.join("", sheets), sheets.size(), sheets, message);
+        document.setTruncated(collector.isTruncated());
+        return document;
     }
 
-    private ReadDocumentResponse readTextFile(MultipartFile file) {
+    private ParsedDocument readTextFile(InputStreamSource file) {
+        int linesPerPage = TEXT_LINES_PER_PAGE;
         StringBuilder content = new StringBuilder();
+        StringBuilder page = new StringBuilder();
+        List<String> pages = new ArrayList<>();
+        int linesOnPage = 0;
         try (BufferedReader reader = new BufferedReader(
                 new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
             String line;
             while ((line = reader.readLine()) != null) {
                 content.append(line).append("\n");
+                page.append(line).append("\n");
+                if (++linesOnPage == linesPerPage) {
+                    pages.add(page.toString());
+                    page.setLength(0);
+                    linesOnPage = 0;
+                }
+            }
+            if (linesOnPage > 0) {
+                pages.add(page.toString());
             }
         } catch (Exception e) {
             log.error("Error reading text file: {}", e.getMessage(), e);
             throw new DocumentNotReadException("Error while reading study material");
 
         }
-        return StudyMaterialMapper.mapToReadDocumentResponse(content.toString(), "text file was read successfully");
+        return StudyMaterialMapper.mapToParsedDocument(content.toString(), pages.size(), pages, "text file was read successfully");
+    }
+
+    /** Keeps paragraphs, each followed by a newline in the full text, until the character budget is spent. */
+    private static final class BudgetedParagraphCollector implements DocxTextExtractor.ParagraphSink {
+
+        private final List<String> paragraphs = new ArrayList<>();
+        private final StringBuilder content = new StringBuilder();
+        private final int maxChars;
+        private boolean truncated;
+
+        private BudgetedParagraphCollector(int maxChars) {
+            this.maxChars = maxChars;
+        }
+
+        @Override
+        public boolean accept(String paragraph) {
+            int remaining = maxChars - content.length();
+            if (paragraph.length() + 1 > remaining) {
+                String cut = paragraph.substring(0, Math.max(0, Math.min(paragraph.length(), remaining)));
+                paragraphs.add(cut);
+                content.append(cut);
+                truncated = true;
+                return false;
+            }
+            paragraphs.add(paragraph);
+            content.append(paragraph).append("\n");
+            return true;
+        }
+    }
+
+    /** Keeps pages until the character budget is spent, then cuts the last page and stops. */
+    private static final class BudgetedPageCollector implements PdfTextExtractor.PageSink {
+
+        private final List<String> pages = new ArrayList<>();
+        private final int maxChars;
+        private int chars;
+        private boolean truncated;
+
+        private BudgetedPageCollector(int maxChars) {
+            this.maxChars = maxChars;
+        }
+
+        @Override
+        public boolean accept(int pageNumber, String text) {
+            int remaining = maxChars - chars;
+            if (text.length() > remaining) {
+                pages.add(text.substring(0, Math.max(0, remaining)));
+                truncated = true;
+                return false;
+            }
+            pages.add(text);
+            chars += text.length();
+            return true;
+        }
     }
 }
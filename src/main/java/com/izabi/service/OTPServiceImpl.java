@@ -1,20 +1,82 @@
 package com.izabi.service;
 
-import com.izabi.data.model.OTP;
-import com.izabi.data.repository.OTPRepository;
 import com.izabi.dto.response.OTPResponse;
+import com.izabi.exception.InvalidOtpException;
 import com.izabi.exception.OTPCannotBeBlankException;
+import com.izabi.exception.OtpAttemptsExceededException;
 import com.izabi.mapper.OTPMapper;
 import com.izabi.util.OTPGenerator;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * OTPs live in Redis under {@code otp:<email>}. Their TTL is
+ * {@link OTPGenerator#OTP_VALIDITY}, so expiry needs no cleanup. Verification is
+ * one Lua script that compares the code, consumes it on a match and counts
+ * misses per email, all atomically. Two concurrent requests can therefore never
+ * both use the same code. Once an email reaches the attempt limit, its current
+ * code is dropped and verification is refused until the attempt window ends.
+ */
 @Service
-@RequiredArgsConstructor
 public class OTPServiceImpl implements OTPService {
 
-    private final OTPRepository otpRepository;
+    private static final String OTP_PREFIX = "otp:";
+    private static final String ATTEMPTS_PREFIX = "otp_attempts:";
+
+    private static final long VERIFIED = 1;
+    private static final long MISMATCH = 0;
+    private static final long MISSING = -1;
+    private static final long LOCKED = -2;
+
+    /**
+     * KEYS[1] code key, KEYS[2] attempts key; ARGV[1] submitted code, ARGV[2] max
+     * attempts, ARGV[3] attempt window in seconds. Returns 1 verified, 0 wrong code,
+     * -1 no live code, -2 too many attempts.
+     */
+    private static final RedisScript<Long> VERIFY_AND_CONSUME = new DefaultRedisScript<>("""
+            local attempts = tonumber(redis.call('GET', KEYS[2]) or '0')
+            if attempts >= tonumber(ARGV[2]) then
+              return -2
+            end
+            local stored = redis.call('GET', KEYS[1])
+            if not stored then
+              return -1
+            end
+            if stored == ARGV[1] then
+              redis.call('DEL', KEYS[1], KEYS[2])
+              return 1
+            end
+            attempts = redis.call('INCR', KEYS[2])
+            if attempts == 1 then
+              redis.call('EXPIRE', KEYS[2], ARGV[3])
+            end
+            if attempts >= tonumber(ARGV[2]) then
+              redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """, Long.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
     private final EmailService emailService;
+    private final int maxAttempts;
+    private final Duration attemptWindow;
+
+    public OTPServiceImpl(RedisTemplate<String, String> redisTemplate,
+                          EmailService emailService,
+                          @Value("${app.otp.max-attempts:5}") int maxAttempts,
+                          @Value("${app.otp.attempt-window-minutes:15}") long attemptWindowMinutes) {
+        this.redisTemplate = redisTemplate;
+        this.emailService = emailService;
+        this.maxAttempts = maxAttempts;
+        this.attemptWindow = Duration.ofMinutes(attemptWindowMinutes);
+    }
 
     @Override
     public OTPResponse sendOtp(String email) {
@@ -24,17 +86,12 @@ public class OTPServiceImpl implements OTPService {
             if (generatedOtp.isBlank()) {
                 throw new OTPCannotBeBlankException("Generated OTP cannot be null or blank");
             }
-            OTP otp = new OTP();
-            otp.setEmail(email);
-            otp.setOtp(generatedOtp);
-            otp.setExpiresAt(OTPGenerator.calculateExpiryTime());
             try {
                 emailService.sendEmail(email, generatedOtp);
             }catch (Exception e) {
                 throw new RuntimeException("Failed to send OTP email: " + e.getMessage(), e);
             }
-            otp.setUsed(true);
-            otpRepository.save(otp);
+            storeOtp(email, generatedOtp);
 
         }catch (Exception e) {
             throw new RuntimeException("Failed to send OTP: " + e.getMessage(), e);
@@ -49,56 +106,51 @@ public class OTPServiceImpl implements OTPService {
             if (generatedOtp.isBlank()) {
                 throw new OTPCannotBeBlankException("Generated OTP cannot be null or blank");
             }
-            OTP otp = new OTP();
-            otp.setEmail(email);
-            otp.setOtp(generatedOtp);
-            otp.setExpiresAt(OTPGenerator.calculateExpiryTime());
             try {
                 emailService.sendResetPasswordEmail(email, generatedOtp);
             }catch (Exception e) {
                 throw new RuntimeException("Failed to send OTP email: " + e.getMessage(), e);
             }
-            otp.setUsed(true);
-            otpRepository.save(otp);
+            storeOtp(email, generatedOtp);
 
         }catch (Exception e) {
             throw new RuntimeException("Failed to send OTP: " + e.getMessage(), e);
         }
         return OTPMapper.mapToOTPResponse(generatedOtp, "OTP sent successfully",email);
     }
+
     @Override
     public OTPResponse verifyOtp(String email, String otp) {
-        OTP otpEntity = otpRepository.findByEmailAndOtp(email, otp)
-                .orElseThrow(() -> new RuntimeException("Invalid OTP or email"));
-
-        if (otpEntity.isUsed()) {
-            throw new RuntimeException("OTP has already been used");
+        String key = normalize(email);
+        Long result = redisTemplate.execute(VERIFY_AND_CONSUME,
+                List.of(OTP_PREFIX + key, ATTEMPTS_PREFIX + key),
+                otp, String.valueOf(maxAttempts), String.valueOf(attemptWindow.toSeconds()));
+
+        long outcome = result == null ? MISSING : result;
+        if (outcome == LOCKED) {
+            throw new OtpAttemptsExceededException("Too many incorrect OTP attempts. Please try again later.");
         }
-
-        if (otpEntity.getExpiresAt().isBefore(OTPGenerator.getCurrentTime())) {
-            throw new RuntimeException("OTP has expired");
+        if (outcome == MISMATCH) {
+            throw new InvalidOtpException("Invalid OTP or email");
+        }
+        if (outcome != VERIFIED) {
+            throw new InvalidOtpException("OTP is invalid or has expired");
         }
-
-        otpEntity.setUsed(true);
-        otpRepository.save(otpEntity);
-
         return OTPMapper.mapToOTPResponse(otp, "OTP verified successfully", email);
     }
+
+    /** Drops any code still stored for {@code email}. Verified codes are already gone, so this is idempotent. */
     @Override
     public OTPResponse deleteOtp(String email, String otp) {
-        OTP otpEntity = otpRepository.findByEmailAndOtp(email, otp)
-                .orElseThrow(() -> new RuntimeException("Invalid OTP or email"));
-
-        boolean isUsed = otpEntity.isUsed();
-        boolean isExpired = otpEntity.getExpiresAt().isBefore(OTPGenerator.getCurrentTime());
-
-        if (!isUsed && !isExpired) {
-            throw new RuntimeException("OTP is still valid and unused. Cannot delete.");
-        }
-
-        otpRepository.delete(otpEntity);
-
+        redisTemplate.delete(OTP_PREFIX + normalize(email));
         return OTPMapper.mapToOTPResponse(otp, "OTP deleted successfully",email);
     }
 
+    private void storeOtp(String email, String otp) {
+        redisTemplate.opsForValue().set(OTP_PREFIX + normalize(email), otp, OTPGenerator.OTP_VALIDITY);
+    }
+
+    private static String normalize(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
 }
@@ -1,14 +1,22 @@
 package com.izabi.service;
 
+import com.izabi.dto.response.ParsedDocument;
 import com.izabi.dto.response.StudyQuestionResponse;
-import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
 
 public interface QuestionGenerationService {
-    List<StudyQuestionResponse> generateQuestionsFromFile(String fileId, MultipartFile file, int numberOfQuestions);
+    /** Asks the model for questions without storing them. The caller persists what it keeps. */
+    List<StudyQuestionResponse> generateQuestions(ParsedDocument document, int numberOfQuestions);
 
-    List<StudyQuestionResponse> findQuestions(String fileId);
+    /**
+     * Generates and stores questions owned by {@code userId}. {@code studyMaterialId} may be
+     * null when the questions are not attached to a study material.
+     */
+    List<StudyQuestionResponse> generateQuestionsFromFile(String userId, String studyMaterialId, String fileId,
+                                                          ParsedDocument document, int numberOfQuestions);
 
-    boolean deleteQuestions(String fileId);
+    List<StudyQuestionResponse> findQuestions(String userId, String fileId);
+
+    boolean deleteQuestions(String userId, String fileId);
 }
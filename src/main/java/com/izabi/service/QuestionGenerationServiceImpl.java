@@ -2,86 +2,68 @@ package com.izabi.service;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.izabi.data.model.Question;
-import com.izabi.dto.response.ReadDocumentResponse;
+import com.izabi.data.model.StudyQuestion;
+import com.izabi.dto.response.ParsedDocument;
 import com.izabi.dto.response.StudyQuestionResponse;
-import com.izabi.data.repository.QuestionRepository;
+import com.izabi.data.repository.StudyQuestionRepository;
+import com.izabi.mapper.StudyMaterialMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
 
-import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
 
+/**
+ * Generated questions live only in {@code studyQuestions}, and every question
+ * carries its owner's user id. Reads and deletes are scoped to that user. Rows in
+ * the old {@code questions} collection have no owner, so they are not read here;
+ * {@code LegacyQuestionMigration} copies them over with the owner of the matching
+ * study material.
+ */
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class QuestionGenerationServiceImpl implements QuestionGenerationService {
 
     private final AIService aiService;
-    private final FileTextExtractionService fileTextExtractionService;
-    private final QuestionRepository questionRepository;
+    private final StudyQuestionRepository studyQuestionRepository;
     private final ObjectMapper objectMapper = new ObjectMapper();
+
     @Override
-    public List<StudyQuestionResponse> generateQuestionsFromFile(String fileId, MultipartFile file, int numberOfQuestions) {
+    public List<StudyQuestionResponse> generateQuestions(ParsedDocument document, int numberOfQuestions) {
         try {
-            ReadDocumentResponse readResponse = fileTextExtractionService.navigateToProperFileExtension(file);
-            String extractedText = readResponse.getText();
-
-            String aiResponse = aiService.generateQuestions(extractedText, numberOfQuestions);
-
-            List<StudyQuestionResponse> studyQuestions = objectMapper.readValue(
-                    aiResponse,
-                    new TypeReference<>() {}
-            );
-
-            List<Question> questionEntities = studyQuestions.stream()
-                    .map(sq -> Question.builder()
-                            .fileId(fileId)
-                            .question(sq.getQuestion())
-                            .options(sq.getOptions())
-                            .answer(sq.getAnswer())
-                            .difficulty(sq.getDifficulty())
-                            .questionType(sq.getQuestionType())
-                            .build()
-                    )
-                    .collect(Collectors.toList());
-
-            questionRepository.saveAll(questionEntities);
-
-            log.info("Saved {} questions for fileId {}", questionEntities.size(), fileId);
-            return studyQuestions;
+            String aiResponse = aiService.generateQuestions(document.getText(), numberOfQuestions);
+            return objectMapper.readValue(aiResponse, new TypeReference<>() {});
         } catch (Exception e) {
-            log.error("Failed to generate questions for fileId {}: {}", fileId, e.getMessage(), e);
+            log.error("Failed to generate questions for {}: {}", document.getFileName(), e.getMessage(), e);
             throw new RuntimeException("Failed to generate questions", e);
         }
     }
 
     @Override
-    public List<StudyQuestionResponse> findQuestions(String fileId) {
-        return questionRepository.findByFileId(fileId).stream()
-                .map(q -> StudyQuestionResponse.builder()
-                        .id(q.getId())
-                        .question(q.getQuestion())
-                        .questionType(q.getQuestionType())
-                        .options(q.getOptions())
-                        .answer(q.getAnswer())
-                        .explanation(null)
-                        .topic(null)
-                        .difficulty(q.getDifficulty())
-                        .createdAt(LocalDateTime.now())
-                        .build()
-                )
-                .collect(Collectors.toList());
+    public List<StudyQuestionResponse> generateQuestionsFromFile(String userId, String studyMaterialId, String fileId,
+                                                                 ParsedDocument document, int numberOfQuestions) {
+        List<StudyQuestionResponse> studyQuestions = generateQuestions(document, numberOfQuestions);
+
+        List<StudyQuestion> questionEntities =
+                StudyMaterialMapper.mapToStudyQuestions(studyQuestions, studyMaterialId, userId, fileId);
+        studyQuestionRepository.insertAllUnordered(questionEntities);
+
+        log.info("Saved {} questions for fileId {}", questionEntities.size(), fileId);
+        return StudyMaterialMapper.mapToStudyQuestionResponses(questionEntities);
+    }
+
+    @Override
+    public List<StudyQuestionResponse> findQuestions(String userId, String fileId) {
+        return StudyMaterialMapper.mapToStudyQuestionResponses(
+                studyQuestionRepository.findByUserIdAndFileId(userId, fileId));
     }
 
     @Override
-    public boolean deleteQuestions(String fileId) {
-        if (!questionRepository.findByFileId(fileId).isEmpty()) {
-            questionRepository.deleteByFileId(fileId);
-            log.info("Deleted questions for fileId {}", fileId);
+    public boolean deleteQuestions(String userId, String fileId) {
+        long deleted = studyQuestionRepository.deleteByUserIdAndFileId(userId, fileId);
+        if (deleted > 0) {
+            log.info("Deleted {} questions for fileId {}", deleted, fileId);
             return true;
         }
         return false;
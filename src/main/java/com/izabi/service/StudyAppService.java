@@ -1,20 +1,29 @@
 package com.izabi.service;
 
+import com.izabi.dto.response.ParsedDocument;
+import com.izabi.dto.response.StudyHistoryPageResponse;
 import com.izabi.dto.response.StudyMaterialResponse;
 import com.izabi.dto.response.StudyQuestionResponse;
 import com.izabi.dto.response.SummarizedContentResponse;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface StudyAppService {
     SummarizedContentResponse summarizeFile(MultipartFile file, String userId);
 
+    ParsedDocument parseUpload(MultipartFile file, String userId);
+
+    StudyMaterialResponse streamSummary(ParsedDocument document, String userId, Consumer<String> onPartial);
+
     List<StudyQuestionResponse> generateQuestions(MultipartFile file, String userId, int numberOfQuestions);
 
     StudyMaterialResponse generateStudyMaterial(MultipartFile file, String userId, int numberOfQuestions);
 
-    List<StudyMaterialResponse> getStudyHistory(String userId);
+    StudyHistoryPageResponse getStudyHistory(String userId, String cursor, int limit);
+
+    StudyMaterialResponse getStudyMaterial(String studyMaterialId, String userId);
 
     void deleteStudyMaterial(String studyMaterialId, String userId);
 }
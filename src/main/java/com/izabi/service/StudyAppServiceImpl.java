@@ -1,7 +1,6 @@
 package com.izabi.service;
 
-import com.izabi.data.enums.Difficulty;
-import com.izabi.data.enums.QuestionType;
+import com.izabi.data.enums.ProcessingStatus;
 import com.izabi.data.model.StudyMaterial;
 import com.izabi.data.model.StudyQuestion;
 import com.izabi.data.model.User;
@@ -10,45 +9,88 @@ import com.izabi.data.repository.StudyQuestionRepository;
 import com.izabi.data.repository.UserRepository;
 import com.izabi.dto.response.*;
 import com.izabi.exception.NoFileFoundException;
+import com.izabi.exception.StudyMaterialNotReadyException;
 import com.izabi.exception.UserNotFoundException;
 import com.izabi.mapper.StudyMaterialMapper;
+import com.izabi.util.ContentDigest;
+import com.izabi.util.HistoryCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class StudyAppServiceImpl implements StudyAppService {
 
+    private static final int MAX_HISTORY_PAGE_SIZE = 100;
+
     private final FileTextExtractionService fileTextExtractionService;
     private final AIService aiService;
     private final UserRepository userRepository;
     private final QuestionGenerationService questionGenerationService;
     private final StudyMaterialRepository studyMaterialRepository;
     private final StudyQuestionRepository studyQuestionRepository;
+    private final AIOrchestrationService aiOrchestrationService;
+    private final TextNormalizationService textNormalizationService;
+    private final ContentStoreService contentStoreService;
 
     @Override
     public SummarizedContentResponse summarizeFile(MultipartFile file, String userId) {
         validateUserAndFile(file, userId);
 
-        ReadDocumentResponse extracted = fileTextExtractionService.navigateToProperFileExtension(file);
+        ParsedDocument document = parseForAI(file);
+
+        return aiService.summarizeContent(document.getText());
+    }
 
-        return aiService.summarizeContent(extracted.getText());
+    @Override
+    public ParsedDocument parseUpload(MultipartFile file, String userId) {
+        validateUserAndFile(file, userId);
+        return parseForAI(file);
+    }
+
+    @Override
+    public StudyMaterialResponse streamSummary(ParsedDocument document, String userId, Consumer<String> onPartial) {
+        SummarizedContentResponse summaryResponse = aiService.streamSummary(document.getText(), onPartial);
+
+        StudyMaterial studyMaterial = StudyMaterialMapper.mapToStudyMaterial(document, summaryResponse, null);
+        studyMaterial.setUserId(userId);
+        studyMaterial.setExtractedTextId(contentStoreService.store(document.getText()));
+        studyMaterialRepository.save(studyMaterial);
+
+        return StudyMaterialMapper.mapToStudyMaterialResponse(
+                studyMaterial.getId(),
+                studyMaterial.getFileName(),
+                summaryResponse.getSummary(),
+                studyMaterial.getKeyPoints(),
+                List.of(),
+                studyMaterial.getCreatedAt(),
+                summaryResponse.getMessage()
+        );
     }
 
     @Override
     public List<StudyQuestionResponse> generateQuestions(MultipartFile file, String userId, int numberOfQuestions) {
         validateUserAndFile(file, userId);
 
+        ParsedDocument document = parseForAI(file);
+        // Same id the content store would give the extracted text, so it matches extractedTextId.
         return questionGenerationService.generateQuestionsFromFile(
-                file.getOriginalFilename(),
-                file,
+                userId,
+                null,
+                ContentDigest.sha256Hex(document.getText()),
+                document,
                 numberOfQuestions
         );
     }
@@ -61,32 +103,22 @@ public class StudyAppServiceImpl implements StudyAppService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new UserNotFoundException("User not found"));
 
-        ReadDocumentResponse extracted = fileTextExtractionService.navigateToProperFileExtension(file);
-        AnalyzedContentResponse analysisResponse = aiService.analyzeContent(extracted.getText());
-        SummarizedContentResponse summaryResponse = aiService.summarizeContent(extracted.getText());
-
-        List<StudyQuestionResponse> generatedQuestions =
-                questionGenerationService.generateQuestionsFromFile(file.getOriginalFilename(), file, numberOfQuestions);
-
-        FileExtensionResponse fileExt = fileTextExtractionService.getFileExtension(file);
-        PageCountResponse pageCount = fileTextExtractionService.getPageCount(file);
+        ParsedDocument document = parseForAI(file);
+        GeneratedContentResponse generated = aiOrchestrationService.generateStudyContent(document, numberOfQuestions);
+        SummarizedContentResponse summaryResponse = generated.getSummary();
+        List<StudyQuestionResponse> generatedQuestions = generated.getQuestions();
 
         StudyMaterial studyMaterial = StudyMaterialMapper
-                .mapToStudyMaterial(file, fileExt, pageCount, extracted, summaryResponse, analysisResponse);
+                .mapToStudyMaterial(document, summaryResponse, generated.getAnalysis());
         studyMaterial.setUserId(user.getId());
+        studyMaterial.setExtractedTextId(contentStoreService.store(document.getText()));
         studyMaterialRepository.save(studyMaterial);
 
-        List<StudyQuestion> questionList = mapToEntities(generatedQuestions, studyMaterial.getId(), user.getId());
-        studyQuestionRepository.saveAll(questionList);
+        List<StudyQuestion> questionList = StudyMaterialMapper.mapToStudyQuestions(
+                generatedQuestions, studyMaterial.getId(), user.getId(), studyMaterial.getExtractedTextId());
+        studyQuestionRepository.insertAllUnordered(questionList);
 
-        List<QuestionResponse> questionResponses = questionList.stream()
-                .map(q -> new QuestionResponse(
-                        q.getId(),
-                        q.getQuestion(),
-                        q.getOptions(),
-                        q.getCorrectAnswer()
-                ))
-                .toList();
+        List<QuestionResponse> questionResponses = StudyMaterialMapper.mapToQuestionResponses(questionList);
 
         return StudyMaterialMapper.mapToStudyMaterialResponse(
                 studyMaterial.getId(),
@@ -95,29 +127,45 @@ public class StudyAppServiceImpl implements StudyAppService {
                 studyMaterial.getKeyPoints(),
                 questionResponses,
                 studyMaterial.getCreatedAt(),
-                "Generated Study Material"
+                generated.isPartial()
+                        ? "Generated Study Material without " + String.join(", ", generated.getFailedSteps())
+                        : "Generated Study Material"
         );
     }
 
+    /**
+     * Reads one page of history with a constant number of queries: a projected,
+     * keyset-paginated read of the materials and a single {@code $in} query for all
+     * of their questions.
+     */
     @Override
-    public List<StudyMaterialResponse> getStudyHistory(String userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new UserNotFoundException("User not found"));
+    public StudyHistoryPageResponse getStudyHistory(String userId, String cursor, int limit) {
+        if (!userRepository.existsById(userId)) {
+            throw new UserNotFoundException("User not found");
+        }
+        int pageSize = Math.max(1, Math.min(limit, MAX_HISTORY_PAGE_SIZE));
+        HistoryCursor after = cursor == null || cursor.isBlank() ? null : HistoryCursor.decode(cursor);
 
-        List<StudyMaterial> studyMaterials = studyMaterialRepository.findByUserId(user.getId());
-        List<StudyMaterialResponse> responses = new ArrayList<>();
+        List<StudyMaterial> studyMaterials = studyMaterialRepository.findHistoryPage(
+                userId,
+                after == null ? null : after.createdAt(),
+                after == null ? null : after.id(),
+                pageSize + 1);
+        boolean hasMore = studyMaterials.size() > pageSize;
+        if (hasMore) {
+            studyMaterials = studyMaterials.subList(0, pageSize);
+        }
 
-        for (StudyMaterial material : studyMaterials) {
-            List<StudyQuestion> questions = studyQuestionRepository.findByStudyMaterialId(material.getId());
+        Map<String, List<StudyQuestion>> questionsByMaterial = studyMaterials.isEmpty()
+                ? Map.of()
+                : studyQuestionRepository.findByStudyMaterialIdIn(studyMaterials.stream().map(StudyMaterial::getId).toList())
+                        .stream()
+                        .collect(Collectors.groupingBy(StudyQuestion::getStudyMaterialId));
 
-            List<QuestionResponse> questionResponses = questions.stream()
-                    .map(q -> new QuestionResponse(
-                            q.getId(),
-                            q.getQuestion(),
-                            q.getOptions(),
-                            q.getCorrectAnswer()
-                    ))
-                    .toList();
+        List<StudyMaterialResponse> responses = new ArrayList<>(studyMaterials.size());
+        for (StudyMaterial material : studyMaterials) {
+            List<QuestionResponse> questionResponses = StudyMaterialMapper.mapToQuestionResponses(
+                    questionsByMaterial.getOrDefault(material.getId(), List.of()));
 
             StudyMaterialResponse response = StudyMaterialMapper.mapToStudyMaterialResponse(
                     material.getId(),
@@ -125,14 +173,57 @@ public class StudyAppServiceImpl implements StudyAppService {
                     material.getSummary(),
                     material.getKeyPoints(),
                     questionResponses,
-                    material.getCreatedAt(),
+                    historyTime(material),
                     "History Record"
             );
 
             responses.add(response);
         }
 
-        return responses;
+        StudyMaterial last = hasMore ? studyMaterials.get(studyMaterials.size() - 1) : null;
+        return StudyHistoryPageResponse.builder()
+                .materials(responses)
+                .nextCursor(last == null ? null : new HistoryCursor(historyTime(last), last.getId()).encode())
+                .build();
+    }
+
+    /**
+     * The history sort key. Materials saved before {@code createdAt} was populated
+     * get the same value {@code StudyMaterialCreatedAtBackfill} writes for them, so
+     * a cursor issued before the backfill still lines up with the stored key.
+     */
+    private static LocalDateTime historyTime(StudyMaterial material) {
+        if (material.getCreatedAt() != null) {
+            return material.getCreatedAt();
+        }
+        if (material.getUploadDate() != null) {
+            return material.getUploadDate();
+        }
+        if (!ObjectId.isValid(material.getId())) {
+            throw new IllegalStateException("Study material " + material.getId() + " has no creation time");
+        }
+        return LocalDateTime.ofInstant(new ObjectId(material.getId()).getDate().toInstant(), ZoneId.systemDefault());
+    }
+
+    @Override
+    public StudyMaterialResponse getStudyMaterial(String studyMaterialId, String userId) {
+        StudyMaterial material = findOwnedStudyMaterial(studyMaterialId, userId);
+        if (material.getProcessingStatus() != null && material.getProcessingStatus() != ProcessingStatus.COMPLETED) {
+            throw new StudyMaterialNotReadyException("Study material is still " + material.getProcessingStatus().name().toLowerCase());
+        }
+
+        List<QuestionResponse> questionResponses = StudyMaterialMapper.mapToQuestionResponses(
+                studyQuestionRepository.findByStudyMaterialId(material.getId()));
+
+        return StudyMaterialMapper.mapToStudyMaterialResponse(
+                material.getId(),
+                material.getFileName(),
+                material.getSummary(),
+                material.getKeyPoints(),
+                questionResponses,
+                material.getCreatedAt(),
+                "Generated Study Material"
+        );
     }
 
     @Override
@@ -146,11 +237,36 @@ public class StudyAppServiceImpl implements StudyAppService {
         if (!material.getUserId().equals(user.getId())) {
             throw new IllegalArgumentException("User not authorized to delete this study material");
         }
+        ProcessingStatus status = material.getProcessingStatus();
+        if (status == ProcessingStatus.PENDING || status == ProcessingStatus.PROCESSING || status == ProcessingStatus.ANALYZING) {
+            throw new StudyMaterialNotReadyException("Study material is still " + status.name().toLowerCase() + " and cannot be deleted yet");
+        }
 
         List<StudyQuestion> questions = studyQuestionRepository.findByStudyMaterialId(material.getId());
         studyQuestionRepository.deleteAll(questions);
 
         studyMaterialRepository.delete(material);
+        releaseContent(material.getExtractedTextId());
+        releaseContent(material.getFileContentId());
+    }
+
+    private void releaseContent(String contentId) {
+        if (contentId != null) {
+            contentStoreService.release(contentId);
+        }
+    }
+
+    private StudyMaterial findOwnedStudyMaterial(String studyMaterialId, String userId) {
+        StudyMaterial material = studyMaterialRepository.findById(studyMaterialId)
+                .orElseThrow(() -> new NoFileFoundException("Study material not found"));
+        if (!material.getUserId().equals(userId)) {
+            throw new IllegalArgumentException("User not authorized to view this study material");
+        }
+        return material;
+    }
+
+    private ParsedDocument parseForAI(MultipartFile file) {
+        return textNormalizationService.normalize(fileTextExtractionService.parse(file));
     }
 
     private void validateUserAndFile(MultipartFile file, String userId) {
@@ -161,26 +277,4 @@ public class StudyAppServiceImpl implements StudyAppService {
             throw new UserNotFoundException("User not found");
         }
     }
-
-    private List<StudyQuestion> mapToEntities(List<StudyQuestionResponse> generatedQuestions,
-                                              String studyMaterialId,
-                                              String userId) {
-        List<StudyQuestion> questionList = new ArrayList<>();
-        for (StudyQuestionResponse q : generatedQuestions) {
-            StudyQuestion entity = new StudyQuestion();
-            entity.setStudyMaterialId(studyMaterialId);
-            entity.setUserId(userId);
-            entity.setQuestion(q.getQuestion());
-            entity.setOptions(q.getOptions());
-            entity.setCorrectAnswer(q.getAnswer());
-            entity.setExplanation(q.getExplanation());
-            entity.setTopic(q.getTopic());
-            entity.setDifficulty(q.getDifficulty() != null ? q.getDifficulty() : Difficulty.BEGINNER);
-            entity.setQuestionType(q.getQuestionType() != null ? q.getQuestionType() : QuestionType.MULTIPLE_CHOICE);
-            entity.setActive(true);
-            entity.setCreatedAt(LocalDateTime.now());
-            questionList.add(entity);
-        }
-        return questionList;
-    }
 }
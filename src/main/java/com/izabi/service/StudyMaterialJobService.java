@@ -0,0 +1,11 @@
+package com.izabi.service;
+
+import com.izabi.dto.response.DocumentUploadResponse;
+import com.izabi.dto.response.ProcessingStatusResponse;
+import org.springframework.web.multipart.MultipartFile;
+
+public interface StudyMaterialJobService {
+    DocumentUploadResponse submitStudyMaterialJob(MultipartFile file, String userId, int numberOfQuestions);
+
+    ProcessingStatusResponse getProcessingStatus(String studyMaterialId, String userId);
+}
@@ -0,0 +1,313 @@
+package com.izabi.service;
+
+import com.izabi.data.enums.AiAnalysisStatus;
+import com.izabi.data.enums.ProcessingStatus;
+import com.izabi.data.model.StudyMaterial;
+import com.izabi.data.model.StudyQuestion;
+import com.izabi.data.model.User;
+import com.izabi.data.repository.StudyMaterialRepository;
+import com.izabi.data.repository.StudyQuestionRepository;
+import com.izabi.data.repository.UserRepository;
+import com.izabi.dto.response.DocumentUploadResponse;
+import com.izabi.dto.response.GeneratedContentResponse;
+import com.izabi.dto.response.ParsedDocument;
+import com.izabi.dto.response.ProcessingStatusResponse;
+import com.izabi.exception.FileUploadException;
+import com.izabi.exception.NoFileFoundException;
+import com.izabi.exception.ProcessingQueueFullException;
+import com.izabi.exception.UserNotFoundException;
+import com.izabi.mapper.StudyMaterialMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Accepts an upload, stores it in a temp file and returns right away. A bounded
+ * worker pool then processes the upload and moves the {@link StudyMaterial} through
+ * PENDING, PROCESSING (text extraction), ANALYZING (AI calls) and finally COMPLETED
+ * or FAILED. Clients poll {@link #getProcessingStatus} until the material is ready.
+ * <p>
+ * While a job is queued or running, the node that owns it keeps renewing a lease
+ * on the material. Every node periodically fails in-flight jobs whose lease has
+ * run out. A job cut off by a crash or restart therefore fails within one lease
+ * period, whatever its age, and a live node's jobs are never touched because it
+ * keeps renewing them.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class StudyMaterialJobServiceImpl implements StudyMaterialJobService {
+
+    private static final double DURATION_SMOOTHING = 0.2;
+    private static final String INTERRUPTED_ERROR = "Processing was interrupted. Please upload the document again.";
+
+    private final FileTextExtractionService fileTextExtractionService;
+    private final TextNormalizationService textNormalizationService;
+    private final ContentStoreService contentStoreService;
+    private final AIOrchestrationService aiOrchestrationService;
+    private final UserRepository userRepository;
+    private final StudyMaterialRepository studyMaterialRepository;
+    private final StudyQuestionRepository studyQuestionRepository;
+    private final ThreadPoolTaskExecutor studyMaterialJobExecutor;
+
+    private final AtomicLong averageJobDurationMillis = new AtomicLong(-1);
+    private final Set<String> activeJobs = ConcurrentHashMap.newKeySet();
+    private ScheduledExecutorService leaseMaintenance;
+
+    @Value("${app.study.jobs.default-duration-seconds:60}")
+    private long defaultJobDurationSeconds;
+
+    @Value("${app.study.jobs.stale-after-minutes:30}")
+    private long staleJobMinutes;
+
+    @Value("${app.study.jobs.lease-seconds:120}")
+    private long jobLeaseSeconds;
+
+    @Override
+    public DocumentUploadResponse submitStudyMaterialJob(MultipartFile file, String userId, int numberOfQuestions) {
+        if (file == null || file.isEmpty()) {
+            throw new NoFileFoundException("File is empty");
+        }
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new UserNotFoundException("User not found"));
+        String extension = fileTextExtractionService.getFileExtension(file).getFileExtension();
+
+        Path upload = spoolUpload(file, extension);
+        StudyMaterial pending = StudyMaterialMapper.mapToPendingStudyMaterial(
+                file.getOriginalFilename(), extension, file.getSize(), user.getId());
+        pending.setLeaseUntil(nextLease());
+        StudyMaterial material = studyMaterialRepository.save(pending);
+        activeJobs.add(material.getId());
+        DocumentUploadResponse response = StudyMaterialMapper
+                .mapToDocumentUploadResponse(material, "Upload accepted, processing has started");
+
+        try {
+            studyMaterialJobExecutor.execute(() -> process(material, upload, numberOfQuestions));
+        } catch (TaskRejectedException e) {
+            log.warn("Study material job queue is full, rejecting upload {}", material.getFileName());
+            activeJobs.remove(material.getId());
+            deleteUpload(upload);
+            studyMaterialRepository.delete(material);
+            throw new ProcessingQueueFullException("Too many documents are being processed right now. Please try again shortly.");
+        }
+        return response;
+    }
+
+    @Override
+    public ProcessingStatusResponse getProcessingStatus(String studyMaterialId, String userId) {
+        StudyMaterial material = studyMaterialRepository.findById(studyMaterialId)
+                .orElseThrow(() -> new NoFileFoundException("Study material not found"));
+        if (!material.getUserId().equals(userId)) {
+            throw new IllegalArgumentException("User not authorized to view this study material");
+        }
+        return StudyMaterialMapper.mapToProcessingStatusResponse(material, estimateTimeRemaining(material));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startLeaseMaintenance() {
+        long periodSeconds = Math.max(1, jobLeaseSeconds / 3);
+        leaseMaintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "study-job-lease");
+            thread.setDaemon(true);
+            return thread;
+        });
+        leaseMaintenance.scheduleWithFixedDelay(this::maintainLeases, 0, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stopLeaseMaintenance() {
+        if (leaseMaintenance != null) {
+            leaseMaintenance.shutdownNow();
+        }
+    }
+
+    /** Renews the leases of this node's jobs, then fails jobs whose owner stopped renewing. */
+    void maintainLeases() {
+        try {
+            studyMaterialRepository.extendJobLeases(List.copyOf(activeJobs), nextLease());
+            LocalDateTime now = LocalDateTime.now();
+            long failed = studyMaterialRepository.failExpiredJobs(now, now.minusMinutes(staleJobMinutes), INTERRUPTED_ERROR);
+            if (failed > 0) {
+                log.warn("Marked {} abandoned study material jobs as failed", failed);
+            }
+        } catch (RuntimeException e) {
+            log.error("Study material job lease maintenance failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private void process(StudyMaterial material, Path upload, int numberOfQuestions) {
+        long startedAt = System.nanoTime();
+        String unrecordedTextId = null;
+        boolean questionsInserted = false;
+        try {
+            material.setProcessingStartedAt(LocalDateTime.now());
+            updateProgress(material, ProcessingStatus.PROCESSING, 10, "Extracting text");
+            ParsedDocument document = textNormalizationService.normalize(fileTextExtractionService.parse(
+                    material.getFileName(), material.getFileSize(), new FileSystemResource(upload)));
+            material.setNumberOfPages(document.getNumberOfPages());
+            unrecordedTextId = contentStoreService.store(document.getText());
+            material.setExtractedTextId(unrecordedTextId);
+
+            material.setAiAnalysisStatus(AiAnalysisStatus.IN_PROGRESS);
+            updateProgress(material, ProcessingStatus.ANALYZING, 35, "Generating summary and questions");
+            unrecordedTextId = null;
+            GeneratedContentResponse generated = aiOrchestrationService.generateStudyContent(document, numberOfQuestions);
+
+            updateProgress(material, ProcessingStatus.ANALYZING, 90, "Saving study material");
+            List<StudyQuestion> questions = StudyMaterialMapper.mapToStudyQuestions(
+                    generated.getQuestions(), material.getId(), material.getUserId(), material.getExtractedTextId());
+            questionsInserted = true;
+            studyQuestionRepository.insertAllUnordered(questions);
+
+            material.setSummary(generated.getSummary().getSummary());
+            material.setKeyPoints(StudyMaterialMapper.mapToKeyPoints(generated.getAnalysis()));
+            material.setAiAnalysisStatus(AiAnalysisStatus.COMPLETED);
+            material.setProcessingCompletedAt(LocalDateTime.now());
+            updateProgress(material, ProcessingStatus.COMPLETED, 100, generated.isPartial()
+                    ? "Completed without " + String.join(", ", generated.getFailedSteps())
+                    : "Completed");
+            long durationMillis = Duration.ofNanos(System.nanoTime() - startedAt).toMillis();
+            recordJobDuration(durationMillis);
+            log.info("Study material {} processed in {} ms", material.getId(), durationMillis);
+        } catch (StudyMaterialDeletedException e) {
+            discardResults(material, unrecordedTextId, questionsInserted);
+        } catch (Exception e) {
+            log.error("Study material job {} failed: {}", material.getId(), e.getMessage(), e);
+            material.setAiAnalysisStatus(AiAnalysisStatus.FAILED);
+            material.setProcessingError(e.getMessage());
+            material.setProcessingCompletedAt(LocalDateTime.now());
+            try {
+                updateProgress(material, ProcessingStatus.FAILED, material.getProgressPercentage(), "Failed");
+            } catch (StudyMaterialDeletedException deleted) {
+                discardResults(material, unrecordedTextId, questionsInserted);
+            } catch (Exception saveFailure) {
+                log.error("Could not record failure of study material job {}: {}", material.getId(), saveFailure.getMessage());
+            }
+        } finally {
+            activeJobs.remove(material.getId());
+            deleteUpload(upload);
+        }
+    }
+
+    /**
+     * Writes only the job's own fields, never the whole entity, and stops the job
+     * once the material is gone. A full save would upsert a material the user
+     * deleted mid-job back into existence.
+     */
+    private void updateProgress(StudyMaterial material, ProcessingStatus status, int progress, String step) {
+        material.setProcessingStatus(status);
+        material.setProgressPercentage(progress);
+        material.setCurrentStep(step);
+        boolean finished = status == ProcessingStatus.COMPLETED || status == ProcessingStatus.FAILED;
+        material.setLeaseUntil(finished ? null : nextLease());
+        if (!studyMaterialRepository.updateJobProgress(material)) {
+            throw new StudyMaterialDeletedException();
+        }
+    }
+
+    /**
+     * Cleans up after a job whose material was deleted. The delete released the text
+     * only if the job had already recorded its id, and it removed only the questions
+     * that existed at the time.
+     */
+    private void discardResults(StudyMaterial material, String unrecordedTextId, boolean questionsInserted) {
+        log.info("Study material {} was deleted while processing, discarding its results", material.getId());
+        try {
+            if (questionsInserted) {
+                studyQuestionRepository.deleteAll(studyQuestionRepository.findByStudyMaterialId(material.getId()));
+            }
+            if (unrecordedTextId != null) {
+                contentStoreService.release(unrecordedTextId);
+            }
+        } catch (RuntimeException e) {
+            log.error("Could not discard results of deleted study material {}: {}", material.getId(), e.getMessage());
+        }
+    }
+
+    private LocalDateTime nextLease() {
+        return LocalDateTime.now().plusSeconds(jobLeaseSeconds);
+    }
+
+    private String estimateTimeRemaining(StudyMaterial material) {
+        ProcessingStatus status = material.getProcessingStatus();
+        if (status == null || status == ProcessingStatus.COMPLETED || status == ProcessingStatus.FAILED) {
+            return "0 seconds";
+        }
+
+        long average = averageJobDurationMillis.get();
+        if (average < 0) {
+            average = Duration.ofSeconds(defaultJobDurationSeconds).toMillis();
+        }
+
+        long remaining;
+        if (status == ProcessingStatus.PENDING || material.getProcessingStartedAt() == null) {
+            int workers = Math.max(1, studyMaterialJobExecutor.getMaxPoolSize());
+            int queued = studyMaterialJobExecutor.getQueueSize();
+            remaining = average + average * queued / workers;
+        } else {
+            long elapsed = Duration.between(material.getProcessingStartedAt(), LocalDateTime.now()).toMillis();
+            remaining = Math.max(average - elapsed, 1000);
+        }
+        return formatDuration(remaining);
+    }
+
+    private void recordJobDuration(long durationMillis) {
+        averageJobDurationMillis.updateAndGet(previous -> previous < 0
+                ? durationMillis
+                : Math.round(previous + DURATION_SMOOTHING * (durationMillis - previous)));
+    }
+
+    private static String formatDuration(long millis) {
+        long seconds = Math.max(1, Math.round(millis / 1000.0));
+        if (seconds < 90) {
+            return "about " + seconds + " seconds";
+        }
+        return "about " + Math.round(seconds / 60.0) + " minutes";
+    }
+
+    private static Path spoolUpload(MultipartFile file, String extension) {
+        try {
+            Path upload = Files.createTempFile("study-upload-", "." + extension);
+            file.transferTo(upload);
+            return upload;
+        } catch (IOException e) {
+            throw new FileUploadException("Could not store the uploaded file: " + e.getMessage());
+        }
+    }
+
+    private static void deleteUpload(Path upload) {
+        try {
+            Files.deleteIfExists(upload);
+        } catch (IOException e) {
+            log.warn("Could not delete temporary upload {}: {}", upload, e.getMessage());
+        }
+    }
+
+    /** Raised when a job's material no longer exists, so the job stops writing results. */
+    private static final class StudyMaterialDeletedException extends RuntimeException {
+        StudyMaterialDeletedException() {
+            super("Study material was deleted while processing");
+        }
+    }
+}
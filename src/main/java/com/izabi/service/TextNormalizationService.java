@@ -0,0 +1,8 @@
+package com.izabi.service;
+
+import com.izabi.dto.response.ParsedDocument;
+
+public interface TextNormalizationService {
+
+    ParsedDocument normalize(ParsedDocument document);
+}
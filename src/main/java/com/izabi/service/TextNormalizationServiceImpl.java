@@ -0,0 +1,92 @@
+package com.izabi.service;
+
+import com.izabi.dto.response.ParsedDocument;
+import com.izabi.service.normalization.TextNormalizationStage;
+import com.izabi.util.TokenEstimator;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Runs the {@link TextNormalizationStage} beans over a parsed document before it
+ * goes to the model. Repeated headers and footers, split words, whitespace
+ * runs and empty cells are removed, so more real content fits in
+ * {@code app.ai.max-content-length}. Character and estimated token counts before
+ * and after are logged and published as {@code text.normalization.chars} and
+ * {@code text.normalization.tokens}. Characters removed per stage are published
+ * as {@code text.normalization.removed}.
+ */
+@Service
+@Slf4j
+public class TextNormalizationServiceImpl implements TextNormalizationService {
+
+    private final List<TextNormalizationStage> stages;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+
+    public TextNormalizationServiceImpl(List<TextNormalizationStage> stages,
+                                        MeterRegistry meterRegistry,
+                                        @Value("${app.text.normalization.enabled:true}") boolean enabled) {
+        this.stages = stages;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public ParsedDocument normalize(ParsedDocument document) {
+        List<String> segments = document.getSegments();
+        if (!enabled || segments == null || segments.isEmpty()) {
+            return document;
+        }
+
+        String extension = document.getFileExtension() == null ? "" : document.getFileExtension();
+        for (TextNormalizationStage stage : stages) {
+            long before = totalLength(segments);
+            segments = stage.apply(segments, extension);
+            long removed = before - totalLength(segments);
+            if (removed > 0) {
+                meterRegistry.counter("text.normalization.removed", "stage", stage.name()).increment(removed);
+            }
+        }
+
+        String originalText = document.getText() == null ? "" : document.getText();
+        String text = String.join(separator(extension), segments);
+        int tokensBefore = TokenEstimator.estimateTokens(originalText);
+        int tokensAfter = TokenEstimator.estimateTokens(text);
+        record("text.normalization.chars", originalText.length(), text.length());
+        record("text.normalization.tokens", tokensBefore, tokensAfter);
+        log.info("Normalized {}: {} -> {} chars, ~{} -> ~{} tokens",
+                document.getFileName(), originalText.length(), text.length(), tokensBefore, tokensAfter);
+
+        return document.toBuilder()
+                .text(text)
+                .segments(segments)
+                .build();
+    }
+
+    /** Rebuilds the full text the same way the extractor joined the segments for this format. */
+    private static String separator(String extension) {
+        return switch (extension) {
+            case "pdf" -> ParsedDocument.PAGE_BREAK;
+            case "docx", "doc" -> "\n";
+            default -> "";
+        };
+    }
+
+    private void record(String name, long before, long after) {
+        DistributionSummary.builder(name).tag("phase", "before").register(meterRegistry).record(before);
+        DistributionSummary.builder(name).tag("phase", "after").register(meterRegistry).record(after);
+    }
+
+    private static long totalLength(List<String> segments) {
+        long length = 0;
+        for (String segment : segments) {
+            length += segment.length();
+        }
+        return length;
+    }
+}
@@ -2,9 +2,18 @@ package com.izabi.service;
 
 import org.springframework.stereotype.Service;
 
+import java.util.Date;
+
 @Service
 public interface TokenBlacklistService {
     void blacklistToken(String token);
     void blacklistAllUserTokens(String userId);
     boolean isTokenBlacklisted(String token);
+
+    /**
+     * Per-request check: true when the token itself was revoked, or when it was
+     * issued before its user logged out of all devices. Answered from local state,
+     * and Redis is only asked to confirm a probable hit.
+     */
+    boolean isRevoked(String token, String userId, Date issuedAt);
 }
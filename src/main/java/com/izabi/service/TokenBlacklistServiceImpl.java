@@ -1,36 +1,192 @@
 package com.izabi.service;
 
-import lombok.RequiredArgsConstructor;
+import com.izabi.util.BloomFilter;
+import com.izabi.util.ContentDigest;
+import com.izabi.util.JwtUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.Cursor;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
-
+/**
+ * Token revocation that is enforced on every request without a Redis call per
+ * request. Redis stays the source of truth. Revoked tokens are stored under the
+ * SHA-256 of the token, not the token itself, and each user has a logout-all
+ * epoch. Every node keeps a Bloom filter of revoked token digests and a map of
+ * recent user epochs. Changes are published on {@link #CHANNEL}, so all nodes,
+ * including the one making the change, update their local state within
+ * milliseconds. Both structures are loaded from Redis at startup.
+ * <p>
+ * A Bloom filter miss means the token is not revoked. A hit is confirmed with
+ * Redis, and if Redis cannot answer the token is treated as revoked. Epochs are
+ * exact and need no confirmation. They are compared in whole seconds, because
+ * that is the precision of a token's issued-at claim. Once epochs are older than
+ * a token's lifetime they can no longer revoke anything, so they are pruned.
+ * <p>
+ * When the filter fills past its sized capacity it is rebuilt from Redis on a
+ * background thread, never on a logout request or the pub/sub listener. Digests
+ * added while a rebuild is scanning are recorded and replayed into the new filter.
+ */
 @Service
-@RequiredArgsConstructor
-public class TokenBlacklistServiceImpl implements TokenBlacklistService{
+@Slf4j
+public class TokenBlacklistServiceImpl implements TokenBlacklistService, MessageListener {
+
+    public static final String CHANNEL = "token_revocations";
 
-    private final RedisTemplate<String , String> redisTemplate;
-    private static final String BLACKLIST_PREFIX = "blacklisted_token:";
+    private static final String REVOKED_PREFIX = "revoked_token:";
     private static final String USER_TOKENS_PREFIX = "user_tokens:";
+    private static final String TOKEN_EVENT = "token:";
+    private static final String EPOCH_EVENT = "epoch:";
+    private static final long SCAN_BATCH = 500;
 
+    private final RedisTemplate<String, String> redisTemplate;
+    private final long expectedRevocations;
+    private final double falsePositiveRate;
+    private final Map<String, Long> userEpochs = new ConcurrentHashMap<>();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final Set<String> addedDuringRebuild = ConcurrentHashMap.newKeySet();
+    private volatile BloomFilter revokedTokens;
+
+    public TokenBlacklistServiceImpl(RedisTemplate<String, String> redisTemplate,
+                                     @Value("${app.auth.revocation.expected-tokens:100000}") long expectedRevocations,
+                                     @Value("${app.auth.revocation.false-positive-rate:0.001}") double falsePositiveRate) {
+        this.redisTemplate = redisTemplate;
+        this.expectedRevocations = expectedRevocations;
+        this.falsePositiveRate = falsePositiveRate;
+        this.revokedTokens = new BloomFilter(expectedRevocations, falsePositiveRate);
+    }
 
     @Override
     public void blacklistToken(String token) {
-        String key = BLACKLIST_PREFIX + token;
-        redisTemplate.opsForValue().set(key, "blackListed", Duration.ofHours(24));
+        String digest = ContentDigest.sha256Hex(token);
+        redisTemplate.opsForValue().set(REVOKED_PREFIX + digest, "revoked", JwtUtil.TOKEN_VALIDITY);
+        addRevokedToken(digest);
+        redisTemplate.convertAndSend(CHANNEL, TOKEN_EVENT + digest);
     }
 
     @Override
     public void blacklistAllUserTokens(String userId) {
-        String key = USER_TOKENS_PREFIX + userId;
-        redisTemplate.opsForValue().set(key, String.valueOf(System.currentTimeMillis()), Duration.ofDays(30));
+        long epoch = System.currentTimeMillis();
+        redisTemplate.opsForValue().set(USER_TOKENS_PREFIX + userId, String.valueOf(epoch), Duration.ofDays(30));
+        updateEpoch(userId, epoch);
+        redisTemplate.convertAndSend(CHANNEL, EPOCH_EVENT + epoch + ":" + userId);
     }
 
     @Override
     public boolean isTokenBlacklisted(String token) {
-        String key = BLACKLIST_PREFIX + token;
-        return Boolean.TRUE.equals(redisTemplate.hasKey(key));
+        return Boolean.TRUE.equals(redisTemplate.hasKey(REVOKED_PREFIX + ContentDigest.sha256Hex(token)));
+    }
+
+    @Override
+    public boolean isRevoked(String token, String userId, Date issuedAt) {
+        if (userId != null && issuedAt != null) {
+            Long epoch = userEpochs.get(userId);
+            if (epoch != null && issuedAt.getTime() / 1000 < epoch / 1000) {
+                return true;
+            }
+        }
+        String digest = ContentDigest.sha256Hex(token);
+        if (!revokedTokens.mightContain(digest)) {
+            return false;
+        }
+        try {
+            return Boolean.TRUE.equals(redisTemplate.hasKey(REVOKED_PREFIX + digest));
+        } catch (RuntimeException e) {
+            log.warn("Could not confirm token revocation, rejecting token: {}", e.getMessage());
+            return true;
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String event = new String(message.getBody(), StandardCharsets.UTF_8);
+        if (event.startsWith(TOKEN_EVENT)) {
+            addRevokedToken(event.substring(TOKEN_EVENT.length()));
+        } else if (event.startsWith(EPOCH_EVENT)) {
+            String[] parts = event.substring(EPOCH_EVENT.length()).split(":", 2);
+            try {
+                updateEpoch(parts[1], Long.parseLong(parts[0]));
+            } catch (RuntimeException e) {
+                log.warn("Ignoring malformed revocation event: {}", event);
+            }
+        }
+    }
+
+    /**
+     * Rebuilds local state from Redis. Runs at startup and, on a background thread,
+     * when the filter is past its sized capacity. Only one rebuild runs at a time.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadRevocations() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        // Anything added before this point was already written to Redis, so the scan sees it.
+        addedDuringRebuild.clear();
+        try {
+            List<String> revokedKeys = scan(REVOKED_PREFIX);
+            BloomFilter rebuilt = new BloomFilter(Math.max(expectedRevocations, revokedKeys.size() * 2L), falsePositiveRate);
+            for (String key : revokedKeys) {
+                rebuilt.put(key.substring(REVOKED_PREFIX.length()));
+            }
+            revokedTokens = rebuilt;
+            // Digests added during the scan may have gone into the old filter only.
+            addedDuringRebuild.forEach(rebuilt::put);
+
+            List<String> epochKeys = scan(USER_TOKENS_PREFIX);
+            List<String> epochs = epochKeys.isEmpty() ? List.of() : redisTemplate.opsForValue().multiGet(epochKeys);
+            for (int i = 0; epochs != null && i < epochKeys.size(); i++) {
+                if (epochs.get(i) != null) {
+                    updateEpoch(epochKeys.get(i).substring(USER_TOKENS_PREFIX.length()), Long.parseLong(epochs.get(i)));
+                }
+            }
+            log.info("Loaded {} revoked tokens and {} user epochs", revokedKeys.size(), userEpochs.size());
+        } catch (RuntimeException e) {
+            log.error("Could not load token revocations from Redis: {}", e.getMessage(), e);
+        } finally {
+            addedDuringRebuild.clear();
+            rebuilding.set(false);
+        }
+    }
+
+    private void addRevokedToken(String digest) {
+        if (rebuilding.get()) {
+            addedDuringRebuild.add(digest);
+        }
+        BloomFilter filter = revokedTokens;
+        filter.put(digest);
+        if (filter.isSaturated() && !rebuilding.get()) {
+            Thread.ofVirtual().name("token-revocation-rebuild").start(this::loadRevocations);
+        }
+    }
+
+    private void updateEpoch(String userId, long epoch) {
+        userEpochs.merge(userId, epoch, Math::max);
+        long horizon = System.currentTimeMillis() - JwtUtil.TOKEN_VALIDITY.toMillis();
+        userEpochs.values().removeIf(value -> value < horizon);
+    }
+
+    private List<String> scan(String prefix) {
+        List<String> keys = new ArrayList<>();
+        try (Cursor<String> cursor = redisTemplate.scan(ScanOptions.scanOptions().match(prefix + "*").count(SCAN_BATCH).build())) {
+            cursor.forEachRemaining(keys::add);
+        }
+        return keys;
     }
 }
@@ -14,8 +14,7 @@ import com.izabi.mapper.UserMapper;
 import com.izabi.util.JwtUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -25,29 +24,32 @@ import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.Optional;
+import java.util.UUID;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
 
+    private static final String INVALID_CREDENTIALS = "Invalid email or password";
+
     private final OTPService otpService;
     private final UserRepository userRepository;
     private final PendingUserRepository pendingUserRepository;
     private final JwtUtil jwtTokenUtil;
     private final PasswordEncoder passwordEncoder;
-    private final AuthenticationManager authenticationManager;
     private final CloudinaryService cloudinaryService;
     private final VoiceAuthenticationService voiceAuthenticationService;
     private final EmbeddingRepository embeddingRepository;
     private final TokenBlacklistService tokenBlacklistService;
 
+    @Value("${app.registration.pending-ttl-minutes:30}")
+    private long pendingUserTtlMinutes;
+
+    private volatile String dummyPasswordHash;
+
     @Override
     public OTPResponse sendVerificationOTP(CreateUserRequest request) {
-        Optional<User> existingUser = userRepository.findByEmail(request.getEmail());
-        if (existingUser.isPresent()) {
-            throw new AlreadyExistsException("Email Already in use");
-        }
         validateRegisterRequest(request);
         validateEmail(request.getEmail());
 
@@ -56,22 +58,22 @@ public class UserServiceImpl implements UserService {
         PendingUser pendingUser = new PendingUser();
         pendingUser.setEmail(request.getEmail());
         pendingUser.setPassword(encodedPassword);
-        pendingUser.setOtp(otpService.sendOtp(request.getEmail()).getOtp());
         pendingUser.setRole(request.getRole());
+        pendingUser.setExpiryTime(LocalDateTime.now().plusMinutes(pendingUserTtlMinutes));
 
-        pendingUserRepository.save(pendingUser);
+        pendingUserRepository.upsertByEmail(pendingUser);
+        String otp = otpService.sendOtp(request.getEmail()).getOtp();
 
-        return UserMapper.mapToOtpSentResponse( pendingUser.getOtp(),"OTP sent successfully. Please verify to complete registration.", request.getEmail());
+        return UserMapper.mapToOtpSentResponse( otp,"OTP sent successfully. Please verify to complete registration.", request.getEmail());
     }
 
     @Override
     public CreatedUserResponse register(RegisterUserRequest request) {
         PendingUser pendingUser = pendingUserRepository.findByEmail(request.getEmail())
+                .filter(UserServiceImpl::isUnexpired)
                 .orElseThrow(() -> new UserNotFoundException("User not found"));
 
-        if (!pendingUser.getOtp().equals(request.getOtp())) {
-            throw new InvalidOtpException("Invalid OTP");
-        }
+        otpService.verifyOtp(request.getEmail(), request.getOtp());
 
         User user = new User();
         user.setEmail(pendingUser.getEmail());
@@ -102,18 +104,15 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public LoginResponse login(LoginRequest loginRequest){
-        authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(
-                        loginRequest.getEmail(), loginRequest.getPassword()));
-
         Optional<User> existingUser = userRepository.findByEmail(loginRequest.getEmail());
         if (existingUser.isEmpty()) {
-            throw new UserNotFoundException("User not found with email");
+            passwordEncoder.matches(loginRequest.getPassword(), dummyPasswordHash());
+            throw new InvalidPasswordException(INVALID_CREDENTIALS);
         }
 
         User user = existingUser.get();
         if (!passwordEncoder.matches(loginRequest.getPassword(), user.getPassword())) {
-            throw new InvalidPasswordException("Invalid password");
+            throw new InvalidPasswordException(INVALID_CREDENTIALS);
         }
         if (!user.isActive()) {
             throw new IsNotActiveException("User is not active");
@@ -204,9 +203,10 @@ public class UserServiceImpl implements UserService {
             pendingUser.setEmail(request.getEmail());
             pendingUser.setVoicePrint(embedding.getVoicePrint());
             pendingUser.setPassword(generatedPassword);
-            pendingUser.setOtp(otpService.sendOtp(request.getEmail()).getOtp());
             pendingUser.setRole(Role.valueOf(request.getRole()));
-            pendingUserRepository.save(pendingUser);
+            pendingUser.setExpiryTime(LocalDateTime.now().plusMinutes(pendingUserTtlMinutes));
+            pendingUserRepository.upsertByEmail(pendingUser);
+            otpService.sendOtp(request.getEmail());
 
             return UserMapper.mapToVoiceRegistrationResponse(
                     "Voice signup initiated. Please verify OTP to complete registration.",
@@ -223,10 +223,9 @@ public class UserServiceImpl implements UserService {
     @Override
     public CreatedUserResponse completeVoiceRegistration(CompleteVoiceRegistrationRequest request) {
         PendingUser pendingUser = pendingUserRepository.findByEmail(request.getEmail())
+                .filter(UserServiceImpl::isUnexpired)
                 .orElseThrow(() -> new UserNotFoundException("pending user not found"));
-        if(!pendingUser.getOtp().equals(request.getOtp())){
-            throw new InvalidOtpException("invalid otp");
-        }
+        otpService.verifyOtp(request.getEmail(), request.getOtp());
         User user = new User();
         user.setEmail(pendingUser.getEmail());
         user.setPassword(pendingUser.getPassword());
@@ -448,6 +447,20 @@ public class UserServiceImpl implements UserService {
 
 
 
+    /**
+     * Hash checked when a login names an unknown email, so that case costs the same
+     * BCrypt work as a wrong password. It is made with the configured encoder, so its
+     * cost factor always matches real hashes.
+     */
+    private String dummyPasswordHash() {
+        String hash = dummyPasswordHash;
+        if (hash == null) {
+            hash = passwordEncoder.encode(UUID.randomUUID().toString());
+            dummyPasswordHash = hash;
+        }
+        return hash;
+    }
+
     private static Authentication getAuthentication() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
@@ -457,10 +470,19 @@ public class UserServiceImpl implements UserService {
         return authentication;
     }
 
+    /**
+     * The TTL monitor only runs about once a minute, so expiry is also checked on
+     * read. An entry without an expiry time is left over from the old signup flow
+     * and counts as expired.
+     */
+    private static boolean isUnexpired(PendingUser pendingUser) {
+        return pendingUser.getExpiryTime() != null && pendingUser.getExpiryTime().isAfter(LocalDateTime.now());
+    }
+
     private void validateEmail(String email) {
         Optional<User> foundUser = userRepository.findByEmail(email);
         if (foundUser.isPresent()) {
-            throw new AlreadyExistsException("PendingUser already registered");
+            throw new AlreadyExistsException("Email Already in use");
         }
     }
 
@@ -7,6 +7,6 @@ import java.io.IOException;
 
 public interface VoiceAuthenticationService {
     EmbeddingResponse extractVoiceFeatures(MultipartFile voiceSample) throws IOException;
-    boolean verifyVoice(MultipartFile voiceSample, String storedVoicePrint) throws IOException;
+    boolean verifyVoice(MultipartFile voiceSample, byte[] storedVoicePrint) throws IOException;
     String generateSecurePassword();
 }
@@ -5,9 +5,12 @@ import com.izabi.data.repository.EmbeddingRepository;
 import com.izabi.dto.response.EmbeddingResponse;
 import com.izabi.dto.response.PythonEmbeddingResponse;
 import com.izabi.exception.*;
+import com.izabi.util.CosineSimilarity;
 import com.izabi.util.MultipartInputStreamFileResource;
+import com.izabi.util.VoicePrints;
 import lombok.RequiredArgsConstructor;
 import com.izabi.mapper.EmbeddingMapper;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.http.*;
@@ -18,9 +21,6 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.security.SecureRandom;
 import java.time.LocalDateTime;
-import java.util.List;
-import java.util.Arrays;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -33,6 +33,7 @@ public class VoiceAuthenticationServiceImpl implements VoiceAuthenticationServic
     @Value("${voice.ml.service.url}")
     private String pythonMicroserviceUrl;
 
+    @Qualifier("voiceRestTemplate")
     private final RestTemplate restTemplate;
     private final EmbeddingRepository embeddingRepository;
 
@@ -64,7 +65,7 @@ public class VoiceAuthenticationServiceImpl implements VoiceAuthenticationServic
             }
 
             Embedding embedding = new Embedding();
-            embedding.setVoicePrint(response.getBody().getEmbedding().toString());
+            embedding.setVoicePrint(VoicePrints.pack(response.getBody().getEmbedding()));
             embedding.setCreatedAt(LocalDateTime.now());
             embedding.setId(response.getBody().getFile_id());
             embedding.setFeature_count(response.getBody().getFeature_count());
@@ -78,26 +79,25 @@ public class VoiceAuthenticationServiceImpl implements VoiceAuthenticationServic
     }
 
     @Override
-    public boolean verifyVoice(MultipartFile voiceSample, String storedVoicePrint) {
+    public boolean verifyVoice(MultipartFile voiceSample, byte[] storedVoicePrint) {
         if (voiceSample == null || voiceSample.isEmpty()) {
             throw new IllegalArgumentException("Voice sample is required.");
         }
 
-        if (storedVoicePrint == null || storedVoicePrint.isBlank()) {
+        if (storedVoicePrint == null || storedVoicePrint.length == 0) {
             throw new IllegalArgumentException("Stored voice print is invalid.");
         }
 
         EmbeddingResponse embeddingResponse = extractVoiceFeatures(voiceSample);
-        String newVoicePrintStr = embeddingResponse.getEmbedding().getVoicePrint();
 
-        List<Double> newVoiceVector = parseEmbedding(newVoicePrintStr);
-        List<Double> storedVoiceVector = parseEmbedding(storedVoicePrint);
+        float[] newVoiceVector = embeddingResponse.getEmbedding().getVoiceVector();
+        float[] storedVoiceVector = VoicePrints.unpack(storedVoicePrint);
 
-        if (newVoiceVector.size() != storedVoiceVector.size()) {
+        if (newVoiceVector.length != storedVoiceVector.length) {
             throw new VoiceDoesNotMatchException("Embedding length mismatch.");
         }
 
-        double similarity = cosineSimilarity(newVoiceVector, storedVoiceVector);
+        double similarity = CosineSimilarity.of(newVoiceVector, storedVoiceVector);
         double threshold = 0.85;
 
         if (similarity < threshold) {
@@ -115,30 +115,4 @@ public class VoiceAuthenticationServiceImpl implements VoiceAuthenticationServic
         }
         return generatedPassword.toString();
     }
-
-    private List<Double> parseEmbedding(String embedding) {
-        if (embedding == null || embedding.isBlank()) {
-            return List.of();
-        }
-
-        return Arrays.stream(embedding.split(","))
-                .map(String::trim)
-                .map(Double::parseDouble)
-                .collect(Collectors.toList());
-    }
-
-    private double cosineSimilarity(List<Double> newVoicePrint, List<Double> storedVoicePrint) {
-        double dot = 0.0;
-        double norm1 = 0.0;
-        double norm2 = 0.0;
-
-        for (int count = 0; count < newVoicePrint.size(); count++) {
-            dot += newVoicePrint.get(count) * storedVoicePrint.get(count);
-            norm1 += Math.pow(newVoicePrint.get(count), 2);
-            norm2 += Math.pow(storedVoicePrint.get(count), 2);
-        }
-
-        double denominator = Math.sqrt(norm1) * Math.sqrt(norm2);
-        return dot / denominator;
-    }
 }
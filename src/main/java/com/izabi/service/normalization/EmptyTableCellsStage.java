@@ -0,0 +1,40 @@
+package com.izabi.service.normalization;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Removes the padding that empty cells add to tabular text. Spreadsheets and CSV
+ * files are both rendered as tab-separated rows, so CSV gets the same treatment
+ * it had as comma-separated text: trailing empty fields and rows with no values
+ * are dropped. Empty cells before a value are kept, because removing them would
+ * shift the later values into the wrong columns.
+ */
+@Component
+@Order(30)
+public class EmptyTableCellsStage implements TextNormalizationStage {
+
+    private static final Pattern TRAILING_TABS = Pattern.compile("(?m)\\t+$");
+    private static final Pattern EMPTY_TAB_ROWS = Pattern.compile("(?m)^[ \\t]*\\n");
+
+    @Override
+    public String name() {
+        return "empty-table-cells";
+    }
+
+    @Override
+    public List<String> apply(List<String> segments, String fileExtension) {
+        return switch (fileExtension) {
+            case "xlsx", "xls", "csv" -> segments.stream().map(EmptyTableCellsStage::stripSheet).toList();
+            default -> segments;
+        };
+    }
+
+    private static String stripSheet(String sheet) {
+        String stripped = TRAILING_TABS.matcher(sheet).replaceAll("");
+        return EMPTY_TAB_ROWS.matcher(stripped).replaceAll("");
+    }
+}
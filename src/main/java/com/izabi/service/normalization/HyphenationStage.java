@@ -0,0 +1,27 @@
+package com.izabi.service.normalization;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+/** Rejoins words that layout split across lines with a hyphen, such as "photo-\nsynthesis". */
+@Component
+@Order(20)
+public class HyphenationStage implements TextNormalizationStage {
+
+    private static final Pattern BROKEN_WORD = Pattern.compile("(\\p{L}{2,})[-\\u00AD][ \\t]*\\r?\\n[ \\t]*(\\p{Ll})");
+
+    @Override
+    public String name() {
+        return "hyphenation";
+    }
+
+    @Override
+    public List<String> apply(List<String> segments, String fileExtension) {
+        return segments.stream()
+                .map(segment -> segment.indexOf('\n') < 0 ? segment : BROKEN_WORD.matcher(segment).replaceAll("$1$2"))
+                .toList();
+    }
+}
@@ -0,0 +1,104 @@
+package com.izabi.service.normalization;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Drops running headers, footers and page numbers from paginated text. Only the
+ * first and last few non-blank lines of each page are candidates. A line counts
+ * as a header or footer when it shows up, with digits ignored, on at least
+ * {@link #MIN_SHARE} of the pages. A bare page number in those positions is
+ * always dropped.
+ */
+@Component
+@Order(10)
+public class RepeatedPageLinesStage implements TextNormalizationStage {
+
+    private static final int EDGE_LINES = 3;
+    private static final int MIN_PAGES = 3;
+    private static final double MIN_SHARE = 0.5;
+    private static final Pattern DIGITS = Pattern.compile("\\d+");
+    private static final Pattern PAGE_NUMBER = Pattern.compile(
+            "(?i)^\\s*(page\\s*)?[-–]?\\s*\\d+\\s*[-–]?(\\s*(of|/)\\s*\\d+)?\\s*$");
+
+    @Override
+    public String name() {
+        return "repeated-page-lines";
+    }
+
+    @Override
+    public List<String> apply(List<String> segments, String fileExtension) {
+        if (!"pdf".equals(fileExtension) || segments.size() < MIN_PAGES) {
+            return segments;
+        }
+
+        List<String[]> pages = new ArrayList<>(segments.size());
+        Map<String, Integer> pagesWithLine = new HashMap<>();
+        for (String segment : segments) {
+            String[] lines = segment.split("\n", -1);
+            pages.add(lines);
+            Set<String> seenOnPage = new HashSet<>();
+            for (int index : edgeLineIndexes(lines)) {
+                String key = key(lines[index]);
+                if (!key.isEmpty() && seenOnPage.add(key)) {
+                    pagesWithLine.merge(key, 1, Integer::sum);
+                }
+            }
+        }
+
+        int threshold = Math.max(MIN_PAGES, (int) Math.ceil(segments.size() * MIN_SHARE));
+        List<String> cleaned = new ArrayList<>(segments.size());
+        for (String[] lines : pages) {
+            Set<Integer> drop = new HashSet<>();
+            for (int index : edgeLineIndexes(lines)) {
+                String line = lines[index];
+                if (PAGE_NUMBER.matcher(line).matches() || pagesWithLine.getOrDefault(key(line), 0) >= threshold) {
+                    drop.add(index);
+                }
+            }
+            if (drop.isEmpty()) {
+                cleaned.add(String.join("\n", lines));
+                continue;
+            }
+            List<String> kept = new ArrayList<>(lines.length);
+            for (int i = 0; i < lines.length; i++) {
+                if (!drop.contains(i)) {
+                    kept.add(lines[i]);
+                }
+            }
+            cleaned.add(String.join("\n", kept));
+        }
+        return cleaned;
+    }
+
+    private static List<Integer> edgeLineIndexes(String[] lines) {
+        List<Integer> indexes = new ArrayList<>(EDGE_LINES * 2);
+        for (int i = 0, found = 0; i < lines.length && found < EDGE_LINES; i++) {
+            if (!lines[i].isBlank()) {
+                indexes.add(i);
+                found++;
+            }
+        }
+        for (int i = lines.length - 1, found = 0; i >= 0 && found < EDGE_LINES; i--) {
+            if (!lines[i].isBlank()) {
+                if (!indexes.contains(i)) {
+                    indexes.add(i);
+                }
+                found++;
+            }
+        }
+        return indexes;
+    }
+
+    private static String key(String line) {
+        return DIGITS.matcher(line.strip()).replaceAll("#");
+    }
+}
@@ -0,0 +1,17 @@
+package com.izabi.service.normalization;
+
+import java.util.List;
+
+/**
+ * One step of the clean-up applied to extracted text before it is sent to the
+ * model. Stages are Spring beans run in {@link org.springframework.core.annotation.Order}
+ * order. Each stage gets the document's segments (pages, paragraphs, sheets) and
+ * returns new ones, so stages that need to compare pages can do so. To add a
+ * stage, declare another bean.
+ */
+public interface TextNormalizationStage {
+
+    String name();
+
+    List<String> apply(List<String> segments, String fileExtension);
+}
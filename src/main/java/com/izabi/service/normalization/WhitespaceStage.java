@@ -0,0 +1,42 @@
+package com.izabi.service.normalization;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Collapses whitespace runs. Non-breaking and other Unicode spaces become a plain
+ * space, runs of spaces shrink to one, trailing spaces are dropped and more than
+ * one blank line becomes a single blank line. Tabs inside a line are kept because
+ * they separate spreadsheet cells. Runs last, after the other stages have left gaps behind.
+ */
+@Component
+@Order(100)
+public class WhitespaceStage implements TextNormalizationStage {
+
+    private static final Pattern UNICODE_SPACES = Pattern.compile("[\\u00A0\\u2000-\\u200A\\u202F\\u205F\\u3000]");
+    private static final Pattern ZERO_WIDTH = Pattern.compile("[\\u200B-\\u200D\\uFEFF]");
+    private static final Pattern SPACE_RUN = Pattern.compile(" {2,}");
+    private static final Pattern TRAILING_SPACES = Pattern.compile("(?m)[ \\t]+$");
+    private static final Pattern BLANK_LINES = Pattern.compile("\\n(?:[ \\t]*\\r?\\n){2,}");
+
+    @Override
+    public String name() {
+        return "whitespace";
+    }
+
+    @Override
+    public List<String> apply(List<String> segments, String fileExtension) {
+        return segments.stream().map(WhitespaceStage::collapse).toList();
+    }
+
+    private static String collapse(String segment) {
+        String text = UNICODE_SPACES.matcher(segment).replaceAll(" ");
+        text = ZERO_WIDTH.matcher(text).replaceAll("");
+        text = SPACE_RUN.matcher(text).replaceAll(" ");
+        text = TRAILING_SPACES.matcher(text).replaceAll("");
+        return BLANK_LINES.matcher(text).replaceAll("\n\n");
+    }
+}
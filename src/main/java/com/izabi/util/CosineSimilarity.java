@@ -0,0 +1,71 @@
+package com.izabi.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Cosine similarity over {@code float[]} embeddings. When the JVM is started with
+ * {@code --add-modules jdk.incubator.vector}, it uses a SIMD kernel
+ * ({@link VectorizedCosine}) that accumulates the dot product and both norms in
+ * one pass with fused multiply-adds. Otherwise it uses a scalar loop.
+ * <p>
+ * The kernel is only reached through a method handle. That way no other class is
+ * compiled against the incubator module, which the build confines to the kernel's
+ * own compiler execution, and runtimes without the module never load it.
+ */
+public final class CosineSimilarity {
+
+    private static final MethodHandle VECTOR_KERNEL = findVectorKernel();
+
+    private CosineSimilarity() {
+    }
+
+    public static boolean isVectorized() {
+        return VECTOR_KERNEL != null;
+    }
+
+    public static double of(float[] a, float[] b) {
+        if (a.length != b.length) {
+            throw new IllegalArgumentException("Vector length mismatch: " + a.length + " vs " + b.length);
+        }
+        if (VECTOR_KERNEL == null) {
+            return scalar(a, b);
+        }
+        try {
+            return (double) VECTOR_KERNEL.invokeExact(a, b);
+        } catch (Throwable e) {
+            throw new IllegalStateException("Vector similarity kernel failed", e);
+        }
+    }
+
+    static double scalar(float[] a, float[] b) {
+        double dot = 0;
+        double normA = 0;
+        double normB = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return finish(dot, normA, normB);
+    }
+
+    static double finish(double dot, double normA, double normB) {
+        double denominator = Math.sqrt(normA) * Math.sqrt(normB);
+        return denominator == 0 ? 0 : dot / denominator;
+    }
+
+    private static MethodHandle findVectorKernel() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return null;
+        }
+        try {
+            Class<?> kernel = Class.forName("com.izabi.util.VectorizedCosine");
+            return MethodHandles.lookup().findStatic(kernel, "similarity",
+                    MethodType.methodType(double.class, float[].class, float[].class));
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.izabi.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal streaming CSV reader. It handles RFC 4180 quoting: quoted fields can
+ * contain delimiters, line breaks and doubled quotes. The delimiter is sniffed
+ * from a sample, and rows go to a {@link SpreadsheetTextExtractor.RowSink} so CSV
+ * uploads go through the same path as spreadsheets.
+ */
+public final class CsvReader {
+
+    private static final char[] CANDIDATES = {',', ';', '\t', '|'};
+    private static final int SNIFF_LINES = 20;
+
+    private CsvReader() {
+    }
+
+    /**
+     * Picks the candidate delimiter with the most consistent non-zero count per line
+     * across the first lines of {@code sample}, ignoring delimiters inside quotes.
+     * Ties go to the higher count. Defaults to a comma.
+     */
+    public static char sniffDelimiter(String sample) {
+        String[] lines = sample.split("\r?\n", SNIFF_LINES + 1);
+        int lineCount = Math.min(lines.length, SNIFF_LINES);
+        if (lines.length > SNIFF_LINES || (lineCount > 1 && !sample.endsWith("\n"))) {
+            lineCount--;
+        }
+        lineCount = Math.max(lineCount, 1);
+        char best = ',';
+        int bestConsistent = 0;
+        int bestCount = 0;
+        for (char candidate : CANDIDATES) {
+            int first = -1;
+            int consistent = 0;
+            for (int i = 0; i < lineCount; i++) {
+                int count = countOutsideQuotes(lines[i], candidate);
+                if (count == 0) {
+                    continue;
+                }
+                if (first < 0) {
+                    first = count;
+                }
+                if (count == first) {
+                    consistent++;
+                }
+            }
+            if (first > 0 && (consistent > bestConsistent || (consistent == bestConsistent && first > bestCount))) {
+                best = candidate;
+                bestConsistent = consistent;
+                bestCount = first;
+            }
+        }
+        return best;
+    }
+
+    /** Streams rows from {@code reader} into {@code sink} until the input ends or the sink stops. Returns the rows read. */
+    public static long read(Reader reader, char delimiter, SpreadsheetTextExtractor.RowSink sink) throws IOException {
+        List<String> cells = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean fieldStarted = false;
+        long rows = 0;
+        int c;
+        while ((c = reader.read()) != -1) {
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        if (next != -1) {
+                            reader.reset();
+                        }
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+                fieldStarted = true;
+            } else if (c == delimiter) {
+                cells.add(field.toString());
+                field.setLength(0);
+                fieldStarted = true;
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\r') {
+                    reader.mark(1);
+                    if (reader.read() != '\n') {
+                        reader.reset();
+                    }
+                }
+                if (fieldStarted || !field.isEmpty() || !cells.isEmpty()) {
+                    cells.add(field.toString());
+                    if (!sink.row((int) rows++, cells)) {
+                        return rows;
+                    }
+                }
+                cells.clear();
+                field.setLength(0);
+                fieldStarted = false;
+            } else {
+                field.append((char) c);
+            }
+        }
+        if (fieldStarted || !field.isEmpty() || !cells.isEmpty()) {
+            cells.add(field.toString());
+            sink.row((int) rows++, cells);
+        }
+        return rows;
+    }
+
+    private static int countOutsideQuotes(String line, char delimiter) {
+        int count = 0;
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == delimiter && !quoted) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
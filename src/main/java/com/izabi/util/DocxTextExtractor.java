@@ -0,0 +1,218 @@
+package com.izabi.util;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Reads DOCX text by streaming the main document part with StAX instead of
+ * building an {@code XWPFDocument}. The zip is opened once. Paragraph text,
+ * including paragraphs in tables and text boxes, goes to a {@link ParagraphSink}
+ * as each {@code w:p} closes, so memory is bounded by the longest paragraph.
+ * The page count is the {@code Pages} value Word stores in
+ * {@code docProps/app.xml}. When that is missing it is estimated from page breaks.
+ */
+public class DocxTextExtractor {
+
+    /** Receives paragraphs in document order. Returns false to stop extraction. */
+    @FunctionalInterface
+    public interface ParagraphSink {
+        boolean accept(String paragraph) throws IOException;
+    }
+
+    private static final String W_NS = "http://schemas.openxmlformats.org/wordprocessingml/2006/main";
+    private static final String MC_NS = "http://schemas.openxmlformats.org/markup-compatibility/2006";
+    private static final String REL_NS = "http://schemas.openxmlformats.org/package/2006/relationships";
+    private static final String OFFICE_DOCUMENT_REL = "/officeDocument";
+    private static final String DEFAULT_DOCUMENT_PART = "word/document.xml";
+    private static final String APP_PROPERTIES_PART = "docProps/app.xml";
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = createInputFactory();
+
+    private final Path tempDir;
+
+    public DocxTextExtractor(Path tempDir) {
+        this.tempDir = tempDir;
+    }
+
+    /**
+     * Streams every paragraph of {@code docx} into {@code sink} and returns the page
+     * count. If the count comes from page breaks and the sink stopped early, it only
+     * covers the part that was read.
+     */
+    public int extract(File docx, ParagraphSink sink) throws IOException {
+        try (ZipFile zip = new ZipFile(docx)) {
+            int pages = readPageCount(zip);
+            int breaks = streamDocument(zip, sink);
+            return pages > 0 ? pages : breaks + 1;
+        }
+    }
+
+    /** Page count without reading any paragraph text when {@code docProps/app.xml} has it. */
+    public int countPages(File docx) throws IOException {
+        try (ZipFile zip = new ZipFile(docx)) {
+            int pages = readPageCount(zip);
+            return pages > 0 ? pages : streamDocument(zip, null) + 1;
+        }
+    }
+
+    public Path spillToTempFile(InputStream in) throws IOException {
+        return TempFiles.spill(tempDir, "docx-extract-", ".docx", in);
+    }
+
+    private static int readPageCount(ZipFile zip) throws IOException {
+        ZipEntry entry = zip.getEntry(APP_PROPERTIES_PART);
+        if (entry == null) {
+            return 0;
+        }
+        try (InputStream in = zip.getInputStream(entry)) {
+            XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(in);
+            try {
+                while (reader.hasNext()) {
+                    if (reader.next() == XMLStreamConstants.START_ELEMENT && "Pages".equals(reader.getLocalName())) {
+                        return Integer.parseInt(reader.getElementText().trim());
+                    }
+                }
+                return 0;
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException | NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /** Main document part named by the package relationships, which is almost always word/document.xml. */
+    private static String documentPartName(ZipFile zip) throws IOException {
+        ZipEntry rels = zip.getEntry("_rels/.rels");
+        if (rels == null) {
+            return DEFAULT_DOCUMENT_PART;
+        }
+        try (InputStream in = zip.getInputStream(rels)) {
+            XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(in);
+            try {
+                while (reader.hasNext()) {
+                    if (reader.next() == XMLStreamConstants.START_ELEMENT
+                            && REL_NS.equals(reader.getNamespaceURI())
+                            && "Relationship".equals(reader.getLocalName())) {
+                        String type = reader.getAttributeValue(null, "Type");
+                        if (type != null && type.endsWith(OFFICE_DOCUMENT_REL)) {
+                            String target = reader.getAttributeValue(null, "Target");
+                            return target.startsWith("/") ? target.substring(1) : target;
+                        }
+                    }
+                }
+                return DEFAULT_DOCUMENT_PART;
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            return DEFAULT_DOCUMENT_PART;
+        }
+    }
+
+    /**
+     * Streams the main part and returns the number of page breaks seen. A null sink
+     * only counts breaks. Explicit breaks and the breaks Word recorded at its last
+     * layout usually overlap, so the larger of the two counts is used. Content under
+     * {@code mc:Fallback} is skipped, because it repeats the text of the preferred
+     * {@code mc:Choice}.
+     */
+    private static int streamDocument(ZipFile zip, ParagraphSink sink) throws IOException {
+        ZipEntry entry = zip.getEntry(documentPartName(zip));
+        if (entry == null) {
+            throw new IOException("Not a DOCX package: no main document part");
+        }
+        try (InputStream in = zip.getInputStream(entry)) {
+            XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(in);
+            try {
+                return streamParagraphs(reader, sink);
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Could not read DOCX document: " + e.getMessage(), e);
+        }
+    }
+
+    private static int streamParagraphs(XMLStreamReader reader, ParagraphSink sink) throws XMLStreamException, IOException {
+        Deque<StringBuilder> paragraphs = new ArrayDeque<>();
+        int explicitBreaks = 0;
+        int renderedBreaks = 0;
+        int fallbackDepth = 0;
+        boolean inText = false;
+
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                String ns = reader.getNamespaceURI();
+                String name = reader.getLocalName();
+                if (MC_NS.equals(ns) && "Fallback".equals(name)) {
+                    fallbackDepth++;
+                } else if (fallbackDepth > 0 || !W_NS.equals(ns)) {
+                    continue;
+                }
+                switch (name) {
+                    case "p" -> paragraphs.push(new StringBuilder());
+                    case "t" -> inText = true;
+                    case "tab" -> append(paragraphs, "\t");
+                    case "cr" -> append(paragraphs, "\n");
+                    case "br" -> {
+                        if ("page".equals(reader.getAttributeValue(W_NS, "type"))) {
+                            explicitBreaks++;
+                        } else {
+                            append(paragraphs, "\n");
+                        }
+                    }
+                    case "lastRenderedPageBreak" -> renderedBreaks++;
+                    default -> {
+                    }
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                String ns = reader.getNamespaceURI();
+                String name = reader.getLocalName();
+                if (MC_NS.equals(ns) && "Fallback".equals(name)) {
+                    fallbackDepth--;
+                } else if (fallbackDepth == 0 && W_NS.equals(ns)) {
+                    if ("t".equals(name)) {
+                        inText = false;
+                    } else if ("p".equals(name) && !paragraphs.isEmpty()) {
+                        String text = paragraphs.pop().toString();
+                        if (sink != null && !sink.accept(text)) {
+                            return Math.max(explicitBreaks, renderedBreaks);
+                        }
+                    }
+                }
+            } else if (inText && fallbackDepth == 0
+                    && (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA)) {
+                if (!paragraphs.isEmpty()) {
+                    paragraphs.peek().append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                }
+            }
+        }
+        return Math.max(explicitBreaks, renderedBreaks);
+    }
+
+    private static void append(Deque<StringBuilder> paragraphs, String text) {
+        if (!paragraphs.isEmpty()) {
+            paragraphs.peek().append(text);
+        }
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+        return factory;
+    }
+}
@@ -0,0 +1,268 @@
+package com.izabi.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Page and line counts from the bytes that hold them instead of a full parse.
+ * <p>
+ * For PDFs, the last {@code startxref} leads to the classic cross-reference table
+ * and trailer. The trailer's {@code /Root} gives the catalog, the catalog's
+ * {@code /Pages} gives the page tree root, and that root's {@code /Count} is the
+ * answer. Only those few objects are read, through a read-only memory map.
+ * Documents this cannot handle return empty so the caller can fall back to
+ * PDFBox. That covers cross-reference streams, objects in object streams,
+ * indirect counts and offsets that do not line up.
+ * <p>
+ * For text, newlines are counted eight bytes at a time, over a memory-mapped file
+ * or over buffered reads of a stream.
+ */
+public final class FastPageCounter {
+
+    private static final int TAIL_WINDOW = 2048;
+    private static final int OBJECT_WINDOW = 4096;
+    private static final int XREF_ENTRY_LENGTH = 20;
+    private static final int MAX_XREF_SECTIONS = 64;
+    private static final long MAP_CHUNK = 64L * 1024 * 1024;
+    private static final int STREAM_BUFFER = 64 * 1024;
+
+    private static final Pattern XREF_OFFSET = Pattern.compile("\\G\\s*(\\d+)");
+    private static final Pattern SUBSECTION = Pattern.compile("\\G\\s*(\\d+)\\s+(\\d+)[ \\t]*\\r?\\n?");
+    private static final Pattern ROOT = Pattern.compile("/Root\\s+(\\d+)\\s+\\d+\\s+R");
+    private static final Pattern PREV = Pattern.compile("/Prev\\s+(\\d+)");
+    private static final Pattern PAGES = Pattern.compile("/Pages\\s+(\\d+)\\s+\\d+\\s+R");
+    private static final Pattern COUNT = Pattern.compile("/Count\\s+(\\d+)(\\s+\\d+\\s+R)?");
+    private static final Pattern OBJECT_HEADER = Pattern.compile("\\A\\s*(\\d+)\\s+\\d+\\s+obj");
+
+    private static final long NEWLINES = 0x0A0A0A0A0A0A0A0AL;
+    private static final long LOW_SEVEN_BITS = 0x7F7F7F7F7F7F7F7FL;
+
+    private FastPageCounter() {
+    }
+
+    /** Page count read from the PDF trailer and page tree root, or empty when a full parse is needed. */
+    public static OptionalInt pdfPages(Path pdf) throws IOException {
+        try (FileChannel channel = FileChannel.open(pdf, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0 || size > Integer.MAX_VALUE) {
+                return OptionalInt.empty();
+            }
+            MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return pdfPages(bytes);
+        } catch (RuntimeException e) {
+            return OptionalInt.empty();
+        }
+    }
+
+    private static OptionalInt pdfPages(MappedByteBuffer bytes) {
+        OptionalLong startXref = lastStartXref(bytes);
+        if (startXref.isEmpty()) {
+            return OptionalInt.empty();
+        }
+
+        List<XrefSection> sections = new ArrayList<>();
+        Integer rootObject = null;
+        long next = startXref.getAsLong();
+        while (next >= 0 && sections.size() < MAX_XREF_SECTIONS) {
+            if (next >= bytes.limit()) {
+                return OptionalInt.empty();
+            }
+            XrefSection section = XrefSection.read(bytes, (int) next);
+            if (section == null) {
+                return OptionalInt.empty();
+            }
+            sections.add(section);
+            if (rootObject == null) {
+                Matcher root = ROOT.matcher(section.trailer());
+                if (root.find()) {
+                    rootObject = Integer.parseInt(root.group(1));
+                }
+            }
+            Matcher prev = PREV.matcher(section.trailer());
+            next = prev.find() ? Long.parseLong(prev.group(1)) : -1;
+        }
+        if (rootObject == null) {
+            return OptionalInt.empty();
+        }
+
+        String catalog = readObject(bytes, sections, rootObject);
+        Matcher pages = catalog == null ? null : PAGES.matcher(catalog);
+        if (pages == null || !pages.find()) {
+            return OptionalInt.empty();
+        }
+        String pageTree = readObject(bytes, sections, Integer.parseInt(pages.group(1)));
+        Matcher count = pageTree == null ? null : COUNT.matcher(pageTree);
+        if (count == null || !count.find() || count.group(2) != null) {
+            return OptionalInt.empty();
+        }
+        return OptionalInt.of(Integer.parseInt(count.group(1)));
+    }
+
+    private static OptionalLong lastStartXref(MappedByteBuffer bytes) {
+        int from = Math.max(0, bytes.limit() - TAIL_WINDOW);
+        String tail = ascii(bytes, from, bytes.limit() - from);
+        int keyword = tail.lastIndexOf("startxref");
+        if (keyword < 0) {
+            return OptionalLong.empty();
+        }
+        Matcher offset = XREF_OFFSET.matcher(tail);
+        if (!offset.find(keyword + "startxref".length())) {
+            return OptionalLong.empty();
+        }
+        long value = Long.parseLong(offset.group(1));
+        return value < bytes.limit() ? OptionalLong.of(value) : OptionalLong.empty();
+    }
+
+    /** Dictionary text of an uncompressed object, looked up newest section first. */
+    private static String readObject(MappedByteBuffer bytes, List<XrefSection> sections, int objectNumber) {
+        for (XrefSection section : sections) {
+            long offset = section.offsetOf(bytes, objectNumber);
+            if (offset == -2) {
+                return null;
+            }
+            if (offset >= 0) {
+                if (offset >= bytes.limit()) {
+                    return null;
+                }
+                int length = (int) Math.min(OBJECT_WINDOW, bytes.limit() - offset);
+                String text = ascii(bytes, (int) offset, length);
+                Matcher header = OBJECT_HEADER.matcher(text);
+                if (!header.find() || Integer.parseInt(header.group(1)) != objectNumber) {
+                    return null;
+                }
+                int end = text.indexOf("endobj");
+                return end < 0 ? text : text.substring(0, end);
+            }
+        }
+        return null;
+    }
+
+    private record Subsection(int firstObject, int count, int entriesAt) {
+    }
+
+    private record XrefSection(List<Subsection> subsections, String trailer) {
+
+        /** Parses a classic {@code xref} table at {@code offset}, or returns null for anything else. */
+        static XrefSection read(MappedByteBuffer bytes, int offset) {
+            if (offset < 0 || offset + 4 > bytes.limit() || !"xref".equals(ascii(bytes, offset, 4))) {
+                return null;
+            }
+            List<Subsection> subsections = new ArrayList<>();
+            int position = offset + 4;
+            while (true) {
+                int window = Math.min(64, bytes.limit() - position);
+                String head = ascii(bytes, position, window);
+                Matcher subsection = SUBSECTION.matcher(head);
+                if (!subsection.find()) {
+                    break;
+                }
+                int first = Integer.parseInt(subsection.group(1));
+                int count = Integer.parseInt(subsection.group(2));
+                int entriesAt = position + subsection.end();
+                long entriesEnd = entriesAt + (long) count * XREF_ENTRY_LENGTH;
+                if (entriesEnd > bytes.limit()) {
+                    return null;
+                }
+                subsections.add(new Subsection(first, count, entriesAt));
+                position = (int) entriesEnd;
+            }
+            int window = Math.min(OBJECT_WINDOW, bytes.limit() - position);
+            String rest = ascii(bytes, position, window);
+            int trailerAt = rest.indexOf("trailer");
+            if (trailerAt < 0 || !rest.substring(0, trailerAt).isBlank()) {
+                return null;
+            }
+            int end = rest.indexOf("startxref", trailerAt);
+            return new XrefSection(subsections, end < 0 ? rest.substring(trailerAt) : rest.substring(trailerAt, end));
+        }
+
+        /** Byte offset of an in-use object, -1 if this section has no entry for it, or -2 if the entry is unusable. */
+        long offsetOf(MappedByteBuffer bytes, int objectNumber) {
+            for (Subsection subsection : subsections) {
+                int index = objectNumber - subsection.firstObject();
+                if (index < 0 || index >= subsection.count()) {
+                    continue;
+                }
+                String entry = ascii(bytes, subsection.entriesAt() + index * XREF_ENTRY_LENGTH, XREF_ENTRY_LENGTH);
+                if (entry.charAt(10) != ' ' || entry.charAt(16) != ' ' || entry.charAt(17) != 'n') {
+                    return -2;
+                }
+                try {
+                    return Long.parseLong(entry.substring(0, 10));
+                } catch (NumberFormatException e) {
+                    return -2;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /** Number of lines as {@link java.io.BufferedReader#readLine()} would see them for LF and CRLF text. */
+    public static long countLines(Path text) throws IOException {
+        try (FileChannel channel = FileChannel.open(text, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) {
+                return 0;
+            }
+            long newlines = 0;
+            for (long position = 0; position < size; position += MAP_CHUNK) {
+                long length = Math.min(MAP_CHUNK, size - position);
+                MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                newlines += countNewlines(chunk);
+            }
+            MappedByteBuffer last = channel.map(FileChannel.MapMode.READ_ONLY, size - 1, 1);
+            return last.get(0) == '\n' ? newlines : newlines + 1;
+        }
+    }
+
+    /** Same count as {@link #countLines(Path)}, read from a stream that is not on disk. The caller closes it. */
+    public static long countLines(InputStream text) throws IOException {
+        byte[] buffer = new byte[STREAM_BUFFER];
+        long newlines = 0;
+        byte last = '\n';
+        int read;
+        while ((read = text.readNBytes(buffer, 0, buffer.length)) > 0) {
+            newlines += countNewlines(ByteBuffer.wrap(buffer, 0, read));
+            last = buffer[read - 1];
+        }
+        return last == '\n' ? newlines : newlines + 1;
+    }
+
+    /** Counts '\n' bytes a word at a time with an exact SWAR zero-byte test. */
+    private static long countNewlines(ByteBuffer chunk) {
+        chunk.order(ByteOrder.nativeOrder());
+        int limit = chunk.limit();
+        int words = limit & ~7;
+        long count = 0;
+        for (int i = 0; i < words; i += 8) {
+            long x = chunk.getLong(i) ^ NEWLINES;
+            long zeroBytes = ~(((x & LOW_SEVEN_BITS) + LOW_SEVEN_BITS) | x | LOW_SEVEN_BITS);
+            count += Long.bitCount(zeroBytes);
+        }
+        for (int i = words; i < limit; i++) {
+            if (chunk.get(i) == '\n') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static String ascii(MappedByteBuffer bytes, int offset, int length) {
+        byte[] window = new byte[length];
+        bytes.get(offset, window);
+        return new String(window, StandardCharsets.ISO_8859_1);
+    }
+}
@@ -1,34 +1,67 @@
 package com.izabi.util;
 
+import com.izabi.data.model.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 import java.security.Key;
+import java.time.Duration;
 import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 
+/**
+ * Issues and verifies access tokens. The signing key and parser are built once.
+ * Each token is parsed and its signature checked on first sight only: the
+ * verified claims are then cached under the token's SHA-256 until the token
+ * expires. The cache never holds the raw token.
+ */
 @Service
+@Slf4j
 public class JwtUtil {
 
-    @Value("${RESET_JWT_SECRET}")
-    private String SECRET_KEY;
+    public static final String ROLES_CLAIM = "roles";
+    public static final String USER_ID_CLAIM = "uid";
+
+    public static final Duration TOKEN_VALIDITY = Duration.ofHours(24);
+    private static final long TOKEN_VALIDITY_MILLIS = TOKEN_VALIDITY.toMillis();
+
+    private final Key signingKey;
+    private final JwtParser parser;
+    private final BoundedTtlCache<String, Claims> verifiedClaims;
+
+    public JwtUtil(@Value("${RESET_JWT_SECRET}") String secretKey,
+                   @Value("${app.auth.token-cache.max-entries:10000}") int maxCachedTokens) {
+        this.signingKey = Keys.hmacShaKeyFor(Base64.getDecoder().decode(secretKey));
+        this.parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        this.verifiedClaims = new BoundedTtlCache<>(maxCachedTokens, Duration.ofMillis(TOKEN_VALIDITY_MILLIS));
+    }
 
     public String extractUserName(String jwtToken) {
         return extractClaims(jwtToken, Claims::getSubject);
     }
 
     public String generateToken(UserDetails userDetails) {
-        return generateToken(new HashMap<>(), userDetails);
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(ROLES_CLAIM, userDetails.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
+        if (userDetails instanceof User user && user.getId() != null) {
+            claims.put(USER_ID_CLAIM, user.getId());
+        }
+        return generateToken(claims, userDetails);
     }
 
     public String generateToken(
@@ -40,46 +73,55 @@ public class JwtUtil {
                 .setClaims(extractClaims)
                 .setSubject(userDetails.getUsername())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 24))
-                .signWith(getSignInKey(), SignatureAlgorithm.HS256)
+                .setExpiration(new Date(System.currentTimeMillis() + TOKEN_VALIDITY_MILLIS))
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
     public boolean isValidToken(String token, UserDetails userDetails) {
-        final String username = extractUserName(token);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
+        Claims claims = verify(token);
+        return claims != null && userDetails.getUsername().equals(claims.getSubject());
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-
-    private Date extractExpiration(String token) {
-        return extractClaims(token, Claims::getExpiration);
-    }
-
-    public <T> T extractClaims(String jwtToken, Function<Claims, T> claimsResolver) {
+    /**
+     * Verified, unexpired claims of {@code token}, or null when the token is malformed,
+     * badly signed or expired. Only the first call for a token parses it.
+     */
+    public Claims verify(String token) {
+        String digest = ContentDigest.sha256Hex(token);
+        Claims claims = verifiedClaims.get(digest);
+        if (claims != null) {
+            return claims;
+        }
         try {
-            final Claims claims = extractAllClaims(jwtToken);
-            return claimsResolver.apply(claims);
-        } catch (Exception e) {
-            System.out.println("Failed to extract claims: " + e.getMessage());
-            throw new RuntimeException("Invalid token: " + e.getMessage());
+            claims = parser.parseClaimsJws(token).getBody();
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
         }
+        Date expiration = claims.getExpiration();
+        long ttlMillis = expiration == null ? TOKEN_VALIDITY_MILLIS : expiration.getTime() - System.currentTimeMillis();
+        if (ttlMillis > 0) {
+            verifiedClaims.put(digest, claims, Duration.ofMillis(ttlMillis));
+        }
+        return claims;
     }
 
-    private Claims extractAllClaims(String jwtToken) {
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getSignInKey())
-                .build()
-                .parseClaimsJws(jwtToken)
-                .getBody();
+    /** Authority names carried by the token, or null for tokens issued before roles were embedded. */
+    public static List<String> roles(Claims claims) {
+        Object roles = claims.get(ROLES_CLAIM);
+        if (!(roles instanceof List<?> values)) {
+            return null;
+        }
+        return values.stream().map(String::valueOf).toList();
     }
 
-    private Key getSignInKey() {
-        byte[] decodedKey = Base64.getDecoder().decode(SECRET_KEY);
-        return Keys.hmacShaKeyFor(decodedKey);
+    public <T> T extractClaims(String jwtToken, Function<Claims, T> claimsResolver) {
+        Claims claims = verify(jwtToken);
+        if (claims == null) {
+            log.debug("Failed to extract claims: invalid or expired token");
+            throw new RuntimeException("Invalid token");
+        }
+        return claimsResolver.apply(claims);
     }
 
     public String extractTokenFromContext() {
@@ -98,7 +140,7 @@ public class JwtUtil {
 
             return null;
         } catch (Exception e) {
-            System.out.println("Failed to extract token from context: " + e.getMessage());
+            log.warn("Failed to extract token from context: {}", e.getMessage());
             return null;
         }
     }
@@ -109,7 +151,7 @@ public class JwtUtil {
             try {
                 return extractUserName(token);
             } catch (Exception e) {
-                System.out.println("Failed to extract username from context token: " + e.getMessage());
+                log.debug("Failed to extract username from context token: {}", e.getMessage());
                 return null;
             }
         }
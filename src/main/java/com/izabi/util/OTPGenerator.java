@@ -1,18 +1,21 @@
 package com.izabi.util;
 
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Random;
 
 public class OTPGenerator {
 
+    public static final Duration OTP_VALIDITY = Duration.ofMinutes(2);
+
     public static String generateOTP() {
         Random random = new Random();
         int otp = random.nextInt(900000) + 100000;
         return String.valueOf(otp);
     }
     public static LocalDateTime calculateExpiryTime() {
-        return LocalDateTime.now().plusMinutes(2);
+        return LocalDateTime.now().plus(OTP_VALIDITY);
     }
     public static LocalDateTime getCurrentTime() {
         return LocalDateTime.now();
@@ -0,0 +1,200 @@
+package com.izabi.util;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.StringWriter;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Extracts PDF text one page at a time with bounded memory. The document is
+ * opened from a file, never from a byte array. PDFBox keeps at most
+ * {@code maxMainMemoryBytes} of its scratch buffers on the heap and spills the
+ * rest to temp files. Each page's text is handed to a {@link PageSink} as soon as
+ * it is stripped, so the extractor itself never holds more than one page of
+ * text. The sink decides what to keep and can stop early.
+ */
+public class PdfTextExtractor {
+
+    /** Receives the text of each page in order. Returns false to stop extraction. */
+    @FunctionalInterface
+    public interface PageSink {
+        boolean accept(int pageNumber, String text) throws IOException;
+    }
+
+    private final long maxMainMemoryBytes;
+    private final Path tempDir;
+
+    public PdfTextExtractor(long maxMainMemoryBytes, Path tempDir) {
+        this.maxMainMemoryBytes = maxMainMemoryBytes;
+        this.tempDir = tempDir;
+    }
+
+    /**
+     * Streams every page of {@code pdf} into {@code sink} and returns the document's
+     * page count, including pages skipped because the sink stopped early.
+     */
+    public int extract(File pdf, PageSink sink) throws IOException {
+        try (PDDocument document = load(pdf)) {
+            extractRange(document, 1, document.getNumberOfPages(), sink);
+            return document.getNumberOfPages();
+        }
+    }
+
+    /**
+     * Same result as {@link #extract(File, PageSink)}, but strips page ranges
+     * concurrently on {@code pool} and hands the pages to {@code sink} in order.
+     * <p>
+     * PDFBox documents, parsers and strippers are not thread-safe, so each task
+     * opens its own {@link PDDocument} over the same file and uses its own stripper.
+     * The only shared state is the result array, where each task writes its own
+     * slots and which is read only after the tasks have been joined, and a counter
+     * of collected characters. Once that counter passes {@code collectLimitChars},
+     * tasks stop early, so memory stays bounded when the sink only wants a prefix.
+     * If the sink still wants pages that a task skipped, the rest is stripped
+     * sequentially, so the output is always identical to a sequential run.
+     */
+    public int extractParallel(File pdf, ForkJoinPool pool, int minPagesPerTask, long collectLimitChars,
+                               PageSink sink) throws IOException {
+        int numberOfPages;
+        try (PDDocument document = load(pdf)) {
+            numberOfPages = document.getNumberOfPages();
+        }
+        int tasks = Math.min(pool.getParallelism() * 2, numberOfPages / Math.max(1, minPagesPerTask));
+        if (tasks < 2) {
+            return extract(pdf, sink);
+        }
+
+        // Tasks share the heap budget, so peak scratch memory matches a sequential run.
+        long taskMainMemoryBytes = Math.max(1, maxMainMemoryBytes / tasks);
+        String[] pages = new String[numberOfPages];
+        AtomicLong collected = new AtomicLong();
+        List<Callable<Void>> ranges = new ArrayList<>(tasks);
+        for (int task = 0; task < tasks; task++) {
+            int firstPage = (int) ((long) numberOfPages * task / tasks) + 1;
+            int lastPage = (int) ((long) numberOfPages * (task + 1) / tasks);
+            ranges.add(() -> {
+                try (PDDocument document = load(pdf, taskMainMemoryBytes)) {
+                    extractRange(document, firstPage, lastPage, (pageNumber, text) -> {
+                        pages[pageNumber - 1] = text;
+                        return collected.addAndGet(text.length()) <= collectLimitChars;
+                    });
+                }
+                return null;
+            });
+        }
+        for (Future<Void> range : pool.invokeAll(ranges)) {
+            try {
+                range.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("PDF extraction was interrupted");
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException ioException) {
+                    throw ioException;
+                }
+                throw new IOException("PDF page range extraction failed", e.getCause());
+            }
+        }
+
+        for (int i = 0; i < numberOfPages; i++) {
+            if (pages[i] == null) {
+                try (PDDocument document = load(pdf)) {
+                    extractRange(document, i + 1, numberOfPages, sink);
+                }
+                break;
+            }
+            if (!sink.accept(i + 1, pages[i])) {
+                break;
+            }
+        }
+        return numberOfPages;
+    }
+
+    public PDDocument load(File pdf) throws IOException {
+        return load(pdf, maxMainMemoryBytes);
+    }
+
+    private PDDocument load(File pdf, long mainMemoryBytes) throws IOException {
+        return PDDocument.load(pdf, memoryUsage(mainMemoryBytes));
+    }
+
+    public MemoryUsageSetting memoryUsage() {
+        return memoryUsage(maxMainMemoryBytes);
+    }
+
+    private MemoryUsageSetting memoryUsage(long mainMemoryBytes) {
+        return MemoryUsageSetting.setupMixed(mainMemoryBytes).setTempDir(tempDir.toFile());
+    }
+
+    /**
+     * Strips pages {@code firstPage..lastPage} (1-based, inclusive) of an open document
+     * into {@code sink}. Returns false if the sink asked to stop.
+     */
+    public static boolean extractRange(PDDocument document, int firstPage, int lastPage, PageSink sink) throws IOException {
+        if (firstPage > lastPage) {
+            return true;
+        }
+        StreamingStripper stripper = new StreamingStripper(sink);
+        stripper.setStartPage(firstPage);
+        stripper.setEndPage(lastPage);
+        try {
+            stripper.writeText(document, stripper.pageWriter);
+            return true;
+        } catch (StopExtraction stop) {
+            return false;
+        }
+    }
+
+    /** Copies a stream into a temp file so PDFBox can read it from disk. The caller deletes the file. */
+    public Path spillToTempFile(InputStream in) throws IOException {
+        return TempFiles.spill(tempDir, "pdf-extract-", ".pdf", in);
+    }
+
+    private static final class StopExtraction extends IOException {
+        private StopExtraction() {
+            super("Extraction stopped by page sink");
+        }
+    }
+
+    private static final class StreamingStripper extends PDFTextStripper {
+
+        private final PageSink sink;
+        private final StringWriter pageWriter = new StringWriter();
+        private int pageNumber;
+
+        private StreamingStripper(PageSink sink) throws IOException {
+            this.sink = sink;
+        }
+
+        @Override
+        protected void startPage(PDPage page) throws IOException {
+            super.startPage(page);
+            pageNumber = getCurrentPageNo();
+        }
+
+        @Override
+        protected void endPage(PDPage page) throws IOException {
+            super.endPage(page);
+            output.flush();
+            String text = pageWriter.toString();
+            pageWriter.getBuffer().setLength(0);
+            if (!sink.accept(pageNumber, text)) {
+                throw new StopExtraction();
+            }
+        }
+    }
+}
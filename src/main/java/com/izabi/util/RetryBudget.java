@@ -0,0 +1,37 @@
+package com.izabi.util;
+
+/**
+ * Token bucket that limits retries to a fraction of first attempts across the
+ * whole service. Every first attempt deposits {@code retryRatio} tokens, up to
+ * {@code maxTokens}, and every retry withdraws one. When an upstream is failing,
+ * retries quickly use up the bucket, so the service stops adding retry traffic
+ * to an upstream that is already overloaded.
+ */
+public class RetryBudget {
+
+    private final double retryRatio;
+    private final double maxTokens;
+    private double tokens;
+
+    public RetryBudget(double retryRatio, double maxTokens) {
+        this.retryRatio = retryRatio;
+        this.maxTokens = maxTokens;
+        this.tokens = maxTokens;
+    }
+
+    public synchronized void recordAttempt() {
+        tokens = Math.min(maxTokens, tokens + retryRatio);
+    }
+
+    public synchronized boolean tryWithdraw() {
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+
+    public synchronized double available() {
+        return tokens;
+    }
+}
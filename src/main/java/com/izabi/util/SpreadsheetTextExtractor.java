@@ -0,0 +1,354 @@
+package com.izabi.util;
+
+import org.apache.poi.hssf.eventusermodel.AbortableHSSFListener;
+import org.apache.poi.hssf.eventusermodel.FormatTrackingHSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFEventFactory;
+import org.apache.poi.hssf.eventusermodel.HSSFRequest;
+import org.apache.poi.hssf.eventusermodel.HSSFUserException;
+import org.apache.poi.hssf.record.BOFRecord;
+import org.apache.poi.hssf.record.BoolErrRecord;
+import org.apache.poi.hssf.record.BoundSheetRecord;
+import org.apache.poi.hssf.record.CellValueRecordInterface;
+import org.apache.poi.hssf.record.EOFRecord;
+import org.apache.poi.hssf.record.FormulaRecord;
+import org.apache.poi.hssf.record.LabelRecord;
+import org.apache.poi.hssf.record.LabelSSTRecord;
+import org.apache.poi.hssf.record.NumberRecord;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.record.SSTRecord;
+import org.apache.poi.hssf.record.StringRecord;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.poifs.filesystem.FileMagic;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams spreadsheet rows with POI's event APIs instead of the workbook user
+ * model. XLSX sheets are parsed with SAX through {@link XSSFReader}, and strings
+ * are resolved from a read-only shared-strings table. XLS workbooks are read
+ * record by record through {@link HSSFEventFactory}. No cell objects are built,
+ * so heap use depends on the widest row and the shared-strings table, not on
+ * the number of rows. The format is chosen from the file's magic bytes, so an
+ * .xls upload that is really OOXML is still read.
+ */
+public class SpreadsheetTextExtractor {
+
+    /** Receives rows in sheet order. {@link #row} returns false to stop extraction. */
+    @FunctionalInterface
+    public interface RowSink {
+        default void startSheet(int sheetIndex, String sheetName) throws IOException {
+        }
+
+        boolean row(int rowNumber, List<String> cells) throws IOException;
+
+        default void endSheet(int sheetIndex) throws IOException {
+        }
+    }
+
+    private final Path tempDir;
+
+    public SpreadsheetTextExtractor(Path tempDir) {
+        this.tempDir = tempDir;
+    }
+
+    /** Streams every row of {@code workbook} into {@code sink} and returns the number of sheets started. */
+    public int extract(File workbook, RowSink sink) throws IOException {
+        FileMagic magic = FileMagic.valueOf(workbook);
+        return switch (magic) {
+            case OOXML -> extractXlsx(workbook, sink);
+            case OLE2 -> extractXls(workbook, sink);
+            default -> throw new IOException("Not a spreadsheet: " + magic);
+        };
+    }
+
+    /** Reads the sheet count from workbook metadata without touching any cells. */
+    public int countSheets(File workbook) throws IOException {
+        FileMagic magic = FileMagic.valueOf(workbook);
+        return switch (magic) {
+            case OOXML -> countXlsxSheets(workbook);
+            case OLE2 -> countXlsSheets(workbook);
+            default -> throw new IOException("Not a spreadsheet: " + magic);
+        };
+    }
+
+    public Path spillToTempFile(InputStream in, String extension) throws IOException {
+        return TempFiles.spill(tempDir, "sheet-extract-", "." + extension, in);
+    }
+
+    private int extractXlsx(File workbook, RowSink sink) throws IOException {
+        try (OPCPackage pkg = OPCPackage.open(workbook, PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg, false);
+            StylesTable styles = reader.getStylesTable();
+            DataFormatter formatter = new DataFormatter();
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+
+            int sheetIndex = 0;
+            while (sheets.hasNext()) {
+                try (InputStream sheet = sheets.next()) {
+                    sink.startSheet(sheetIndex, sheets.getSheetName());
+                    XlsxRowHandler rows = new XlsxRowHandler(sink);
+                    XMLReader parser = XMLHelper.newXMLReader();
+                    parser.setContentHandler(new XSSFSheetXMLHandler(styles, strings, rows, formatter, false));
+                    parser.parse(new InputSource(sheet));
+                    sink.endSheet(sheetIndex);
+                } catch (StopExtraction stop) {
+                    sink.endSheet(sheetIndex);
+                    return sheetIndex + 1;
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+                sheetIndex++;
+            }
+            return sheetIndex;
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException("Could not read XLSX workbook: " + e.getMessage(), e);
+        }
+    }
+
+    private int countXlsxSheets(File workbook) throws IOException {
+        try (OPCPackage pkg = OPCPackage.open(workbook, PackageAccess.READ);
+             InputStream workbookXml = new XSSFReader(pkg).getWorkbookData()) {
+            int[] sheets = new int[1];
+            XMLReader parser = XMLHelper.newXMLReader();
+            parser.setContentHandler(new DefaultHandler() {
+                @Override
+                public void startElement(String uri, String localName, String qName, Attributes attributes) {
+                    if ("sheet".equals(localName)) {
+                        sheets[0]++;
+                    }
+                }
+            });
+            parser.parse(new InputSource(workbookXml));
+            return sheets[0];
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException("Could not read XLSX workbook: " + e.getMessage(), e);
+        }
+    }
+
+    private int extractXls(File workbook, RowSink sink) throws IOException {
+        try (POIFSFileSystem fs = new POIFSFileSystem(workbook, true)) {
+            XlsRecordHandler handler = new XlsRecordHandler(sink);
+            HSSFRequest request = new HSSFRequest();
+            request.addListenerForAllRecords(handler);
+            try {
+                new HSSFEventFactory().abortableProcessWorkbookEvents(request, fs);
+            } catch (HSSFUserException e) {
+                if (e.getCause() instanceof IOException ioException) {
+                    throw ioException;
+                }
+                throw new IOException("Could not read XLS workbook: " + e.getMessage(), e);
+            }
+            return handler.sheetsStarted;
+        }
+    }
+
+    private int countXlsSheets(File workbook) throws IOException {
+        try (POIFSFileSystem fs = new POIFSFileSystem(workbook, true)) {
+            int[] sheets = new int[1];
+            HSSFRequest request = new HSSFRequest();
+            // Sheet declarations all sit in the workbook globals, so stop at the first worksheet.
+            request.addListenerForAllRecords(new AbortableHSSFListener() {
+                @Override
+                public short abortableProcessRecord(Record record) {
+                    if (record instanceof BoundSheetRecord) {
+                        sheets[0]++;
+                    } else if (record instanceof BOFRecord bof && bof.getType() == BOFRecord.TYPE_WORKSHEET) {
+                        return 1;
+                    }
+                    return 0;
+                }
+            });
+            try {
+                new HSSFEventFactory().abortableProcessWorkbookEvents(request, fs);
+            } catch (HSSFUserException e) {
+                throw new IOException("Could not read XLS workbook: " + e.getMessage(), e);
+            }
+            return sheets[0];
+        }
+    }
+
+    /**
+     * Puts {@code value} at {@code column}, padding skipped columns with empty
+     * strings. Both event APIs leave blank cells out, so appending would shift
+     * every later cell of the row to the left.
+     */
+    private static void putCell(List<String> cells, int column, String value) {
+        while (cells.size() < column) {
+            cells.add("");
+        }
+        if (column < cells.size()) {
+            cells.set(column, value);
+        } else {
+            cells.add(value);
+        }
+    }
+
+    /** Thrown through the SAX parser to stop reading once the sink has enough rows. */
+    private static final class StopExtraction extends RuntimeException {
+        private StopExtraction() {
+            super("Extraction stopped by row sink", null, false, false);
+        }
+    }
+
+    private static final class XlsxRowHandler implements XSSFSheetXMLHandler.SheetContentsHandler {
+
+        private final RowSink sink;
+        private final List<String> cells = new ArrayList<>();
+
+        private XlsxRowHandler(RowSink sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            cells.clear();
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            try {
+                if (!sink.row(rowNum, cells)) {
+                    throw new StopExtraction();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int column = cellReference == null ? cells.size() : new CellReference(cellReference).getCol();
+            putCell(cells, column, formattedValue);
+        }
+    }
+
+    /**
+     * Turns the HSSF record stream into rows. Cell records arrive in row order
+     * within each sheet, so a row is complete when a cell for another row or the
+     * sheet's EOF record shows up.
+     */
+    private static final class XlsRecordHandler extends AbortableHSSFListener {
+
+        private final RowSink sink;
+        private final FormatTrackingHSSFListener formats = new FormatTrackingHSSFListener(record -> { });
+        private final List<String> sheetNames = new ArrayList<>();
+        private final List<String> cells = new ArrayList<>();
+        private SSTRecord sharedStrings;
+        private int sheetsStarted;
+        private boolean inSheet;
+        private int currentRow = -1;
+        private int formulaResultColumn = -1;
+
+        private XlsRecordHandler(RowSink sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public short abortableProcessRecord(Record record) throws HSSFUserException {
+            formats.processRecordInternally(record);
+            try {
+                return handle(record) ? 0 : (short) 1;
+            } catch (IOException e) {
+                throw new HSSFUserException(e);
+            }
+        }
+
+        private boolean handle(Record record) throws IOException {
+            if (record instanceof BoundSheetRecord sheet) {
+                sheetNames.add(sheet.getSheetname());
+            } else if (record instanceof SSTRecord sst) {
+                sharedStrings = sst;
+            } else if (record instanceof BOFRecord bof && bof.getType() == BOFRecord.TYPE_WORKSHEET) {
+                int index = sheetsStarted++;
+                inSheet = true;
+                currentRow = -1;
+                sink.startSheet(index, index < sheetNames.size() ? sheetNames.get(index) : "Sheet" + (index + 1));
+            } else if (record instanceof EOFRecord && inSheet) {
+                inSheet = false;
+                boolean keepGoing = flushRow();
+                sink.endSheet(sheetsStarted - 1);
+                return keepGoing;
+            } else if (inSheet && record instanceof StringRecord string && formulaResultColumn >= 0) {
+                putCell(cells, formulaResultColumn, string.getString());
+                formulaResultColumn = -1;
+            } else if (inSheet && record instanceof CellValueRecordInterface cell) {
+                if (cell.getRow() != currentRow) {
+                    if (!flushRow()) {
+                        sink.endSheet(sheetsStarted - 1);
+                        return false;
+                    }
+                    currentRow = cell.getRow();
+                }
+                String value = cellText(record, cell.getColumn());
+                if (value != null) {
+                    putCell(cells, cell.getColumn(), value);
+                }
+            }
+            return true;
+        }
+
+        private String cellText(Record record, int column) {
+            if (record instanceof LabelSSTRecord label) {
+                return sharedStrings == null ? "" : sharedStrings.getString(label.getSSTIndex()).getString();
+            }
+            if (record instanceof LabelRecord label) {
+                return label.getValue();
+            }
+            if (record instanceof NumberRecord number) {
+                return formats.formatNumberDateCell(number);
+            }
+            if (record instanceof BoolErrRecord boolErr) {
+                return boolErr.isBoolean() ? Boolean.toString(boolErr.getBooleanValue()).toUpperCase() : null;
+            }
+            if (record instanceof FormulaRecord formula) {
+                int resultType = formula.getCachedResultType();
+                if (resultType == CellType.STRING.getCode()) {
+                    formulaResultColumn = column;
+                    return null;
+                }
+                if (resultType == CellType.BOOLEAN.getCode()) {
+                    return Boolean.toString(formula.getCachedBooleanValue()).toUpperCase();
+                }
+                if (resultType == CellType.NUMERIC.getCode()) {
+                    return formats.formatNumberDateCell(formula);
+                }
+            }
+            return null;
+        }
+
+        private boolean flushRow() throws IOException {
+            if (currentRow < 0) {
+                return true;
+            }
+            boolean keepGoing = sink.row(currentRow, cells);
+            cells.clear();
+            currentRow = -1;
+            return keepGoing;
+        }
+    }
+}
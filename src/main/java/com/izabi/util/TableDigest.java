@@ -0,0 +1,262 @@
+package com.izabi.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Single-pass summary of a table for prompts that cannot hold every row. Rows are
+ * streamed through {@link #add(List)}. For each column it keeps an inferred type,
+ * value and empty counts, and min, max, mean and standard deviation via Welford's
+ * algorithm. It also counts distinct values up to {@link #DISTINCT_CAP} and keeps
+ * approximate top values with Misra-Gries counters. Separately it keeps a uniform
+ * sample of rows through reservoir sampling. Memory depends on the column count
+ * and the configured sizes, not on the row count.
+ * <p>
+ * The first row is used as the header when it has no numeric cells.
+ */
+public class TableDigest {
+
+    private static final int DISTINCT_CAP = 2_000;
+    private static final int MAX_CELL_CHARS = 60;
+    private static final Pattern NUMBER = Pattern.compile("-?[$€£]?\\d+(\\.\\d+)?([eE][-+]?\\d+)?%?");
+    private static final Pattern GROUPED_NUMBER = Pattern.compile("-?[$€£]?\\d{1,3}(,\\d{3})+(\\.\\d+)?%?");
+    private static final Pattern DATE = Pattern.compile("\\d{4}-\\d{1,2}-\\d{1,2}([ T].*)?|\\d{1,2}[/.-]\\d{1,2}[/.-]\\d{2,4}");
+    private static final Set<String> BOOLEANS = Set.of("true", "false", "yes", "no");
+
+    private final int sampleSize;
+    private final int topValues;
+    private final Random random;
+    private final List<Column> columns = new ArrayList<>();
+    private final List<List<String>> sample = new ArrayList<>();
+    private List<String> header;
+    private long rows;
+
+    public TableDigest(int sampleSize, int topValues, long seed) {
+        this.sampleSize = sampleSize;
+        this.topValues = topValues;
+        this.random = new Random(seed);
+    }
+
+    public void add(List<String> cells) {
+        if (header == null && rows == 0 && columns.isEmpty() && looksLikeHeader(cells)) {
+            header = copy(cells);
+            return;
+        }
+        rows++;
+        for (int i = 0; i < cells.size(); i++) {
+            while (columns.size() <= i) {
+                columns.add(new Column(topValues));
+            }
+            columns.get(i).add(cells.get(i));
+        }
+        for (int i = cells.size(); i < columns.size(); i++) {
+            columns.get(i).add("");
+        }
+        if (sample.size() < sampleSize) {
+            sample.add(copy(cells));
+        } else if (sampleSize > 0) {
+            long slot = (long) (random.nextDouble() * rows);
+            if (slot < sampleSize) {
+                sample.set((int) slot, copy(cells));
+            }
+        }
+    }
+
+    public long rowCount() {
+        return rows;
+    }
+
+    public String render(String tableName) {
+        StringBuilder out = new StringBuilder();
+        out.append("Table \"").append(tableName).append("\": ")
+                .append(rows).append(" rows x ").append(columns.size()).append(" columns\n");
+        out.append("Columns:\n");
+        for (int i = 0; i < columns.size(); i++) {
+            out.append("- ").append(columnName(i)).append(' ');
+            columns.get(i).render(out);
+            out.append('\n');
+        }
+        if (!sample.isEmpty()) {
+            out.append("Sample rows (").append(sample.size()).append(" of ").append(rows).append("):\n");
+            List<String> names = new ArrayList<>(columns.size());
+            for (int i = 0; i < columns.size(); i++) {
+                names.add(columnName(i));
+            }
+            out.append(String.join(" | ", names)).append('\n');
+            for (List<String> row : sample) {
+                List<String> cells = new ArrayList<>(row.size());
+                for (String cell : row) {
+                    cells.add(clip(cell));
+                }
+                out.append(String.join(" | ", cells)).append('\n');
+            }
+        }
+        return out.toString();
+    }
+
+    private String columnName(int index) {
+        if (header != null && index < header.size() && !header.get(index).isBlank()) {
+            return clip(header.get(index).strip());
+        }
+        return "Column " + (index + 1);
+    }
+
+    private static List<String> copy(List<String> cells) {
+        List<String> copy = new ArrayList<>(cells.size());
+        for (String cell : cells) {
+            copy.add(cell == null ? "" : cell);
+        }
+        return copy;
+    }
+
+    private static boolean looksLikeHeader(List<String> cells) {
+        boolean anyValue = false;
+        for (String cell : cells) {
+            if (cell == null || cell.isBlank()) {
+                continue;
+            }
+            if (parseNumber(cell.strip()) != null) {
+                return false;
+            }
+            anyValue = true;
+        }
+        return anyValue;
+    }
+
+    private static Double parseNumber(String value) {
+        if (NUMBER.matcher(value).matches()) {
+            return Double.parseDouble(value.replaceAll("[$€£%]", ""));
+        }
+        if (GROUPED_NUMBER.matcher(value).matches()) {
+            return Double.parseDouble(value.replaceAll("[$€£%,]", ""));
+        }
+        return null;
+    }
+
+    private static String clip(String value) {
+        return value.length() <= MAX_CELL_CHARS ? value : value.substring(0, MAX_CELL_CHARS - 1) + "…";
+    }
+
+    private static String format(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return String.format(Locale.ROOT, "%.4g", value);
+    }
+
+    private static final class Column {
+
+        private final int topValues;
+        private final Map<String, Long> heavyHitters = new HashMap<>();
+        private final Set<String> distinct = new HashSet<>();
+        private boolean distinctOverflow;
+        private long values;
+        private long empty;
+        private long numbers;
+        private long dates;
+        private long booleans;
+        private double mean;
+        private double m2;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+
+        private Column(int topValues) {
+            this.topValues = topValues;
+        }
+
+        void add(String raw) {
+            String value = raw == null ? "" : raw.strip();
+            if (value.isEmpty()) {
+                empty++;
+                return;
+            }
+            values++;
+            Double number = parseNumber(value);
+            if (number != null) {
+                numbers++;
+                double delta = number - mean;
+                mean += delta / numbers;
+                m2 += delta * (number - mean);
+                min = Math.min(min, number);
+                max = Math.max(max, number);
+            } else if (DATE.matcher(value).matches()) {
+                dates++;
+            } else if (BOOLEANS.contains(value.toLowerCase())) {
+                booleans++;
+            }
+            if (!distinctOverflow) {
+                distinct.add(value);
+                if (distinct.size() > DISTINCT_CAP) {
+                    distinctOverflow = true;
+                    distinct.clear();
+                }
+            }
+            countHeavyHitter(value);
+        }
+
+        /** Misra-Gries: at most {@code 2 * topValues} counters, all decremented when a new value finds no free slot. */
+        private void countHeavyHitter(String value) {
+            Long count = heavyHitters.get(value);
+            if (count != null) {
+                heavyHitters.put(value, count + 1);
+            } else if (heavyHitters.size() < topValues * 2) {
+                heavyHitters.put(value, 1L);
+            } else {
+                heavyHitters.replaceAll((key, current) -> current - 1);
+                heavyHitters.values().removeIf(current -> current <= 0);
+            }
+        }
+
+        private String type() {
+            if (values == 0) {
+                return "empty";
+            }
+            if (numbers * 10 >= values * 9) {
+                return "number";
+            }
+            if (dates * 10 >= values * 9) {
+                return "date";
+            }
+            if (booleans * 10 >= values * 9) {
+                return "boolean";
+            }
+            return numbers + dates + booleans > 0 ? "mixed" : "text";
+        }
+
+        void render(StringBuilder out) {
+            out.append('(').append(type()).append("): ").append(values).append(" values");
+            if (empty > 0) {
+                out.append(", ").append(empty).append(" empty");
+            }
+            out.append(", ").append(distinctOverflow ? DISTINCT_CAP + "+" : Integer.toString(distinct.size())).append(" distinct");
+            if (numbers > 0) {
+                double stdDev = numbers > 1 ? Math.sqrt(m2 / (numbers - 1)) : 0;
+                out.append(", min ").append(format(min))
+                        .append(", max ").append(format(max))
+                        .append(", mean ").append(format(mean))
+                        .append(", sd ").append(format(stdDev));
+            }
+            if (!"number".equals(type()) && !heavyHitters.isEmpty()) {
+                List<Map.Entry<String, Long>> top = new ArrayList<>(heavyHitters.entrySet());
+                top.removeIf(entry -> entry.getValue() < 2);
+                top.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+                if (top.isEmpty()) {
+                    return;
+                }
+                out.append(", top:");
+                for (int i = 0; i < Math.min(topValues, top.size()); i++) {
+                    Map.Entry<String, Long> entry = top.get(i);
+                    out.append(i == 0 ? " " : ", ").append(clip(entry.getKey()))
+                            .append(" (").append(entry.getValue()).append(')');
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.izabi.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Turns streamed table rows into one text segment per sheet. Small sheets are
+ * kept in full as tab-separated rows. When a sheet grows past
+ * {@code digestMinRows}, or its full text would overflow the character budget,
+ * the full text is dropped and the sheet is represented by its
+ * {@link TableDigest}. The digest is built from every row in the same pass,
+ * so large data uploads are summarized from the whole dataset instead of being
+ * cut off.
+ */
+public class TabularTextCollector implements SpreadsheetTextExtractor.RowSink {
+
+    private final List<String> sheets = new ArrayList<>();
+    private final StringBuilder sheet = new StringBuilder();
+    private final int maxChars;
+    private final int digestMinRows;
+    private final int sampleRows;
+    private final int topValues;
+    private TableDigest digest;
+    private String sheetName;
+    private int rows;
+    private int chars;
+    private boolean digestMode;
+    private boolean digested;
+    private boolean truncated;
+
+    public TabularTextCollector(int maxChars, int digestMinRows, int sampleRows, int topValues) {
+        this.maxChars = maxChars;
+        this.digestMinRows = digestMinRows;
+        this.sampleRows = sampleRows;
+        this.topValues = topValues;
+    }
+
+    @Override
+    public void startSheet(int sheetIndex, String sheetName) {
+        this.sheetName = sheetName;
+        sheet.setLength(0);
+        digest = new TableDigest(sampleRows, topValues, sheetIndex);
+        rows = 0;
+        digestMode = false;
+    }
+
+    @Override
+    public boolean row(int rowNumber, List<String> cells) {
+        if (truncated) {
+            return false;
+        }
+        if (digest == null) {
+            startSheet(0, "Sheet1");
+        }
+        digest.add(cells);
+        if (digestMode) {
+            return true;
+        }
+        rows++;
+        for (String cell : cells) {
+            sheet.append(cell == null ? "" : cell).append('\t');
+        }
+        sheet.append('\n');
+        if (rows > digestMinRows || chars + sheet.length() > maxChars) {
+            sheet.setLength(0);
+            digestMode = true;
+        }
+        return true;
+    }
+
+    @Override
+    public void endSheet(int sheetIndex) {
+        String text = digestMode ? digest.render(sheetName) : sheet.toString();
+        digested |= digestMode;
+        if (chars + text.length() > maxChars) {
+            text = text.substring(0, Math.max(0, maxChars - chars));
+            truncated = true;
+        }
+        chars += text.length();
+        sheets.add(text);
+        digest = null;
+    }
+
+    public List<String> getSheets() {
+        return sheets;
+    }
+
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /** True when at least one sheet was replaced by its digest. */
+    public boolean isDigested() {
+        return digested;
+    }
+}
@@ -0,0 +1,27 @@
+package com.izabi.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/** Spools uploads to disk so parsers can read them by random access instead of from a heap copy. */
+public final class TempFiles {
+
+    private TempFiles() {
+    }
+
+    /** Copies {@code in} into a new temp file under {@code dir} and closes it. The caller deletes the file. */
+    public static Path spill(Path dir, String prefix, String suffix, InputStream in) throws IOException {
+        Files.createDirectories(dir);
+        Path spilled = Files.createTempFile(dir, prefix, suffix);
+        try (in) {
+            Files.copy(in, spilled, StandardCopyOption.REPLACE_EXISTING);
+            return spilled;
+        } catch (IOException e) {
+            Files.deleteIfExists(spilled);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.izabi.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Splits long text into chunks that each fit a token budget. Page breaks
+ * ({@code \f}) and blank-line paragraph breaks are preferred split points. A
+ * paragraph that is too large on its own is split on sentences, and as a last
+ * resort on a fixed character count. Consecutive chunks share up to
+ * {@code overlapTokens} worth of trailing paragraphs, so a point that straddles
+ * a boundary is seen whole by at least one chunk.
+ */
+public final class TextChunker {
+
+    private static final Pattern PAGE_BREAK = Pattern.compile("\f");
+    private static final Pattern PARAGRAPH_BREAK = Pattern.compile("\\n\\s*\\n");
+    private static final Pattern SENTENCE_BREAK = Pattern.compile("(?<=[.!?])\\s+");
+    private static final String UNIT_SEPARATOR = "\n\n";
+
+    private TextChunker() {
+    }
+
+    public static List<String> chunk(String text, int maxTokens, int overlapTokens) {
+        if (maxTokens <= 0) {
+            throw new IllegalArgumentException("maxTokens must be positive");
+        }
+        int overlap = Math.max(0, Math.min(overlapTokens, maxTokens / 2));
+        List<String> units = splitUnits(text, maxTokens - overlap);
+
+        List<String> chunks = new ArrayList<>();
+        Deque<String> current = new ArrayDeque<>();
+        int currentTokens = 0;
+        for (String unit : units) {
+            int unitTokens = TokenEstimator.estimateTokens(unit);
+            if (!current.isEmpty() && currentTokens + unitTokens > maxTokens) {
+                chunks.add(String.join(UNIT_SEPARATOR, current));
+                Deque<String> carried = new ArrayDeque<>();
+                int carriedTokens = 0;
+                Iterator<String> tail = current.descendingIterator();
+                while (tail.hasNext()) {
+                    String previous = tail.next();
+                    int previousTokens = TokenEstimator.estimateTokens(previous);
+                    if (carriedTokens + previousTokens > overlap) {
+                        break;
+                    }
+                    carried.addFirst(previous);
+                    carriedTokens += previousTokens;
+                }
+                current = carried;
+                currentTokens = carriedTokens;
+            }
+            current.addLast(unit);
+            currentTokens += unitTokens;
+        }
+        if (!current.isEmpty()) {
+            chunks.add(String.join(UNIT_SEPARATOR, current));
+        }
+        return chunks;
+    }
+
+    private static List<String> splitUnits(String text, int maxUnitTokens) {
+        List<String> units = new ArrayList<>();
+        if (text == null) {
+            return units;
+        }
+        for (String page : PAGE_BREAK.split(text)) {
+            for (String paragraph : PARAGRAPH_BREAK.split(page)) {
+                addUnit(units, paragraph.trim(), maxUnitTokens);
+            }
+        }
+        return units;
+    }
+
+    private static void addUnit(List<String> units, String paragraph, int maxUnitTokens) {
+        if (paragraph.isEmpty()) {
+            return;
+        }
+        if (TokenEstimator.estimateTokens(paragraph) <= maxUnitTokens) {
+            units.add(paragraph);
+            return;
+        }
+
+        int maxChars = TokenEstimator.charsForTokens(maxUnitTokens);
+        StringBuilder piece = new StringBuilder();
+        for (String sentence : SENTENCE_BREAK.split(paragraph)) {
+            if (!piece.isEmpty() && piece.length() + 1 + sentence.length() > maxChars) {
+                units.add(piece.toString());
+                piece.setLength(0);
+            }
+            if (sentence.length() > maxChars) {
+                for (int start = 0; start < sentence.length(); start += maxChars) {
+                    units.add(sentence.substring(start, Math.min(sentence.length(), start + maxChars)));
+                }
+                continue;
+            }
+            if (!piece.isEmpty()) {
+                piece.append(' ');
+            }
+            piece.append(sentence);
+        }
+        if (!piece.isEmpty()) {
+            units.add(piece.toString());
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.izabi.util;
+
+/**
+ * Cheap token count estimate for budgeting prompts. Gemini and most BPE tokenizers
+ * average about four characters of English text per token, which is close enough
+ * for sizing chunks without shipping a tokenizer.
+ */
+public final class TokenEstimator {
+
+    public static final int CHARS_PER_TOKEN = 4;
+
+    private TokenEstimator() {
+    }
+
+    public static int estimateTokens(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        return (text.length() + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+    }
+
+    public static int charsForTokens(int tokens) {
+        return tokens * CHARS_PER_TOKEN;
+    }
+}
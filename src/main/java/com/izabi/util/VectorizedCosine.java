@@ -0,0 +1,42 @@
+package com.izabi.util;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector API kernel for {@link CosineSimilarity}. It is looked up reflectively
+ * once the {@code jdk.incubator.vector} module has been found, because loading
+ * this class without the module fails. It is compiled in a separate compiler
+ * execution, the only one that adds the incubator module.
+ */
+final class VectorizedCosine {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    private VectorizedCosine() {
+    }
+
+    static double similarity(float[] a, float[] b) {
+        FloatVector dot = FloatVector.zero(SPECIES);
+        FloatVector normA = FloatVector.zero(SPECIES);
+        FloatVector normB = FloatVector.zero(SPECIES);
+        int i = 0;
+        for (int bound = SPECIES.loopBound(a.length); i < bound; i += SPECIES.length()) {
+            FloatVector va = FloatVector.fromArray(SPECIES, a, i);
+            FloatVector vb = FloatVector.fromArray(SPECIES, b, i);
+            dot = va.fma(vb, dot);
+            normA = va.fma(va, normA);
+            normB = vb.fma(vb, normB);
+        }
+        double dotSum = dot.reduceLanes(VectorOperators.ADD);
+        double normASum = normA.reduceLanes(VectorOperators.ADD);
+        double normBSum = normB.reduceLanes(VectorOperators.ADD);
+        for (; i < a.length; i++) {
+            dotSum += a[i] * b[i];
+            normASum += a[i] * a[i];
+            normBSum += b[i] * b[i];
+        }
+        return CosineSimilarity.finish(dotSum, normASum, normBSum);
+    }
+}
@@ -0,0 +1,72 @@
+package com.izabi.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.List;
+
+/**
+ * Storage format for voice embeddings: packed little-endian float32, four bytes
+ * per dimension, stored in MongoDB as BSON binary. Decoding is a single pass
+ * into a primitive {@code float[]} with no parsing and no boxing. Embeddings
+ * come from the model as float32, so narrowing its doubles loses nothing the
+ * similarity check can see.
+ */
+public final class VoicePrints {
+
+    private static final VarHandle FLOATS_LE =
+            MethodHandles.byteArrayViewVarHandle(float[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private VoicePrints() {
+    }
+
+    public static byte[] pack(float[] vector) {
+        byte[] packed = new byte[vector.length * Float.BYTES];
+        for (int i = 0; i < vector.length; i++) {
+            FLOATS_LE.set(packed, i * Float.BYTES, vector[i]);
+        }
+        return packed;
+    }
+
+    public static float[] unpack(byte[] packed) {
+        if (packed == null) {
+            return new float[0];
+        }
+        if (packed.length % Float.BYTES != 0) {
+            throw new IllegalArgumentException("Packed voice print length " + packed.length + " is not a multiple of 4");
+        }
+        float[] vector = new float[packed.length / Float.BYTES];
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = (float) FLOATS_LE.get(packed, i * Float.BYTES);
+        }
+        return vector;
+    }
+
+    public static byte[] pack(List<Double> values) {
+        float[] vector = new float[values.size()];
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = values.get(i).floatValue();
+        }
+        return pack(vector);
+    }
+
+    /**
+     * Parses the old string form: comma-separated decimals, optionally wrapped in
+     * the brackets that {@code List.toString()} produced.
+     */
+    public static float[] parseLegacy(String voicePrint) {
+        String body = voicePrint.strip();
+        if (body.startsWith("[") && body.endsWith("]")) {
+            body = body.substring(1, body.length() - 1);
+        }
+        if (body.isBlank()) {
+            return new float[0];
+        }
+        String[] parts = body.split(",");
+        float[] vector = new float[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            vector[i] = Float.parseFloat(parts[i].strip());
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,80 @@
+package com.izabi.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of one login-time password check ({@code matches}) per BCrypt cost.
+ * {@link #main(String[])} runs every cost and prints the highest one whose p99
+ * stays within {@code -Dtarget.ms} (default 250 ms), the value to set as
+ * {@code app.auth.bcrypt-strength}. Run it on hardware like production. A login
+ * spike is bounded by the hashing pool, so per-hash latency times queue depth
+ * divided by cores is the worst wait a request sees before getting 429.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BCryptCostBenchmark {
+
+    private static final String PASSWORD = "correct horse battery staple";
+
+    @Param({"8", "10", "11", "12", "13"})
+    private int strength;
+
+    private BCryptPasswordEncoder encoder;
+    private String hash;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        encoder = new BCryptPasswordEncoder(strength);
+        hash = encoder.encode(PASSWORD);
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return encoder.matches(PASSWORD, hash);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        double targetMillis = Double.parseDouble(System.getProperty("target.ms", "250"));
+        Collection<RunResult> results = new Runner(new OptionsBuilder()
+                .include(BCryptCostBenchmark.class.getSimpleName())
+                .build()).run();
+
+        results.stream()
+                .sorted(Comparator.comparingInt(result -> Integer.parseInt(result.getParams().getParam("strength"))))
+                .forEach(result -> System.out.printf("strength %s: p50 %.1f ms, p99 %.1f ms%n",
+                        result.getParams().getParam("strength"),
+                        result.getPrimaryResult().getStatistics().getPercentile(50),
+                        result.getPrimaryResult().getStatistics().getPercentile(99)));
+        results.stream()
+                .filter(result -> result.getPrimaryResult().getStatistics().getPercentile(99) <= targetMillis)
+                .mapToInt(result -> Integer.parseInt(result.getParams().getParam("strength")))
+                .max()
+                .ifPresentOrElse(
+                        strength -> System.out.printf("Highest cost within %.0f ms p99: %d%n", targetMillis, strength),
+                        () -> System.out.printf("No cost meets %.0f ms p99 on this machine%n", targetMillis));
+    }
+}
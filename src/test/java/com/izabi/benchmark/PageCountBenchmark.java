@@ -0,0 +1,162 @@
+package com.izabi.benchmark;
+
+import com.izabi.util.FastPageCounter;
+import com.izabi.util.TempFiles;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Page counting on a generated corpus of large files: a text-heavy PDF and a
+ * multi-megabyte text file. Each format is measured on the old full-parse path
+ * and on the metadata-only path in {@link FastPageCounter}. The {@code *Upload}
+ * benchmarks start from a stream, as the service does: the PDF pays for the
+ * spill to a temp file that random access needs, and text is measured both
+ * spilled and counted straight from the stream. Run through {@link #main(String[])}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PageCountBenchmark {
+
+    @Param({"500"})
+    private int pdfPages;
+
+    @Param({"1000000"})
+    private int textLines;
+
+    private Path corpus;
+    private Path pdf;
+    private Path text;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        corpus = Files.createTempDirectory("page-count-corpus");
+        pdf = corpus.resolve("large.pdf");
+        text = corpus.resolve("large.txt");
+        writePdf(pdf, pdfPages);
+        try (BufferedWriter writer = Files.newBufferedWriter(text, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < textLines; i++) {
+                writer.write("Line " + i + " of the lecture transcript on cellular respiration.\n");
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(pdf);
+        Files.deleteIfExists(text);
+        Files.deleteIfExists(corpus);
+    }
+
+    @Benchmark
+    public int pdfFullParse() throws IOException {
+        try (InputStream in = Files.newInputStream(pdf); PDDocument document = PDDocument.load(in)) {
+            return document.getNumberOfPages();
+        }
+    }
+
+    @Benchmark
+    public int pdfTrailer() throws IOException {
+        return FastPageCounter.pdfPages(pdf).orElseThrow();
+    }
+
+    @Benchmark
+    public int pdfTrailerUpload() throws IOException {
+        Path spilled = TempFiles.spill(corpus, "upload-", ".pdf", Files.newInputStream(pdf));
+        try {
+            return FastPageCounter.pdfPages(spilled).orElseThrow();
+        } finally {
+            Files.deleteIfExists(spilled);
+        }
+    }
+
+    @Benchmark
+    public long textReadLine() throws IOException {
+        long lines = 0;
+        try (BufferedReader reader = Files.newBufferedReader(text, StandardCharsets.UTF_8)) {
+            while (reader.readLine() != null) {
+                lines++;
+            }
+        }
+        return lines;
+    }
+
+    @Benchmark
+    public long textMappedNewlines() throws IOException {
+        return FastPageCounter.countLines(text);
+    }
+
+    @Benchmark
+    public long textSpilledMappedNewlinesUpload() throws IOException {
+        Path spilled = TempFiles.spill(corpus, "upload-", ".txt", Files.newInputStream(text));
+        try {
+            return FastPageCounter.countLines(spilled);
+        } finally {
+            Files.deleteIfExists(spilled);
+        }
+    }
+
+    @Benchmark
+    public long textStreamedNewlinesUpload() throws IOException {
+        try (InputStream in = Files.newInputStream(text)) {
+            return FastPageCounter.countLines(in);
+        }
+    }
+
+    private static void writePdf(Path target, int pages) throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            for (int i = 1; i <= pages; i++) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.setFont(PDType1Font.HELVETICA, 9);
+                    content.setLeading(11);
+                    content.newLineAtOffset(40, 750);
+                    for (int line = 0; line < 60; line++) {
+                        content.showText("Page " + i + " line " + line + ": enzymes lower activation energy.");
+                        content.newLine();
+                    }
+                    content.endText();
+                }
+            }
+            document.save(target.toFile());
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PageCountBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
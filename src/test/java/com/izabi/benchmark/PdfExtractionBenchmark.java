@@ -0,0 +1,121 @@
+package com.izabi.benchmark;
+
+import com.izabi.util.PdfTextExtractor;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compares single-threaded page extraction with the fork/join page-range path on
+ * a generated text-heavy PDF. Run with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.izabi.benchmark.PdfExtractionBenchmark}
+ * or from the IDE through {@link #main(String[])}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PdfExtractionBenchmark {
+
+    @Param({"64", "256"})
+    private int pages;
+
+    @Param({"4"})
+    private int parallelism;
+
+    private Path tempDir;
+    private File pdf;
+    private PdfTextExtractor extractor;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        tempDir = Files.createTempDirectory("pdf-benchmark");
+        pdf = tempDir.resolve("book.pdf").toFile();
+        writePdf(pdf, pages);
+        extractor = new PdfTextExtractor(16L * 1024 * 1024, tempDir);
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        pool.shutdown();
+        Files.deleteIfExists(pdf.toPath());
+        Files.deleteIfExists(tempDir);
+    }
+
+    @Benchmark
+    public long sequential() throws IOException {
+        LongAdder chars = new LongAdder();
+        extractor.extract(pdf, (pageNumber, text) -> {
+            chars.add(text.length());
+            return true;
+        });
+        return chars.sum();
+    }
+
+    @Benchmark
+    public long parallel() throws IOException {
+        LongAdder chars = new LongAdder();
+        extractor.extractParallel(pdf, pool, 8, Long.MAX_VALUE, (pageNumber, text) -> {
+            chars.add(text.length());
+            return true;
+        });
+        return chars.sum();
+    }
+
+    private static void writePdf(File target, int pages) throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            for (int i = 1; i <= pages; i++) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.setFont(PDType1Font.HELVETICA, 9);
+                    content.setLeading(11);
+                    content.newLineAtOffset(40, 750);
+                    for (int line = 0; line < 60; line++) {
+                        content.showText("Page " + i + " line " + line
+                                + ": cells divide by mitosis and meiosis to grow, repair and reproduce.");
+                        content.newLine();
+                    }
+                    content.endText();
+                }
+            }
+            document.save(target);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PdfExtractionBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,119 @@
+package com.izabi.benchmark;
+
+import com.izabi.util.CosineSimilarity;
+import com.izabi.util.VoicePrints;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * One voice comparison, stored print against a fresh one. {@code legacyString}
+ * repeats the old path: split both comma-joined strings, parse into boxed
+ * {@code List<Double>} and run a {@code Math.pow} loop. {@code packedScalar} and
+ * {@code packedVector} decode packed float32 and use the scalar loop or the
+ * Vector API kernel. The fork adds {@code jdk.incubator.vector}, so both kernels
+ * are measured in the same run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class VoiceSimilarityBenchmark {
+
+    @Param({"192", "512"})
+    private int dimensions;
+
+    private String storedString;
+    private String candidateString;
+    private byte[] storedPacked;
+    private byte[] candidatePacked;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(7);
+        List<Double> stored = new ArrayList<>(dimensions);
+        List<Double> candidate = new ArrayList<>(dimensions);
+        for (int i = 0; i < dimensions; i++) {
+            double value = random.nextGaussian() * 40;
+            stored.add((double) (float) value);
+            candidate.add((double) (float) (value + random.nextGaussian() * 5));
+        }
+        storedString = join(stored);
+        candidateString = join(candidate);
+        storedPacked = VoicePrints.pack(stored);
+        candidatePacked = VoicePrints.pack(candidate);
+    }
+
+    @Benchmark
+    public double legacyString() {
+        List<Double> a = parse(candidateString);
+        List<Double> b = parse(storedString);
+        double dot = 0.0;
+        double norm1 = 0.0;
+        double norm2 = 0.0;
+        for (int i = 0; i < a.size(); i++) {
+            dot += a.get(i) * b.get(i);
+            norm1 += Math.pow(a.get(i), 2);
+            norm2 += Math.pow(b.get(i), 2);
+        }
+        return dot / (Math.sqrt(norm1) * Math.sqrt(norm2));
+    }
+
+    @Benchmark
+    public double packedScalar() {
+        float[] a = VoicePrints.unpack(candidatePacked);
+        float[] b = VoicePrints.unpack(storedPacked);
+        double dot = 0;
+        double normA = 0;
+        double normB = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return dot / (Math.sqrt(normA) * Math.sqrt(normB));
+    }
+
+    @Benchmark
+    public double packedVector() {
+        return CosineSimilarity.of(VoicePrints.unpack(candidatePacked), VoicePrints.unpack(storedPacked));
+    }
+
+    private static List<Double> parse(String embedding) {
+        return Arrays.stream(embedding.split(","))
+                .map(String::trim)
+                .map(Double::parseDouble)
+                .collect(Collectors.toList());
+    }
+
+    private static String join(List<Double> values) {
+        return values.stream().map(String::valueOf).collect(Collectors.joining(","));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(VoiceSimilarityBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
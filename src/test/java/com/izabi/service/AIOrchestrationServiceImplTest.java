@@ -0,0 +1,85 @@
+package com.izabi.service;
+
+import com.izabi.dto.response.AnalyzedContentResponse;
+import com.izabi.dto.response.GeneratedContentResponse;
+import com.izabi.dto.response.ParsedDocument;
+import com.izabi.dto.response.StudyQuestionResponse;
+import com.izabi.exception.AIAnalysisException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AIOrchestrationServiceImplTest {
+
+    @Mock
+    private AIService aiService;
+
+    @Mock
+    private QuestionGenerationService questionGenerationService;
+
+    @InjectMocks
+    private AIOrchestrationServiceImpl orchestrationService;
+
+    private ParsedDocument document;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(orchestrationService, "deadlineSeconds", 5L);
+        document = ParsedDocument.builder()
+                .fileName("notes.pdf")
+                .text("Photosynthesis converts light energy into chemical energy.")
+                .build();
+    }
+
+    @Test
+    void keepsQuestionsWhenSummaryFails() {
+        List<StudyQuestionResponse> questions = List.of(StudyQuestionResponse.builder().question("What is photosynthesis?").build());
+        when(aiService.analyzeContent(anyString())).thenReturn(new AnalyzedContentResponse("{}", "ok"));
+        when(aiService.summarizeContent(anyString())).thenThrow(new AIAnalysisException("Failed to summarize content"));
+        when(questionGenerationService.generateQuestions(eq(document), eq(3))).thenReturn(questions);
+
+        GeneratedContentResponse response = orchestrationService.generateStudyContent(document, 3);
+
+        assertEquals(questions, response.getQuestions());
+        assertEquals("{}", response.getAnalysis().getAnalyzed());
+        assertEquals(List.of("summary"), response.getFailedSteps());
+        assertNotNull(response.getSummary().getSummary());
+        assertTrue(response.isPartial());
+    }
+
+    @Test
+    void failsWhenQuestionGenerationFails() {
+        lenient().when(aiService.analyzeContent(anyString())).thenReturn(new AnalyzedContentResponse("{}", "ok"));
+        lenient().when(aiService.summarizeContent(anyString())).thenReturn(null);
+        when(questionGenerationService.generateQuestions(any(), anyInt()))
+                .thenThrow(new RuntimeException("Failed to generate questions"));
+
+        assertThrows(AIAnalysisException.class, () -> orchestrationService.generateStudyContent(document, 3));
+    }
+
+    @Test
+    void failsFastOnQuotaErrors() {
+        lenient().when(questionGenerationService.generateQuestions(any(), anyInt())).thenAnswer(invocation -> {
+            Thread.sleep(5_000);
+            return List.of();
+        });
+        when(aiService.analyzeContent(anyString()))
+                .thenThrow(new AIAnalysisException("Gemini AI service quota exceeded. Please check your Google Cloud billing and try again later."));
+        lenient().when(aiService.summarizeContent(anyString())).thenReturn(null);
+
+        long start = System.nanoTime();
+        assertThrows(AIAnalysisException.class, () -> orchestrationService.generateStudyContent(document, 3));
+        assertTrue(System.nanoTime() - start < 4_000_000_000L);
+    }
+}
@@ -0,0 +1,118 @@
+package com.izabi.service;
+
+import com.izabi.dto.response.SummarizedContentResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CachingAIServiceTest {
+
+    @Mock
+    private AIServiceImpl delegate;
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CachingAIService cachingAIService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        lenient().when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        cachingAIService = new CachingAIService(delegate, redisTemplate, meterRegistry,
+                true, 24, 10, 5, "1", "gemini-1.5-flash");
+    }
+
+    @Test
+    void repeatUploadIsServedFromCache() {
+        when(delegate.summarizeContent(anyString()))
+                .thenReturn(new SummarizedContentResponse("Cells are the unit of life.", "Summary Completed"));
+
+        SummarizedContentResponse first = cachingAIService.summarizeContent("Cells  are\nthe unit of life.");
+        SummarizedContentResponse second = cachingAIService.summarizeContent("Cells are the unit of life.");
+
+        assertEquals(first.getSummary(), second.getSummary());
+        verify(delegate, times(1)).summarizeContent(anyString());
+        verify(valueOperations).set(startsWith("ai_cache:summarize:"), anyString(), eq(Duration.ofHours(24)));
+        assertEquals(1.0, meterRegistry.counter("ai.cache.lookups", "operation", "summarize", "result", "local").count());
+    }
+
+    @Test
+    void fallbackResultsAreNotCached() {
+        when(delegate.generateQuestions(anyString(), anyInt())).thenReturn("[]");
+        when(delegate.isFallbackContent("[]")).thenReturn(true);
+
+        cachingAIService.generateQuestions("Photosynthesis", 3);
+        cachingAIService.generateQuestions("Photosynthesis", 3);
+
+        verify(delegate, times(2)).generateQuestions("Photosynthesis", 3);
+        verify(valueOperations, never()).set(anyString(), anyString(), any(Duration.class));
+    }
+
+    @Test
+    void redisFailureFallsThroughToDelegate() {
+        when(valueOperations.get(anyString())).thenThrow(new IllegalStateException("connection refused"));
+        when(delegate.generateQuestions(anyString(), anyInt())).thenReturn("[{\"question\":\"q\"}]");
+
+        assertEquals("[{\"question\":\"q\"}]", cachingAIService.generateQuestions("Photosynthesis", 3));
+        assertEquals(1.0, meterRegistry.counter("ai.cache.errors", "stage", "read").count());
+    }
+
+    @Test
+    void streamedSummaryIsCachedAndReplayedAsOneChunk() {
+        when(delegate.streamSummary(anyString(), any())).thenAnswer(invocation -> {
+            Consumer<String> onPartial = invocation.getArgument(1);
+            onPartial.accept("Cells are ");
+            onPartial.accept("the unit of life.");
+            return new SummarizedContentResponse("Cells are the unit of life.", "Summary Completed");
+        });
+
+        List<String> firstChunks = new ArrayList<>();
+        List<String> secondChunks = new ArrayList<>();
+        cachingAIService.streamSummary("Cells are the unit of life.", firstChunks::add);
+        cachingAIService.streamSummary("Cells are the unit of life.", secondChunks::add);
+
+        assertEquals(List.of("Cells are ", "the unit of life."), firstChunks);
+        assertEquals(List.of("Cells are the unit of life."), secondChunks);
+        verify(delegate, times(1)).streamSummary(anyString(), any());
+    }
+
+    @Test
+    void streamedAndPlainSummariesDoNotShareEntries() {
+        when(delegate.summarizeContent(anyString()))
+                .thenReturn(new SummarizedContentResponse("Plain summary.", "Summary Completed"));
+        when(delegate.streamSummary(anyString(), any()))
+                .thenReturn(new SummarizedContentResponse("Streamed summary.", "Summary Completed"));
+
+        cachingAIService.summarizeContent("Cells are the unit of life.");
+        SummarizedContentResponse streamed = cachingAIService.streamSummary("Cells are the unit of life.", chunk -> { });
+
+        assertEquals("Streamed summary.", streamed.getSummary());
+        verify(delegate).streamSummary(anyString(), any());
+        verify(valueOperations).set(startsWith("ai_cache:summarize_stream:"), anyString(), eq(Duration.ofHours(24)));
+    }
+
+    @Test
+    void keyDependsOnQuestionCount() {
+        assertNotEquals(cachingAIService.cacheKey("questions", "text", 3), cachingAIService.cacheKey("questions", "text", 5));
+    }
+}
@@ -0,0 +1,160 @@
+package com.izabi.service;
+
+import com.izabi.util.ContentDigest;
+import com.mongodb.MongoException;
+import com.mongodb.client.gridfs.model.GridFSFile;
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.BsonObjectId;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.gridfs.GridFsOperations;
+import org.springframework.data.mongodb.gridfs.GridFsResource;
+import org.springframework.data.mongodb.gridfs.GridFsUpload;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ContentStoreServiceImplTest {
+
+    private static final String TEXT = "Mitochondria produce ATP. ".repeat(200);
+
+    @Mock
+    private GridFsOperations gridFsOperations;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private ContentStoreServiceImpl contentStore;
+
+    @BeforeEach
+    void setUp() {
+        contentStore = new ContentStoreServiceImpl(gridFsOperations, mongoTemplate, "content", 6);
+    }
+
+    @Test
+    void storesNewTextDeflatedUnderItsHash() {
+        String expectedId = HexFormat.of().formatHex(ContentDigest.sha256().digest(TEXT.getBytes(StandardCharsets.UTF_8)));
+        AtomicReference<byte[]> stored = new AtomicReference<>();
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq("content.files")))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+        when(gridFsOperations.store(any(GridFsUpload.class))).thenAnswer(invocation -> {
+            GridFsUpload<?> upload = invocation.getArgument(0);
+            assertEquals(expectedId, upload.getFilename());
+            stored.set(upload.getContent().readAllBytes());
+            return upload.getFileId();
+        });
+
+        String contentId = contentStore.store(TEXT);
+
+        assertEquals(expectedId, contentId);
+        assertTrue(stored.get().length < TEXT.length() / 10);
+        try (InputStream in = new InflaterInputStream(new ByteArrayInputStream(stored.get()))) {
+            assertEquals(TEXT, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            fail(e);
+        }
+    }
+
+    @Test
+    void storingKnownTextOnlyAddsReference() {
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq("content.files")))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        contentStore.store(TEXT);
+
+        verify(gridFsOperations, never()).store(any(GridFsUpload.class));
+    }
+
+    @Test
+    void losingAConcurrentFirstStoreRemovesItsChunksAndAddsAReference() {
+        AtomicReference<Object> uploadedId = new AtomicReference<>();
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq("content.files")))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        when(gridFsOperations.store(any(GridFsUpload.class))).thenAnswer(invocation -> {
+            uploadedId.set(invocation.getArgument(0, GridFsUpload.class).getFileId());
+            throw new MongoException(11000, "E11000 duplicate key error");
+        });
+        when(mongoTemplate.remove(any(Query.class), eq("content.chunks"))).thenReturn(DeleteResult.acknowledged(2));
+
+        contentStore.store(TEXT);
+
+        verify(mongoTemplate).remove(argThat((Query query) ->
+                uploadedId.get().equals(query.getQueryObject().get("files_id"))), eq("content.chunks"));
+        verify(mongoTemplate, times(2)).updateFirst(any(Query.class), any(Update.class), eq("content.files"));
+    }
+
+    @Test
+    void releaseDeletesContentOnlyWhenLastReferenceGoes() {
+        ObjectId fileId = new ObjectId();
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Document.class), eq("content.files")))
+                .thenReturn(new Document("_id", fileId).append("metadata", new Document("refCount", 1)))
+                .thenReturn(new Document("_id", fileId).append("metadata", new Document("refCount", 0)));
+        when(mongoTemplate.remove(any(Query.class), anyString())).thenReturn(DeleteResult.acknowledged(1));
+
+        contentStore.release("abc");
+        verify(mongoTemplate, never()).remove(any(Query.class), anyString());
+
+        contentStore.release("abc");
+        verify(mongoTemplate).remove(argThat((Query query) -> fileId.equals(query.getQueryObject().get("_id"))
+                && query.getQueryObject().containsKey("metadata.refCount")), eq("content.files"));
+        verify(mongoTemplate).remove(any(Query.class), eq("content.chunks"));
+        verifyNoInteractions(gridFsOperations);
+    }
+
+    @Test
+    void releaseKeepsChunksWhenAConcurrentStoreRevivedTheFile() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Document.class), eq("content.files")))
+                .thenReturn(new Document("_id", new ObjectId()).append("metadata", new Document("refCount", 0)));
+        when(mongoTemplate.remove(any(Query.class), eq("content.files"))).thenReturn(DeleteResult.acknowledged(0));
+
+        contentStore.release("abc");
+
+        verify(mongoTemplate, never()).remove(any(Query.class), eq("content.chunks"));
+    }
+
+    @Test
+    void loaderReadsContentOnceOnFirstUse() throws Exception {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (DeflaterOutputStream out = new DeflaterOutputStream(compressed)) {
+            out.write(TEXT.getBytes(StandardCharsets.UTF_8));
+        }
+        GridFSFile file = new GridFSFile(new BsonObjectId(new ObjectId()), "abc", compressed.size(), 261_120,
+                new Date(), new Document("encoding", "deflate"));
+        when(gridFsOperations.findOne(any(Query.class))).thenReturn(file);
+        when(gridFsOperations.getResource(file))
+                .thenReturn(new GridFsResource(file, new ByteArrayInputStream(compressed.toByteArray())));
+
+        Supplier<String> loader = contentStore.loader("abc");
+        verifyNoInteractions(gridFsOperations);
+
+        assertEquals(TEXT, loader.get());
+        assertEquals(TEXT, loader.get());
+        verify(gridFsOperations, times(1)).findOne(any(Query.class));
+    }
+}
@@ -0,0 +1,186 @@
+package com.izabi.service;
+
+import com.izabi.data.enums.EmailStatus;
+import com.izabi.data.model.OutboundEmail;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.MessagingException;
+import com.mongodb.client.result.UpdateResult;
+import jakarta.mail.Transport;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EmailOutboxServiceImplTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private ExecutorService emailOutboxExecutor;
+
+    @Mock
+    private Transport transport;
+
+    private SimpleMeterRegistry meterRegistry;
+    private EmailOutboxServiceImpl outboxService;
+    private int transportsOpened;
+
+    private static final UpdateResult ONE_MODIFIED = UpdateResult.acknowledged(1, 1L, null);
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        outboxService = new EmailOutboxServiceImpl(mongoTemplate, new JavaMailSenderImpl(), emailOutboxExecutor,
+                meterRegistry, 2, 10, 3, 1000, 60000, 60, 1000, 30, 24) {
+            @Override
+            Transport openTransport() {
+                transportsOpened++;
+                return transport;
+            }
+        };
+        ReflectionTestUtils.setField(outboxService, "fromEmail", "noreply@izabi.com");
+    }
+
+    @Test
+    void enqueueStoresPendingMessage() {
+        outboxService.enqueue("ada@example.com", "Your OTP Code", "<p>123456</p>");
+
+        ArgumentCaptor<OutboundEmail> captor = ArgumentCaptor.forClass(OutboundEmail.class);
+        verify(mongoTemplate).insert(captor.capture());
+        OutboundEmail stored = captor.getValue();
+        assertEquals(EmailStatus.PENDING, stored.getStatus());
+        assertEquals("ada@example.com", stored.getToEmail());
+        assertNotNull(stored.getNextAttemptAt());
+        verifyNoInteractions(transport);
+    }
+
+    @Test
+    void drainBatchSendsClaimedMessagesOverOneConnection() throws Exception {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(OutboundEmail.class)))
+                .thenReturn(claimed("1", 1), claimed("2", 1), null);
+        when(transport.isConnected()).thenReturn(true);
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(OutboundEmail.class))).thenReturn(ONE_MODIFIED);
+
+        int handled = outboxService.drainBatch(outboxService.new SmtpConnection());
+
+        assertEquals(2, handled);
+        assertEquals(1, transportsOpened);
+        verify(transport, times(2)).sendMessage(any(), any());
+        assertEquals(2.0, meterRegistry.counter("email.outbox.sent").count());
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(2)).updateFirst(any(Query.class), updates.capture(), eq(OutboundEmail.class));
+        assertEquals(EmailStatus.SENT, updates.getValue().getUpdateObject().get("$set", Document.class).get("status"));
+    }
+
+    @Test
+    void failedSendIsRescheduledAndConnectionDropped() throws Exception {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(OutboundEmail.class)))
+                .thenReturn(claimed("1", 1), (OutboundEmail) null);
+        doThrow(new MessagingException("421 try again later")).when(transport).sendMessage(any(), any());
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(OutboundEmail.class))).thenReturn(ONE_MODIFIED);
+
+        outboxService.drainBatch(outboxService.new SmtpConnection());
+
+        verify(transport).close();
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(any(Query.class), update.capture(), eq(OutboundEmail.class));
+        org.bson.Document set = update.getValue().getUpdateObject().get("$set", Document.class);
+        assertEquals(EmailStatus.PENDING, set.get("status"));
+        assertEquals("421 try again later", set.get("lastError"));
+        assertEquals(1.0, meterRegistry.counter("email.outbox.retried").count());
+    }
+
+    @Test
+    void lastAttemptMarksMessageFailed() throws Exception {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(OutboundEmail.class)))
+                .thenReturn(claimed("1", 3), (OutboundEmail) null);
+        doThrow(new MessagingException("550 mailbox unavailable")).when(transport).sendMessage(any(), any());
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(OutboundEmail.class))).thenReturn(ONE_MODIFIED);
+
+        outboxService.drainBatch(outboxService.new SmtpConnection());
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(any(Query.class), update.capture(), eq(OutboundEmail.class));
+        assertEquals(EmailStatus.FAILED, update.getValue().getUpdateObject().get("$set", Document.class).get("status"));
+        assertEquals(1.0, meterRegistry.counter("email.outbox.failed").count());
+    }
+
+    @Test
+    void statusWritesOnlyMatchTheClaimedLease() throws Exception {
+        OutboundEmail email = claimed("1", 1);
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(OutboundEmail.class)))
+                .thenReturn(email, (OutboundEmail) null);
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(OutboundEmail.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+        outboxService.drainBatch(outboxService.new SmtpConnection());
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).updateFirst(query.capture(), any(Update.class), eq(OutboundEmail.class));
+        Document criteria = query.getValue().getQueryObject();
+        assertEquals(EmailStatus.SENDING, criteria.get("status"));
+        assertEquals(email.getLeaseUntil(), criteria.get("leaseUntil"));
+    }
+
+    @Test
+    void failedStatusWriteAfterSendIsNotTreatedAsSendFailure() throws Exception {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(OutboundEmail.class)))
+                .thenReturn(claimed("1", 1));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(OutboundEmail.class)))
+                .thenThrow(new DataAccessResourceFailureException("primary stepped down"));
+
+        assertThrows(DataAccessResourceFailureException.class,
+                () -> outboxService.drainBatch(outboxService.new SmtpConnection()));
+
+        verify(transport).sendMessage(any(), any());
+        verify(transport, never()).close();
+        verify(mongoTemplate, times(1)).updateFirst(any(Query.class), any(Update.class), eq(OutboundEmail.class));
+        assertEquals(0.0, meterRegistry.counter("email.outbox.retried").count());
+    }
+
+    @Test
+    void backoffGrowsExponentiallyUpToCap() {
+        Duration base = Duration.ofSeconds(2);
+        Duration max = Duration.ofSeconds(60);
+        for (int i = 0; i < 50; i++) {
+            long first = EmailOutboxServiceImpl.backoff(1, base, max).toMillis();
+            long third = EmailOutboxServiceImpl.backoff(3, base, max).toMillis();
+            long capped = EmailOutboxServiceImpl.backoff(30, base, max).toMillis();
+            assertTrue(first >= 1000 && first <= 2000);
+            assertTrue(third >= 4000 && third <= 8000);
+            assertTrue(capped >= 30000 && capped <= 60000);
+        }
+    }
+
+    private static OutboundEmail claimed(String id, int attempts) {
+        OutboundEmail email = new OutboundEmail();
+        email.setId(id);
+        email.setToEmail("user" + id + "@example.com");
+        email.setSubject("Your OTP Code");
+        email.setHtmlBody("<p>123456</p>");
+        email.setStatus(EmailStatus.SENDING);
+        email.setAttempts(attempts);
+        email.setLeaseUntil(Instant.now().plusSeconds(60));
+        return email;
+    }
+}
@@ -2,13 +2,27 @@ package com.izabi.service;
 
 import com.izabi.dto.response.FileExtensionResponse;
 import com.izabi.dto.response.PageCountResponse;
+import com.izabi.dto.response.ParsedDocument;
 import com.izabi.dto.response.ReadDocumentResponse;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xwpf.usermodel.BreakType;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFRun;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.mock.web.MockMultipartFile;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -19,7 +33,7 @@ class FileTextExtractionServiceImplTest {
 
     @BeforeEach
     void setUp() {
-        service = new FileTextExtractionServiceImpl();
+        service = new FileTextExtractionServiceImpl(ForkJoinPool.commonPool(), 16, 2_000_000, 16, 200, 20, 5, System.getProperty("java.io.tmpdir"));
     }
 
     @Test
@@ -57,6 +71,22 @@ class FileTextExtractionServiceImplTest {
         assertThat(response.getNumberOfPages()).isEqualTo(2);
     }
 
+    @Test
+    void shouldParseTxtFileOnceWithTextPagesAndSegments() {
+        String content = String.join("\n", java.util.Collections.nCopies(60, "line"));
+        MockMultipartFile file = new MockMultipartFile(
+                "file", "notes.txt", "text/plain", content.getBytes()
+        );
+
+        ParsedDocument document = service.parse(file);
+
+        assertThat(document.getFileName()).isEqualTo("notes.txt");
+        assertThat(document.getFileExtension()).isEqualTo("txt");
+        assertThat(document.getNumberOfPages()).isEqualTo(2);
+        assertThat(document.getSegments()).hasSize(2);
+        assertThat(String.join("", document.getSegments())).isEqualTo(document.getText());
+    }
+
     @Test
     void shouldReadPdfFile() throws Exception {
         File file = new File("src/test/resources/sample.pdf");
@@ -69,6 +99,54 @@ class FileTextExtractionServiceImplTest {
         }
     }
 
+    @Test
+    void shouldStopPdfExtractionAtTextBudget() throws Exception {
+        FileTextExtractionServiceImpl budgeted = new FileTextExtractionServiceImpl(ForkJoinPool.commonPool(), 1, 40, 16, 200, 20, 5, System.getProperty("java.io.tmpdir"));
+        MockMultipartFile file = new MockMultipartFile("file", "long.pdf", "application/pdf", pdfWithPages(5));
+
+        ParsedDocument document = budgeted.parse(file);
+
+        assertThat(document.isTruncated()).isTrue();
+        assertThat(document.getNumberOfPages()).isEqualTo(5);
+        assertThat(document.getText().replace(ParsedDocument.PAGE_BREAK, "")).hasSizeLessThanOrEqualTo(40);
+        assertThat(document.getText()).contains("Page 1 text");
+    }
+
+    @Test
+    void parallelPdfExtractionKeepsPageOrder() throws Exception {
+        try (ForkJoinPool pool = new ForkJoinPool(4)) {
+            FileTextExtractionServiceImpl parallel = new FileTextExtractionServiceImpl(pool, 1, 2_000_000, 2, 200, 20, 5, System.getProperty("java.io.tmpdir"));
+            MockMultipartFile file = new MockMultipartFile("file", "book.pdf", "application/pdf", pdfWithPages(40));
+
+            ParsedDocument document = parallel.parse(file);
+
+            assertThat(document.getNumberOfPages()).isEqualTo(40);
+            assertThat(document.getSegments()).hasSize(40);
+            for (int i = 0; i < 40; i++) {
+                assertThat(document.getSegments().get(i)).contains("Page " + (i + 1) + " text");
+            }
+            assertThat(document.isTruncated()).isFalse();
+        }
+    }
+
+    private static byte[] pdfWithPages(int pages) throws Exception {
+        try (PDDocument document = new PDDocument(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            for (int i = 1; i <= pages; i++) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.setFont(PDType1Font.HELVETICA, 12);
+                    content.newLineAtOffset(72, 700);
+                    content.showText("Page " + i + " text");
+                    content.endText();
+                }
+            }
+            document.save(out);
+            return out.toByteArray();
+        }
+    }
+
     @Test
     void shouldReadWordFile() throws Exception {
         File file = new File("src/test/resources/sample.docx");
@@ -95,6 +173,84 @@ class FileTextExtractionServiceImplTest {
         }
     }
 
+    @Test
+    void shouldStreamDocxParagraphsIncludingTables() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (XWPFDocument docx = new XWPFDocument()) {
+            docx.createParagraph().createRun().setText("Chapter one");
+            docx.createTable(1, 1).getRow(0).getCell(0).setText("Cell text");
+            XWPFRun run = docx.createParagraph().createRun();
+            run.addBreak(BreakType.PAGE);
+            run.setText("Chapter two");
+            docx.write(out);
+        }
+        MockMultipartFile file = new MockMultipartFile("file", "notes.docx",
+                "application/vnd.openxmlformats-officedocument.wordprocessingml.document", out.toByteArray());
+
+        ParsedDocument document = service.parse(file);
+
+        assertThat(document.getSegments()).contains("Chapter one", "Cell text", "Chapter two");
+        assertThat(document.getNumberOfPages()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldStreamXlsWorkbookAndCountSheets() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (HSSFWorkbook workbook = new HSSFWorkbook()) {
+            Row header = workbook.createSheet("Grades").createRow(0);
+            header.createCell(0).setCellValue("Student");
+            header.createCell(1).setCellValue(42);
+            workbook.createSheet("Notes").createRow(0).createCell(0).setCellValue("Mitosis");
+            workbook.write(out);
+        }
+        MockMultipartFile file = new MockMultipartFile("file", "grades.xls", "application/vnd.ms-excel", out.toByteArray());
+
+        ParsedDocument document = service.parse(file);
+        PageCountResponse count = service.getPageCount(file);
+
+        assertThat(document.getSegments()).containsExactly("Student\t42\t\n", "Mitosis\t\n");
+        assertThat(count.getNumberOfPages()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldKeepBlankSpreadsheetCellsInTheirColumns() throws Exception {
+        for (Workbook workbook : new Workbook[]{new HSSFWorkbook(), new XSSFWorkbook()}) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (workbook) {
+                Row row = workbook.createSheet("Grades").createRow(0);
+                row.createCell(0).setCellValue("Ada");
+                row.createCell(3).setCellValue("Passed");
+                workbook.write(out);
+            }
+            String name = workbook instanceof HSSFWorkbook ? "grades.xls" : "grades.xlsx";
+            MockMultipartFile file = new MockMultipartFile("file", name, "application/octet-stream", out.toByteArray());
+
+            ParsedDocument document = service.parse(file);
+
+            assertThat(document.getSegments()).as(name).containsExactly("Ada\t\t\tPassed\t\n");
+        }
+    }
+
+    @Test
+    void shouldDigestLargeCsvInsteadOfTruncating() {
+        StringBuilder csv = new StringBuilder("student;score;passed\n");
+        for (int i = 1; i <= 1000; i++) {
+            csv.append("s").append(i).append(';').append(i % 100).append(';').append(i % 100 >= 50 ? "yes" : "no").append('\n');
+        }
+        MockMultipartFile file = new MockMultipartFile("file", "scores.csv", "text/csv", csv.toString().getBytes());
+
+        ParsedDocument document = service.parse(file);
+
+        assertThat(document.isTruncated()).isFalse();
+        assertThat(document.getText())
+                .contains("1000 rows x 3 columns")
+                .contains("- score (number): 1000 values")
+                .contains("min 0, max 99")
+                .contains("- passed (boolean)")
+                .contains("Sample rows (20 of 1000)");
+        assertThat(document.getText().length()).isLessThan(csv.length() / 4);
+    }
+
     @Test
     void shouldThrowWhenNoExtension() {
         MockMultipartFile file = new MockMultipartFile("file", "filewithoutextension", "text/plain", "data".getBytes());
@@ -0,0 +1,73 @@
+package com.izabi.service;
+
+import com.izabi.dto.response.OTPResponse;
+import com.izabi.exception.InvalidOtpException;
+import com.izabi.exception.OtpAttemptsExceededException;
+import com.izabi.util.OTPGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OTPServiceImplTest {
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @Mock
+    private EmailService emailService;
+
+    private OTPServiceImpl otpService;
+
+    @BeforeEach
+    void setUp() {
+        otpService = new OTPServiceImpl(redisTemplate, emailService, 5, 15);
+    }
+
+    @Test
+    void sendOtpStoresCodeWithTtl() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+
+        OTPResponse response = otpService.sendOtp("Ada@Example.com");
+
+        verify(emailService).sendEmail(eq("Ada@Example.com"), eq(response.getOtp()));
+        verify(valueOperations).set("otp:ada@example.com", response.getOtp(), OTPGenerator.OTP_VALIDITY);
+    }
+
+    @Test
+    void verifyOtpRunsOneScriptAgainstCodeAndAttemptKeys() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(1L);
+
+        OTPResponse response = otpService.verifyOtp("ada@example.com", "123456");
+
+        assertEquals("123456", response.getOtp());
+        verify(redisTemplate).execute(any(RedisScript.class),
+                eq(List.of("otp:ada@example.com", "otp_attempts:ada@example.com")),
+                eq("123456"), eq("5"), eq("900"));
+        verifyNoMoreInteractions(redisTemplate);
+    }
+
+    @Test
+    void verifyOtpMapsScriptOutcomes() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenReturn(0L, -1L, -2L);
+
+        assertThrows(InvalidOtpException.class, () -> otpService.verifyOtp("ada@example.com", "000000"));
+        assertThrows(InvalidOtpException.class, () -> otpService.verifyOtp("ada@example.com", "000000"));
+        assertThrows(OtpAttemptsExceededException.class, () -> otpService.verifyOtp("ada@example.com", "000000"));
+    }
+}
@@ -0,0 +1,82 @@
+package com.izabi.service;
+
+import com.izabi.data.model.StudyQuestion;
+import com.izabi.data.repository.StudyQuestionRepository;
+import com.izabi.dto.response.ParsedDocument;
+import com.izabi.dto.response.StudyQuestionResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class QuestionGenerationServiceImplTest {
+
+    private static final String AI_RESPONSE = """
+            [{"question": "What do ribosomes build?", "options": ["Proteins", "Lipids"], "answer": "Proteins"},
+             {"question": "Where is DNA stored?", "options": ["Nucleus", "Membrane"], "answer": "Nucleus"}]
+            """;
+
+    @Mock
+    private AIService aiService;
+
+    @Mock
+    private StudyQuestionRepository studyQuestionRepository;
+
+    @InjectMocks
+    private QuestionGenerationServiceImpl questionGenerationService;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void storesGeneratedQuestionsOnceWithAssignedIds() {
+        ParsedDocument document = ParsedDocument.builder().fileName("cells.pdf").text("Cells.").build();
+        when(aiService.generateQuestions("Cells.", 2)).thenReturn(AI_RESPONSE);
+
+        List<StudyQuestionResponse> responses = questionGenerationService.generateQuestionsFromFile("user-1", "material-1", "text-digest", document, 2);
+
+        ArgumentCaptor<List<StudyQuestion>> saved = ArgumentCaptor.forClass(List.class);
+        verify(studyQuestionRepository, times(1)).insertAllUnordered(saved.capture());
+        assertEquals(2, saved.getValue().size());
+        assertEquals("text-digest", saved.getValue().get(0).getFileId());
+        assertEquals("user-1", saved.getValue().get(0).getUserId());
+        assertEquals("material-1", saved.getValue().get(0).getStudyMaterialId());
+        assertNotNull(saved.getValue().get(0).getId());
+        assertEquals(saved.getValue().get(1).getId(), responses.get(1).getId());
+        assertEquals("Nucleus", responses.get(1).getAnswer());
+    }
+
+    @Test
+    void generateQuestionsDoesNotWrite() {
+        ParsedDocument document = ParsedDocument.builder().fileName("cells.pdf").text("Cells.").build();
+        when(aiService.generateQuestions("Cells.", 2)).thenReturn(AI_RESPONSE);
+
+        assertEquals(2, questionGenerationService.generateQuestions(document, 2).size());
+        verifyNoInteractions(studyQuestionRepository);
+    }
+
+    @Test
+    void findAndDeleteAreScopedToTheOwner() {
+        StudyQuestion question = new StudyQuestion();
+        question.setId("q1");
+        question.setUserId("user-1");
+        question.setFileId("text-digest");
+        question.setQuestion("What is ATP?");
+        when(studyQuestionRepository.findByUserIdAndFileId("user-1", "text-digest")).thenReturn(List.of(question));
+        when(studyQuestionRepository.deleteByUserIdAndFileId("user-2", "text-digest")).thenReturn(0L);
+
+        List<StudyQuestionResponse> questions = questionGenerationService.findQuestions("user-1", "text-digest");
+        boolean deleted = questionGenerationService.deleteQuestions("user-2", "text-digest");
+
+        assertEquals(1, questions.size());
+        assertEquals("What is ATP?", questions.get(0).getQuestion());
+        assertFalse(deleted);
+    }
+}
@@ -0,0 +1,136 @@
+package com.izabi.service;
+
+import com.izabi.data.enums.ProcessingStatus;
+import com.izabi.data.model.StudyMaterial;
+import com.izabi.data.model.StudyQuestion;
+import com.izabi.data.model.User;
+import com.izabi.data.repository.StudyMaterialRepository;
+import com.izabi.data.repository.StudyQuestionRepository;
+import com.izabi.data.repository.UserRepository;
+import com.izabi.dto.response.StudyHistoryPageResponse;
+import com.izabi.exception.InvalidCursorException;
+import com.izabi.exception.StudyMaterialNotReadyException;
+import com.izabi.util.HistoryCursor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StudyAppServiceImplTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private StudyMaterialRepository studyMaterialRepository;
+
+    @Mock
+    private StudyQuestionRepository studyQuestionRepository;
+
+    @InjectMocks
+    private StudyAppServiceImpl studyAppService;
+
+    @Test
+    void historyPageUsesConstantNumberOfQueries() {
+        LocalDateTime now = LocalDateTime.of(2024, 5, 1, 12, 0);
+        List<StudyMaterial> materials = new ArrayList<>();
+        List<StudyQuestion> questions = new ArrayList<>();
+        for (int i = 0; i < 21; i++) {
+            StudyMaterial material = new StudyMaterial();
+            material.setId("m" + i);
+            material.setCreatedAt(now.minusMinutes(i));
+            materials.add(material);
+            StudyQuestion question = new StudyQuestion();
+            question.setId("q" + i);
+            question.setStudyMaterialId("m" + i);
+            questions.add(question);
+        }
+        when(userRepository.existsById("user-1")).thenReturn(true);
+        when(studyMaterialRepository.findHistoryPage("user-1", null, null, 21)).thenReturn(materials);
+        when(studyQuestionRepository.findByStudyMaterialIdIn(anyCollection())).thenReturn(questions);
+
+        StudyHistoryPageResponse page = studyAppService.getStudyHistory("user-1", null, 20);
+
+        assertEquals(20, page.getMaterials().size());
+        assertEquals("q7", page.getMaterials().get(7).getQuestions().get(0).getId());
+        assertEquals(new HistoryCursor(now.minusMinutes(19), "m19"), HistoryCursor.decode(page.getNextCursor()));
+        verify(studyMaterialRepository, times(1)).findHistoryPage(anyString(), any(), any(), anyInt());
+        verify(studyQuestionRepository, times(1)).findByStudyMaterialIdIn(anyCollection());
+        verify(studyQuestionRepository, never()).findByStudyMaterialId(anyString());
+        verifyNoMoreInteractions(studyMaterialRepository, studyQuestionRepository);
+    }
+
+    @Test
+    void nextPageStartsAfterCursorAndLastPageHasNoCursor() {
+        LocalDateTime createdAt = LocalDateTime.of(2024, 5, 1, 12, 0);
+        String cursor = new HistoryCursor(createdAt, "m19").encode();
+        StudyMaterial material = new StudyMaterial();
+        material.setId("m20");
+        material.setCreatedAt(createdAt.minusMinutes(1));
+        when(userRepository.existsById("user-1")).thenReturn(true);
+        when(studyMaterialRepository.findHistoryPage("user-1", createdAt, "m19", 21)).thenReturn(List.of(material));
+        when(studyQuestionRepository.findByStudyMaterialIdIn(List.of("m20"))).thenReturn(List.of());
+
+        StudyHistoryPageResponse page = studyAppService.getStudyHistory("user-1", cursor, 20);
+
+        assertEquals(1, page.getMaterials().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void pageEndingOnMaterialWithoutCreatedAtUsesItsUploadDate() {
+        LocalDateTime uploaded = LocalDateTime.of(2023, 1, 10, 9, 30);
+        StudyMaterial recent = new StudyMaterial();
+        recent.setId("m0");
+        recent.setCreatedAt(uploaded.plusDays(1));
+        StudyMaterial legacy = new StudyMaterial();
+        legacy.setId("m1");
+        legacy.setUploadDate(uploaded);
+        StudyMaterial older = new StudyMaterial();
+        older.setId("m2");
+        older.setUploadDate(uploaded.minusDays(1));
+        when(userRepository.existsById("user-1")).thenReturn(true);
+        when(studyMaterialRepository.findHistoryPage("user-1", null, null, 3)).thenReturn(List.of(recent, legacy, older));
+        when(studyQuestionRepository.findByStudyMaterialIdIn(List.of("m0", "m1"))).thenReturn(List.of());
+
+        StudyHistoryPageResponse page = studyAppService.getStudyHistory("user-1", null, 2);
+
+        assertEquals(uploaded, page.getMaterials().get(1).getCreatedAt());
+        assertEquals(new HistoryCursor(uploaded, "m1"), HistoryCursor.decode(page.getNextCursor()));
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        when(userRepository.existsById("user-1")).thenReturn(true);
+
+        assertThrows(InvalidCursorException.class, () -> studyAppService.getStudyHistory("user-1", "not-a-cursor", 20));
+        verifyNoInteractions(studyMaterialRepository);
+    }
+
+    @Test
+    void materialStillProcessingCannotBeDeleted() {
+        User user = new User();
+        user.setId("user-1");
+        StudyMaterial material = new StudyMaterial();
+        material.setId("m1");
+        material.setUserId("user-1");
+        material.setProcessingStatus(ProcessingStatus.ANALYZING);
+        when(userRepository.findById("user-1")).thenReturn(Optional.of(user));
+        when(studyMaterialRepository.findById("m1")).thenReturn(Optional.of(material));
+
+        assertThrows(StudyMaterialNotReadyException.class, () -> studyAppService.deleteStudyMaterial("m1", "user-1"));
+        verify(studyMaterialRepository, never()).delete(any(StudyMaterial.class));
+        verifyNoInteractions(studyQuestionRepository);
+    }
+}
@@ -0,0 +1,135 @@
+package com.izabi.service;
+
+import com.izabi.data.enums.ProcessingStatus;
+import com.izabi.data.model.StudyMaterial;
+import com.izabi.data.model.User;
+import com.izabi.data.repository.StudyMaterialRepository;
+import com.izabi.data.repository.StudyQuestionRepository;
+import com.izabi.data.repository.UserRepository;
+import com.izabi.dto.response.DocumentUploadResponse;
+import com.izabi.dto.response.FileExtensionResponse;
+import com.izabi.dto.response.ParsedDocument;
+import com.izabi.exception.ProcessingQueueFullException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StudyMaterialJobServiceImplTest {
+
+    @Mock
+    private FileTextExtractionService fileTextExtractionService;
+
+    @Mock
+    private TextNormalizationService textNormalizationService;
+
+    @Mock
+    private ContentStoreService contentStoreService;
+
+    @Mock
+    private AIOrchestrationService aiOrchestrationService;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private StudyMaterialRepository studyMaterialRepository;
+
+    @Mock
+    private StudyQuestionRepository studyQuestionRepository;
+
+    @Mock
+    private ThreadPoolTaskExecutor studyMaterialJobExecutor;
+
+    @InjectMocks
+    private StudyMaterialJobServiceImpl jobService;
+
+    private MockMultipartFile file;
+
+    @BeforeEach
+    void setUp() {
+        file = new MockMultipartFile("file", "notes.txt", "text/plain", "Cells are the unit of life.".getBytes());
+        User user = new User();
+        user.setId("user-1");
+        when(userRepository.findById("user-1")).thenReturn(Optional.of(user));
+        when(fileTextExtractionService.getFileExtension(file)).thenReturn(new FileExtensionResponse("txt", "ok"));
+        when(studyMaterialRepository.save(any(StudyMaterial.class))).thenAnswer(invocation -> {
+            StudyMaterial material = invocation.getArgument(0);
+            material.setId("material-1");
+            return material;
+        });
+    }
+
+    @Test
+    void returnsPendingMaterialWithoutWaitingForProcessing() {
+        DocumentUploadResponse response = jobService.submitStudyMaterialJob(file, "user-1", 5);
+
+        assertEquals("material-1", response.getId());
+        assertEquals(ProcessingStatus.PENDING.name(), response.getProcessingStatus());
+        verify(studyMaterialJobExecutor).execute(any(Runnable.class));
+        verifyNoInteractions(aiOrchestrationService);
+    }
+
+    @Test
+    void submittedJobCarriesLeaseThatThisNodeRenews() {
+        ReflectionTestUtils.setField(jobService, "jobLeaseSeconds", 120L);
+        ArgumentCaptor<StudyMaterial> saved = ArgumentCaptor.forClass(StudyMaterial.class);
+
+        jobService.submitStudyMaterialJob(file, "user-1", 5);
+        jobService.maintainLeases();
+
+        verify(studyMaterialRepository).save(saved.capture());
+        assertTrue(saved.getValue().getLeaseUntil().isAfter(LocalDateTime.now().plusSeconds(60)));
+        verify(studyMaterialRepository).extendJobLeases(eq(List.of("material-1")), any(LocalDateTime.class));
+        verify(studyMaterialRepository).failExpiredJobs(any(LocalDateTime.class), any(LocalDateTime.class), anyString());
+    }
+
+    @Test
+    void rejectsUploadAndCleansUpWhenQueueIsFull() {
+        doThrow(new TaskRejectedException("full")).when(studyMaterialJobExecutor).execute(any(Runnable.class));
+
+        assertThrows(ProcessingQueueFullException.class, () -> jobService.submitStudyMaterialJob(file, "user-1", 5));
+        verify(studyMaterialRepository).delete(any(StudyMaterial.class));
+
+        jobService.maintainLeases();
+        verify(studyMaterialRepository).extendJobLeases(eq(List.of()), any(LocalDateTime.class));
+    }
+
+    @Test
+    void jobStopsAndReleasesItsTextWhenMaterialIsDeletedMidway() {
+        ArgumentCaptor<Runnable> job = ArgumentCaptor.forClass(Runnable.class);
+        ParsedDocument document = ParsedDocument.builder().text("Cells are the unit of life.").numberOfPages(1).build();
+        when(fileTextExtractionService.parse(anyString(), anyLong(), any())).thenReturn(document);
+        when(textNormalizationService.normalize(document)).thenReturn(document);
+        when(contentStoreService.store(document.getText())).thenReturn("text-1");
+        when(studyMaterialRepository.updateJobProgress(any(StudyMaterial.class))).thenReturn(true, false);
+
+        jobService.submitStudyMaterialJob(file, "user-1", 5);
+        verify(studyMaterialJobExecutor).execute(job.capture());
+        job.getValue().run();
+
+        verify(contentStoreService).release("text-1");
+        verify(studyMaterialRepository, times(1)).save(any(StudyMaterial.class));
+        verify(studyMaterialRepository, times(2)).updateJobProgress(any(StudyMaterial.class));
+        verifyNoInteractions(aiOrchestrationService, studyQuestionRepository);
+    }
+}
@@ -0,0 +1,80 @@
+package com.izabi.service;
+
+import com.izabi.dto.response.ParsedDocument;
+import com.izabi.service.normalization.EmptyTableCellsStage;
+import com.izabi.service.normalization.HyphenationStage;
+import com.izabi.service.normalization.RepeatedPageLinesStage;
+import com.izabi.service.normalization.WhitespaceStage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextNormalizationServiceImplTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private TextNormalizationServiceImpl normalizationService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        normalizationService = new TextNormalizationServiceImpl(
+                List.of(new RepeatedPageLinesStage(), new HyphenationStage(), new EmptyTableCellsStage(), new WhitespaceStage()),
+                meterRegistry, true);
+    }
+
+    @Test
+    void dropsRunningHeadersAndPageNumbersAndRejoinsWords() {
+        List<String> pages = List.of(
+                "Biology 101 - Chapter 3\nCells carry out photo-\nsynthesis in chloroplasts.\nPage 1 of 3",
+                "Biology 101 - Chapter 3\nMitochondria   produce ATP.\nPage 2 of 3",
+                "Biology 101 - Chapter 3\nRibosomes build proteins.\n\n\n\nPage 3 of 3");
+        ParsedDocument document = ParsedDocument.builder()
+                .fileName("bio.pdf")
+                .fileExtension("pdf")
+                .segments(pages)
+                .text(String.join(ParsedDocument.PAGE_BREAK, pages))
+                .build();
+
+        ParsedDocument normalized = normalizationService.normalize(document);
+
+        assertEquals(List.of(
+                "Cells carry out photosynthesis in chloroplasts.",
+                "Mitochondria produce ATP.",
+                "Ribosomes build proteins.\n\n"), normalized.getSegments());
+        assertEquals(String.join(ParsedDocument.PAGE_BREAK, normalized.getSegments()), normalized.getText());
+        assertTrue(meterRegistry.counter("text.normalization.removed", "stage", "repeated-page-lines").count() > 0);
+    }
+
+    @Test
+    void stripsEmptySpreadsheetCells() {
+        String sheet = "Name\t\t\tScore\t\n\t\t\t\n Ada\t\t\t95\t\n";
+        ParsedDocument document = ParsedDocument.builder()
+                .fileExtension("xlsx")
+                .segments(List.of(sheet))
+                .text(sheet)
+                .build();
+
+        ParsedDocument normalized = normalizationService.normalize(document);
+
+        assertEquals("Name\t\t\tScore\n Ada\t\t\t95\n", normalized.getText());
+        assertTrue(normalized.getText().length() < sheet.length());
+    }
+
+    @Test
+    void stripsOnlyTrailingEmptyCsvFields() {
+        String csv = "student\tscore\tnote\t\t\nAda\t\tlate\t\t\n\t\t\t\t\n";
+        ParsedDocument document = ParsedDocument.builder()
+                .fileExtension("csv")
+                .segments(List.of(csv))
+                .text(csv)
+                .build();
+
+        ParsedDocument normalized = normalizationService.normalize(document);
+
+        assertEquals("student\tscore\tnote\nAda\t\tlate\n", normalized.getText());
+    }
+}
@@ -0,0 +1,107 @@
+package com.izabi.service;
+
+import com.izabi.util.ContentDigest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TokenBlacklistServiceImplTest {
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private TokenBlacklistServiceImpl blacklistService;
+
+    @BeforeEach
+    void setUp() {
+        blacklistService = new TokenBlacklistServiceImpl(redisTemplate, 1_000, 0.001);
+    }
+
+    @Test
+    void unrevokedTokensNeverReachRedis() {
+        for (int i = 0; i < 500; i++) {
+            assertFalse(blacklistService.isRevoked("token-" + i, "user-1", new Date()));
+        }
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    void logoutStoresDigestPublishesAndRejectsToken() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        String digestKey = "revoked_token:" + ContentDigest.sha256Hex("jwt-token");
+        when(redisTemplate.hasKey(digestKey)).thenReturn(true);
+
+        blacklistService.blacklistToken("jwt-token");
+
+        verify(valueOperations).set(eq(digestKey), anyString(), any(Duration.class));
+        verify(redisTemplate).convertAndSend(eq(TokenBlacklistServiceImpl.CHANNEL), contains("token:"));
+        assertTrue(blacklistService.isRevoked("jwt-token", "user-1", new Date()));
+    }
+
+    @Test
+    void revocationPublishedByAnotherNodeIsEnforced() {
+        String digest = ContentDigest.sha256Hex("jwt-token");
+        when(redisTemplate.hasKey("revoked_token:" + digest)).thenReturn(true);
+
+        blacklistService.onMessage(message("token:" + digest), null);
+
+        assertTrue(blacklistService.isRevoked("jwt-token", "user-1", new Date()));
+    }
+
+    @Test
+    void logoutFromAllDevicesRevokesOnlyOlderTokensWithoutRedisReads() {
+        Date issuedBefore = new Date(System.currentTimeMillis() - 60_000);
+        long epoch = System.currentTimeMillis() - 30_000;
+
+        blacklistService.onMessage(message("epoch:" + epoch + ":user-1"), null);
+
+        assertTrue(blacklistService.isRevoked("old-token", "user-1", issuedBefore));
+        assertFalse(blacklistService.isRevoked("new-token", "user-1", new Date()));
+        assertFalse(blacklistService.isRevoked("other-token", "user-2", issuedBefore));
+        verify(redisTemplate, never()).hasKey(anyString());
+    }
+
+    @Test
+    void tokenIssuedInTheSameSecondAsLogoutAllIsKept() {
+        long epoch = (System.currentTimeMillis() / 1000) * 1000 + 700;
+        Date sameSecond = new Date(epoch - 700);
+        Date secondBefore = new Date(epoch - 1_000);
+
+        blacklistService.onMessage(message("epoch:" + epoch + ":user-1"), null);
+
+        assertFalse(blacklistService.isRevoked("fresh-token", "user-1", sameSecond));
+        assertTrue(blacklistService.isRevoked("old-token", "user-1", secondBefore));
+    }
+
+    @Test
+    void probableHitIsRejectedWhenRedisIsDown() {
+        String digest = ContentDigest.sha256Hex("jwt-token");
+        when(redisTemplate.hasKey("revoked_token:" + digest)).thenThrow(new IllegalStateException("connection refused"));
+
+        blacklistService.onMessage(message("token:" + digest), null);
+
+        assertTrue(blacklistService.isRevoked("jwt-token", "user-1", new Date()));
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(TokenBlacklistServiceImpl.CHANNEL.getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -11,15 +11,15 @@ import com.izabi.dto.request.*;
 import com.izabi.dto.response.*;
 import com.izabi.exception.*;
 import com.izabi.util.JwtUtil;
+import com.izabi.util.VoicePrints;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -56,9 +56,6 @@ class UserServiceImplTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
-    @Mock
-    private AuthenticationManager authenticationManager;
-
     @Mock
     private CloudinaryService cloudinaryService;
 
@@ -168,30 +165,26 @@ class UserServiceImplTest {
         pendingUser = new PendingUser();
         pendingUser.setEmail("test@example.com");
         pendingUser.setPassword("encodedPassword");
-        pendingUser.setOtp("123456");
         pendingUser.setRole(Role.USER);
-        pendingUser.setVoicePrint(voicePrint.toString());
+        pendingUser.setVoicePrint(VoicePrints.pack(voicePrint));
+        pendingUser.setExpiryTime(LocalDateTime.now().plusMinutes(30));
 
         embedding = new Embedding();
         embedding.setId("123");
         embedding.setCreatedAt(LocalDateTime.parse("2024-01-01T10:00:00"));
-        embedding.setVoicePrint(voicePrint.toString());
+        embedding.setVoicePrint(VoicePrints.pack(voicePrint));
 
     }
 
     @Test
     void sendVerificationOTP_Success() {
         // Arrange
-        // Fix: Configure mock to be called twice - once for the main method and once for validateEmail
         when(userRepository.findByEmail(createUserRequest.getEmail()))
-                .thenReturn(Optional.empty())
                 .thenReturn(Optional.empty());
         when(passwordEncoder.encode(createUserRequest.getPassword()))
                 .thenReturn("encodedPassword");
         when(otpService.sendOtp(createUserRequest.getEmail()))
                 .thenReturn(new OTPResponse("123456", "test@example.com", "OTP sent"));
-        when(pendingUserRepository.save(any(PendingUser.class)))
-                .thenReturn(new PendingUser());
 
         // Act
         OTPResponse response = userService.sendVerificationOTP(createUserRequest);
@@ -203,11 +196,14 @@ class UserServiceImplTest {
                 () -> assertEquals("test@example.com", response.getEmail())
         );
 
-        // Fix: Verify that findByEmail is called twice
-        verify(userRepository, times(2)).findByEmail(createUserRequest.getEmail());
+        verify(userRepository).findByEmail(createUserRequest.getEmail());
         verify(passwordEncoder).encode(createUserRequest.getPassword());
         verify(otpService).sendOtp(createUserRequest.getEmail());
-        verify(pendingUserRepository).save(any(PendingUser.class));
+        ArgumentCaptor<PendingUser> pending = ArgumentCaptor.forClass(PendingUser.class);
+        verify(pendingUserRepository).upsertByEmail(pending.capture());
+        assertEquals("test@example.com", pending.getValue().getEmail());
+        assertNotNull(pending.getValue().getExpiryTime());
+        verify(pendingUserRepository, never()).save(any(PendingUser.class));
     }
 
     @Test
@@ -287,6 +283,7 @@ class UserServiceImplTest {
         );
 
         verify(pendingUserRepository).findByEmail(registerUserRequest.getEmail());
+        verify(otpService).verifyOtp(registerUserRequest.getEmail(), registerUserRequest.getOtp());
         verify(userRepository).save(any(User.class));
         verify(jwtTokenUtil).generateToken(any(User.class));
         verify(pendingUserRepository).delete(pendingUser);
@@ -309,12 +306,37 @@ class UserServiceImplTest {
         verify(userRepository, never()).save(any(User.class));
     }
 
+    @Test
+    void register_PendingUserExpired() {
+        pendingUser.setExpiryTime(LocalDateTime.now().minusMinutes(1));
+        when(pendingUserRepository.findByEmail(registerUserRequest.getEmail()))
+                .thenReturn(Optional.of(pendingUser));
+
+        assertThrows(UserNotFoundException.class, () -> userService.register(registerUserRequest));
+
+        verify(userRepository, never()).save(any(User.class));
+        verify(pendingUserRepository, never()).delete(any(PendingUser.class));
+    }
+
+    @Test
+    void register_PendingUserWithoutExpiryIsTreatedAsExpired() {
+        pendingUser.setExpiryTime(null);
+        when(pendingUserRepository.findByEmail(registerUserRequest.getEmail()))
+                .thenReturn(Optional.of(pendingUser));
+
+        assertThrows(UserNotFoundException.class, () -> userService.register(registerUserRequest));
+
+        verify(otpService, never()).verifyOtp(anyString(), anyString());
+        verify(userRepository, never()).save(any(User.class));
+    }
+
     @Test
     void register_InvalidOTP() {
         // Arrange
-        pendingUser.setOtp("654321");
         when(pendingUserRepository.findByEmail(registerUserRequest.getEmail()))
                 .thenReturn(Optional.of(pendingUser));
+        when(otpService.verifyOtp(registerUserRequest.getEmail(), registerUserRequest.getOtp()))
+                .thenThrow(new InvalidOtpException("Invalid OTP or email"));
 
         // Act & Assert
         InvalidOtpException exception = assertThrows(
@@ -379,9 +401,9 @@ class UserServiceImplTest {
                 () -> assertEquals("test@example.com", response.getUser().getEmail())
         );
 
-        verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
-        verify(userRepository).findByEmail(loginRequest.getEmail());
-        verify(passwordEncoder).matches(loginRequest.getPassword(), user.getPassword());
+        verify(userRepository, times(1)).findByEmail(loginRequest.getEmail());
+        verify(passwordEncoder, times(1)).matches(loginRequest.getPassword(), user.getPassword());
+        verifyNoMoreInteractions(passwordEncoder);
         verify(jwtTokenUtil).generateToken(user);
     }
 
@@ -389,16 +411,17 @@ class UserServiceImplTest {
     void login_UserNotFound() {
         // Arrange
         when(userRepository.findByEmail(loginRequest.getEmail())).thenReturn(Optional.empty());
+        when(passwordEncoder.encode(anyString())).thenReturn("dummyHash");
 
         // Act & Assert
-        UserNotFoundException exception = assertThrows(
-                UserNotFoundException.class,
+        InvalidPasswordException exception = assertThrows(
+                InvalidPasswordException.class,
                 () -> userService.login(loginRequest)
         );
 
-        assertNotNull(exception);
-        verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
+        assertEquals("Invalid email or password", exception.getMessage());
         verify(userRepository).findByEmail(loginRequest.getEmail());
+        verify(passwordEncoder).matches(loginRequest.getPassword(), "dummyHash");
     }
 
     @Test
@@ -413,7 +436,7 @@ class UserServiceImplTest {
                 () -> userService.login(loginRequest)
         );
 
-        assertNotNull(exception);
+        assertEquals("Invalid email or password", exception.getMessage());
         verify(userRepository).findByEmail(loginRequest.getEmail());
         verify(passwordEncoder).matches(loginRequest.getPassword(), user.getPassword());
     }
@@ -619,7 +642,7 @@ class UserServiceImplTest {
     void voiceSignup_Success() throws IOException {
         // Fix: Create proper EmbeddingResponse mock
         Embedding embedding1 = new Embedding();
-        embedding1.setVoicePrintList(Arrays.asList(1.0, 2.0, 3.0));
+        embedding1.setVoiceVector(new float[]{1.0f, 2.0f, 3.0f});
         EmbeddingResponse embeddingResponse = new EmbeddingResponse();
         embeddingResponse.setEmbedding(embedding1);
 
@@ -631,7 +654,6 @@ class UserServiceImplTest {
         when(passwordEncoder.encode("securePassword")).thenReturn("encodedSecurePassword");
         when(otpService.sendOtp(voiceSignupRequest.getEmail()))
                 .thenReturn(new OTPResponse("123456", "test@example.com", "OTP sent"));
-        when(pendingUserRepository.save(any(PendingUser.class))).thenReturn(pendingUser);
 
         VoiceRegistrationResponse response = userService.voiceSignup(voiceSignupRequest);
 
@@ -641,7 +663,7 @@ class UserServiceImplTest {
         verify(voiceAuthenticationService).extractVoiceFeatures(voiceSignupRequest.getVoiceSample());
         verify(embeddingRepository).save(any(Embedding.class));
         verify(otpService).sendOtp(voiceSignupRequest.getEmail());
-        verify(pendingUserRepository).save(any(PendingUser.class));
+        verify(pendingUserRepository).upsertByEmail(any(PendingUser.class));
     }
 
     @Test
@@ -695,6 +717,7 @@ class UserServiceImplTest {
         );
 
         verify(pendingUserRepository).findByEmail(completeVoiceRegistrationRequest.getEmail());
+        verify(otpService).verifyOtp(completeVoiceRegistrationRequest.getEmail(), completeVoiceRegistrationRequest.getOtp());
         verify(userRepository).save(any(User.class));
         verify(jwtTokenUtil).generateToken(any(User.class));
         verify(pendingUserRepository).delete(pendingUser);
@@ -714,9 +737,10 @@ class UserServiceImplTest {
 
     @Test
     void completeVoiceRegistration_InvalidOTP() {
-        pendingUser.setOtp("wrong-otp");
         when(pendingUserRepository.findByEmail(completeVoiceRegistrationRequest.getEmail()))
                 .thenReturn(Optional.of(pendingUser));
+        when(otpService.verifyOtp(completeVoiceRegistrationRequest.getEmail(), completeVoiceRegistrationRequest.getOtp()))
+                .thenThrow(new InvalidOtpException("Invalid OTP or email"));
 
         InvalidOtpException exception = assertThrows(InvalidOtpException.class, () -> userService.completeVoiceRegistration(completeVoiceRegistrationRequest));
 
@@ -728,7 +752,7 @@ class UserServiceImplTest {
     @Test
     void voiceLogin_Success() throws IOException {
         user.setVoiceAuthEnabled(true);
-        user.setVoicePrint("voice-print-data");
+        user.setVoicePrint(VoicePrints.pack(new float[]{0.5f, -0.25f, 1.0f}));
 
         when(userRepository.findByEmail(voiceLoginRequest.getEmail())).thenReturn(Optional.of(user));
         when(voiceAuthenticationService.verifyVoice(voiceLoginRequest.getVoiceSample(), user.getVoicePrint()))
@@ -771,7 +795,7 @@ class UserServiceImplTest {
     @Test
     void voiceLogin_VoiceDoesNotMatch() throws IOException {
         user.setVoiceAuthEnabled(true);
-        user.setVoicePrint("voice-print-data");
+        user.setVoicePrint(VoicePrints.pack(new float[]{0.5f, -0.25f, 1.0f}));
 
         when(userRepository.findByEmail(voiceLoginRequest.getEmail())).thenReturn(Optional.of(user));
         when(voiceAuthenticationService.verifyVoice(voiceLoginRequest.getVoiceSample(), user.getVoicePrint()))
@@ -786,7 +810,7 @@ class UserServiceImplTest {
     @Test
     void voiceLogin_VoiceProcessingFailed() throws IOException {
         user.setVoiceAuthEnabled(true);
-        user.setVoicePrint("voice-print-data");
+        user.setVoicePrint(VoicePrints.pack(new float[]{0.5f, -0.25f, 1.0f}));
 
         when(userRepository.findByEmail(voiceLoginRequest.getEmail())).thenReturn(Optional.of(user));
         when(voiceAuthenticationService.verifyVoice(voiceLoginRequest.getVoiceSample(), user.getVoicePrint()))
@@ -803,7 +827,7 @@ class UserServiceImplTest {
     void voiceLogin_InactiveUser() throws IOException {
         user.setActive(false);
         user.setVoiceAuthEnabled(true);
-        user.setVoicePrint("voice-print-data");
+        user.setVoicePrint(VoicePrints.pack(new float[]{0.5f, -0.25f, 1.0f}));
 
         when(userRepository.findByEmail(voiceLoginRequest.getEmail())).thenReturn(Optional.of(user));
 
@@ -819,7 +843,7 @@ class UserServiceImplTest {
 
         // Fix: Create proper EmbeddingResponse mock
         Embedding embedding1 = new Embedding();
-        embedding1.setVoicePrintList(Arrays.asList(1.0, 2.0, 3.0));
+        embedding1.setVoiceVector(new float[]{1.0f, 2.0f, 3.0f});
         EmbeddingResponse embeddingResponse = new EmbeddingResponse();
         embeddingResponse.setEmbedding(embedding1);
 
@@ -883,7 +907,7 @@ class UserServiceImplTest {
     void disableVoiceAuthentication_Success() {
         setupAuthentication();
         user.setVoiceAuthEnabled(true);
-        user.setVoicePrint("voice-print-data");
+        user.setVoicePrint(VoicePrints.pack(new float[]{0.5f, -0.25f, 1.0f}));
 
         when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(user));
         when(userRepository.save(any(User.class))).thenReturn(user);
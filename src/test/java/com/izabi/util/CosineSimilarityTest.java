@@ -0,0 +1,37 @@
+package com.izabi.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CosineSimilarityTest {
+
+    @Test
+    void knownValues() {
+        assertEquals(1.0, CosineSimilarity.of(new float[]{1, 2, 3}, new float[]{2, 4, 6}), 1e-6);
+        assertEquals(0.0, CosineSimilarity.of(new float[]{1, 0}, new float[]{0, 1}), 1e-6);
+        assertEquals(-1.0, CosineSimilarity.of(new float[]{1, -1}, new float[]{-1, 1}), 1e-6);
+        assertEquals(0.0, CosineSimilarity.of(new float[]{0, 0}, new float[]{1, 1}));
+    }
+
+    @Test
+    void kernelMatchesScalarLoopIncludingTail() {
+        Random random = new Random(42);
+        for (int length : new int[]{1, 7, 64, 193, 512}) {
+            float[] a = new float[length];
+            float[] b = new float[length];
+            for (int i = 0; i < length; i++) {
+                a[i] = (float) random.nextGaussian() * 50;
+                b[i] = (float) random.nextGaussian() * 50;
+            }
+            assertEquals(CosineSimilarity.scalar(a, b), CosineSimilarity.of(a, b), 1e-5, "length " + length);
+        }
+    }
+
+    @Test
+    void rejectsLengthMismatch() {
+        assertThrows(IllegalArgumentException.class, () -> CosineSimilarity.of(new float[3], new float[4]));
+    }
+}
@@ -0,0 +1,63 @@
+package com.izabi.util;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.OptionalInt;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FastPageCounterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void countsLinesLikeReadLine() throws Exception {
+        Path withTrailingNewline = Files.writeString(tempDir.resolve("a.txt"), "one\ntwo\r\nthree\n", StandardCharsets.UTF_8);
+        Path withoutTrailingNewline = Files.writeString(tempDir.resolve("b.txt"), "x\n".repeat(60) + "last", StandardCharsets.UTF_8);
+        Path empty = Files.writeString(tempDir.resolve("c.txt"), "", StandardCharsets.UTF_8);
+
+        assertEquals(3, FastPageCounter.countLines(withTrailingNewline));
+        assertEquals(61, FastPageCounter.countLines(withoutTrailingNewline));
+        assertEquals(0, FastPageCounter.countLines(empty));
+    }
+
+    @Test
+    void countsLinesFromStreamLikeFromFile() throws Exception {
+        String text = "x\n".repeat(70_000) + "last";
+        Path file = Files.writeString(tempDir.resolve("d.txt"), text, StandardCharsets.UTF_8);
+
+        try (InputStream in = new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8))) {
+            assertEquals(FastPageCounter.countLines(file), FastPageCounter.countLines(in));
+        }
+        assertEquals(0, FastPageCounter.countLines(InputStream.nullInputStream()));
+    }
+
+    @Test
+    void readsPdfPageCountFromTrailer() throws Exception {
+        Path pdf = tempDir.resolve("book.pdf");
+        try (PDDocument document = new PDDocument()) {
+            for (int i = 0; i < 37; i++) {
+                document.addPage(new PDPage());
+            }
+            document.save(pdf.toFile());
+        }
+
+        assertEquals(OptionalInt.of(37), FastPageCounter.pdfPages(pdf));
+    }
+
+    @Test
+    void unreadableTrailerFallsBackToFullParse() throws Exception {
+        Path notPdf = Files.writeString(tempDir.resolve("broken.pdf"), "%PDF-1.7\nstartxref\n999999\n%%EOF", StandardCharsets.US_ASCII);
+
+        assertTrue(FastPageCounter.pdfPages(notPdf).isEmpty());
+    }
+}
@@ -0,0 +1,59 @@
+package com.izabi.util;
+
+import com.izabi.data.enums.Role;
+import com.izabi.data.model.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtUtilTest {
+
+    private static final byte[] SECRET = "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.UTF_8);
+
+    private final JwtUtil jwtUtil = new JwtUtil(Base64.getEncoder().encodeToString(SECRET), 100);
+
+    @Test
+    void embedsRolesAndUserIdAndCachesVerifiedClaims() {
+        User user = new User();
+        user.setId("user-1");
+        user.setEmail("ada@example.com");
+        user.setRole(Role.STUDENT);
+
+        String token = jwtUtil.generateToken(user);
+        Claims claims = jwtUtil.verify(token);
+
+        assertEquals("ada@example.com", claims.getSubject());
+        assertEquals("user-1", claims.get(JwtUtil.USER_ID_CLAIM));
+        assertEquals(List.of("ROLE_STUDENT"), JwtUtil.roles(claims));
+        assertSame(claims, jwtUtil.verify(token));
+        assertTrue(jwtUtil.isValidToken(token, user));
+    }
+
+    @Test
+    void rejectsTamperedAndExpiredTokens() {
+        User user = new User();
+        user.setEmail("ada@example.com");
+        user.setRole(Role.USER);
+        String token = jwtUtil.generateToken(user);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+        String expired = Jwts.builder()
+                .setSubject("ada@example.com")
+                .setExpiration(new Date(System.currentTimeMillis() - 1000))
+                .signWith(Keys.hmacShaKeyFor(SECRET), SignatureAlgorithm.HS256)
+                .compact();
+
+        assertNull(jwtUtil.verify(tampered));
+        assertNull(jwtUtil.verify(expired));
+        assertNull(jwtUtil.verify("not-a-token"));
+        assertThrows(RuntimeException.class, () -> jwtUtil.extractUserName(expired));
+    }
+}
@@ -0,0 +1,58 @@
+package com.izabi.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextChunkerTest {
+
+    @Test
+    void shortTextStaysInOneChunk() {
+        List<String> chunks = TextChunker.chunk("First paragraph.\n\nSecond paragraph.", 100, 10);
+
+        assertEquals(List.of("First paragraph.\n\nSecond paragraph."), chunks);
+    }
+
+    @Test
+    void chunksRespectBudgetAndCoverEveryPage() {
+        StringBuilder text = new StringBuilder();
+        for (int page = 1; page <= 20; page++) {
+            text.append("Page ").append(page).append(" explains topic ").append(page).append(". ")
+                    .append("x".repeat(150)).append('\f');
+        }
+
+        List<String> chunks = TextChunker.chunk(text.toString(), 120, 20);
+
+        assertTrue(chunks.size() > 1);
+        for (String chunk : chunks) {
+            assertTrue(TokenEstimator.estimateTokens(chunk) <= 120, "chunk over budget: " + chunk.length());
+        }
+        String joined = String.join("\n", chunks);
+        for (int page = 1; page <= 20; page++) {
+            assertTrue(joined.contains("Page " + page + " explains"), "missing page " + page);
+        }
+    }
+
+    @Test
+    void consecutiveChunksOverlap() {
+        String text = "Alpha one.\n\nBravo two.\n\nCharlie three.\n\nDelta four.\n\nEcho five.";
+
+        List<String> chunks = TextChunker.chunk(text, 8, 3);
+
+        assertTrue(chunks.size() > 1);
+        String lastOfFirst = chunks.get(0).substring(chunks.get(0).lastIndexOf("\n\n") + 2);
+        assertTrue(chunks.get(1).startsWith(lastOfFirst));
+    }
+
+    @Test
+    void oversizedParagraphIsSplit() {
+        String text = "word ".repeat(1000);
+
+        List<String> chunks = TextChunker.chunk(text, 100, 0);
+
+        assertTrue(chunks.size() >= 12);
+        chunks.forEach(chunk -> assertTrue(TokenEstimator.estimateTokens(chunk) <= 100));
+    }
+}
@@ -0,0 +1,39 @@
+package com.izabi.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VoicePrintsTest {
+
+    @Test
+    void packRoundTripsAsLittleEndianFloat32() {
+        float[] vector = {1.0f, -179.73248f, 0.0f, Float.MIN_VALUE};
+
+        byte[] packed = VoicePrints.pack(vector);
+
+        assertEquals(16, packed.length);
+        assertArrayEquals(new byte[]{0x00, 0x00, (byte) 0x80, 0x3F}, Arrays.copyOf(packed, 4));
+        assertArrayEquals(vector, VoicePrints.unpack(packed));
+    }
+
+    @Test
+    void packNarrowsModelDoubles() {
+        assertArrayEquals(new float[]{0.5f, 2.25f}, VoicePrints.unpack(VoicePrints.pack(List.of(0.5, 2.25))));
+    }
+
+    @Test
+    void parseLegacyAcceptsPlainAndBracketedLists() {
+        assertArrayEquals(new float[]{1.5f, -2.0f, 3.0f}, VoicePrints.parseLegacy("1.5, -2.0,3"));
+        assertArrayEquals(new float[]{1.5f, -2.0f}, VoicePrints.parseLegacy("[1.5, -2.0]"));
+        assertEquals(0, VoicePrints.parseLegacy("[]").length);
+    }
+
+    @Test
+    void unpackRejectsTruncatedInput() {
+        assertThrows(IllegalArgumentException.class, () -> VoicePrints.unpack(new byte[6]));
+    }
+}